@@ -0,0 +1,60 @@
+package sqlinterface;
+
+import java.util.Set;
+
+/**
+ * Interface for objects that accept batched writes to a table keyed by {@link EnumEntry#PAGE_ID}.
+ * <p>
+ * Writes are queued by the {@code batch} methods and are only guaranteed to have reached the database once {@link #executeBatch()} returns.
+ * Writes to the same page ID are always applied in the order they were queued.
+ */
+public interface BatchWriter {
+
+	/**
+	 * Queues an insertion of the passed value into the {@link EnumEntry} column.
+	 *
+	 * @param passedKey - The data to insert into the table
+	 * @param passedEntry - The column to use for insertion (Should be the table's primary key!)
+	 */
+	public void batchInsertRaw(String passedKey, EnumEntry passedEntry);
+
+	/**
+	 * Queues an update of the {@link EnumEntry} column for the row keyed by the passed key.
+	 *
+	 * @param passedEntryValue - The value to set
+	 * @param passedKey - The key to use
+	 * @param passedEntry - The column to set within the SQL database
+	 */
+	public void batchUpdateRaw(String passedEntryValue, String passedKey, EnumEntry passedEntry);
+
+	/**
+	 * Queues an update of the passed columns for the row keyed by the passed {@link TableEntry}'s page ID.
+	 *
+	 * @param passedTableEntry - The {@link TableEntry} holding the page ID and the values to set
+	 * @param passedEntries - The columns to set within the SQL database
+	 */
+	public void batchUpdate(TableEntry passedTableEntry, EnumEntry... passedEntries);
+
+	/**
+	 * Queues an upsert of the passed columns for the row keyed by the passed {@link TableEntry}'s page ID, inserting the row if it does not exist.
+	 *
+	 * @param passedTableEntry - The {@link TableEntry} holding the page ID and the values to set
+	 * @param passedEntries - The columns to set within the SQL database, besides the page ID
+	 */
+	public void batchUpsert(TableEntry passedTableEntry, EnumEntry... passedEntries);
+
+	/**
+	 * Sends all queued writes to the database.
+	 *
+	 * @return The update counts of the writes sent.
+	 */
+	public int[] executeBatch();
+
+	/**
+	 * Returns the page IDs of the queued writes that failed since the previous call to this method, and forgets them. Call it after
+	 * {@link #executeBatch()}, so that every write queued before has been sent.
+	 *
+	 * @return The page IDs of the rows whose writes failed.
+	 */
+	public Set<String> takeFailedPages();
+}
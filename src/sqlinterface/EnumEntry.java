@@ -2,23 +2,27 @@ package sqlinterface;
 
 public enum EnumEntry {
 
-	PAGE_ID(0, "pageid", "INTEGER"),
-	TITLE(1, "title", "TEXT"),
-	REVISION_ID(2, "revisionid", "INTEGER"),
-	YEAR(3, "year", "INTEGER"),
-	TEXT_INTRO(4, "textintro", "TEXT"),
-	TEXT_FULL(5, "textfull", "TEXT"),
-	CATEGORIES(6, "categories", "TEXT"),
+	PAGE_ID(0, "pageid", "INTEGER", false),
+	TITLE(1, "title", "TEXT", false),
+	REVISION_ID(2, "revisionid", "INTEGER", false),
+	YEAR(3, "year", "INTEGER", false),
+	TEXT_INTRO(4, "textintro", "TEXT", true),
+	TEXT_FULL(5, "textfull", "TEXT", true),
+	CATEGORIES(6, "categories", "TEXT", false),
 	;
 	
+	private static final String TYPE_COMPRESSED = "BLOB";
+	
 	private int INDEX;
 	private String NAME;
 	private String TYPE;
+	private boolean COMPRESSIBLE;
 	
-	private EnumEntry(int passedIndex, String passedName, String passedSQLType) {
+	private EnumEntry(int passedIndex, String passedName, String passedSQLType, boolean passedCompressible) {
 		this.INDEX = passedIndex;
 		this.NAME = passedName;
 		this.TYPE = passedSQLType;
+		this.COMPRESSIBLE = passedCompressible;
 	}
 	
 	public int getIndex() {
@@ -32,4 +36,23 @@ public enum EnumEntry {
 	public String getSQLType() {
 		return this.TYPE;
 	}
+	
+	/**
+	 * Returns the SQL type of this column when article text is stored compressed by a {@link TextCodec}.
+	 * 
+	 * @param passedCompressed - Whether article text is stored compressed
+	 * @return The SQL type of this column.
+	 */
+	public String getSQLType(boolean passedCompressed) {
+		return (passedCompressed && this.COMPRESSIBLE) ? TYPE_COMPRESSED : this.TYPE;
+	}
+	
+	/**
+	 * Returns whether this column holds article text, stored compressed when a {@link TextCodec} is in use.
+	 * 
+	 * @return Whether this column is compressible.
+	 */
+	public boolean isCompressible() {
+		return this.COMPRESSIBLE;
+	}
 }
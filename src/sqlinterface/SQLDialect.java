@@ -0,0 +1,137 @@
+package sqlinterface;
+
+import java.util.Locale;
+
+/**
+ * The SQL syntax used to insert a row, or update it if a row with the same {@link EnumEntry#PAGE_ID} already exists, in one statement.
+ * <p>
+ * Statements written by {@link #upsert(String, EnumEntry[], int)} insert every passed column, but only update the columns other than the
+ * page ID; if there are none, an existing row is left as it is. The table's page ID column must be its primary key (or otherwise unique).
+ */
+public enum SQLDialect {
+
+	/**
+	 * {@code INSERT ... ON CONFLICT (pageid) DO UPDATE SET ...}, as understood by PostgreSQL and SQLite.
+	 */
+	ON_CONFLICT,
+	/**
+	 * {@code INSERT ... ON DUPLICATE KEY UPDATE ...}, as understood by MySQL and MariaDB.
+	 */
+	ON_DUPLICATE_KEY,
+	/**
+	 * The standard {@code MERGE INTO ... USING (VALUES ...)} statement, for any other database.
+	 */
+	MERGE,
+	;
+
+	private static final String SYNTAX_INSERT = "INSERT INTO %s (%s) VALUES %s";
+	private static final String SYNTAX_ON_CONFLICT_UPDATE = " ON CONFLICT (%s) DO UPDATE SET %s";
+	private static final String SYNTAX_ON_CONFLICT_NOTHING = " ON CONFLICT (%s) DO NOTHING";
+	private static final String SYNTAX_ON_DUPLICATE_KEY = " ON DUPLICATE KEY UPDATE %s";
+	private static final String SYNTAX_MERGE = "MERGE INTO %1$s USING (VALUES %2$s) AS %3$s (%4$s) ON (%1$s.%5$s = %3$s.%5$s)";
+	private static final String SYNTAX_MERGE_MATCHED = " WHEN MATCHED THEN UPDATE SET %s";
+	private static final String SYNTAX_MERGE_NOT_MATCHED = " WHEN NOT MATCHED THEN INSERT (%s) VALUES (%s)";
+	private static final String MERGE_SOURCE = "source";
+	private static final String SYNTAX_LIMIT = " LIMIT %d";
+	private static final String SYNTAX_FETCH_FIRST = " FETCH FIRST %d ROWS ONLY";
+
+	/**
+	 * Returns the dialect to use for the database with the passed product name, as reported by {@link java.sql.DatabaseMetaData#getDatabaseProductName()}.
+	 *
+	 * @param passedProductName - The product name of the database
+	 * @return The matching {@link SQLDialect}, or {@link #MERGE} if the database is not recognized.
+	 */
+	public static SQLDialect fromProductName(String passedProductName) {
+		String name = (passedProductName == null) ? "" : passedProductName.toLowerCase(Locale.ROOT);
+		if (name.contains("postgres") || name.contains("sqlite")) {
+			return ON_CONFLICT;
+		}
+		if (name.contains("mysql") || name.contains("mariadb")) {
+			return ON_DUPLICATE_KEY;
+		}
+		return MERGE;
+	}
+
+	/**
+	 * Returns an upsert of the passed number of rows into the passed columns, with one parameter per value, row by row in column order.
+	 * <p>
+	 * A single statement should not hold the same page ID twice; only {@link #ON_DUPLICATE_KEY} databases accept it.
+	 *
+	 * @param passedTableName - The name of the table to write to
+	 * @param passedColumns - The columns to write, including {@link EnumEntry#PAGE_ID}
+	 * @param passedRows - The number of rows to write
+	 * @return The upsert command.
+	 * @throws IllegalArgumentException If the columns do not include the page ID, or fewer than one row is passed.
+	 */
+	public String upsert(String passedTableName, EnumEntry[] passedColumns, int passedRows) {
+		if ((passedRows < 1) || !contains(passedColumns, EnumEntry.PAGE_ID)) {
+			throw new IllegalArgumentException("An upsert must write at least one row, and the page ID of each");
+		}
+		String key = EnumEntry.PAGE_ID.getEntryName();
+		String columns = join(passedColumns, "%s", null);
+		String values = rows(passedColumns.length, passedRows);
+		boolean updates = passedColumns.length > 1;
+		switch (this) {
+			case ON_CONFLICT:
+				return String.format(SYNTAX_INSERT, passedTableName, columns, values)
+						+ (updates ? String.format(SYNTAX_ON_CONFLICT_UPDATE, key, join(passedColumns, "%1$s = excluded.%1$s", EnumEntry.PAGE_ID)) : String.format(SYNTAX_ON_CONFLICT_NOTHING, key));
+			case ON_DUPLICATE_KEY:
+				// With nothing to update, assigning the key to itself leaves an existing row untouched
+				return String.format(SYNTAX_INSERT, passedTableName, columns, values)
+						+ String.format(SYNTAX_ON_DUPLICATE_KEY, updates ? join(passedColumns, "%1$s = VALUES(%1$s)", EnumEntry.PAGE_ID) : String.format("%1$s = %1$s", key));
+			default:
+				String sourceColumns = join(passedColumns, MERGE_SOURCE + ".%s", null);
+				return String.format(SYNTAX_MERGE, passedTableName, values, MERGE_SOURCE, columns, key)
+						+ (updates ? String.format(SYNTAX_MERGE_MATCHED, join(passedColumns, "%1$s = " + MERGE_SOURCE + ".%1$s", EnumEntry.PAGE_ID)) : "")
+						+ String.format(SYNTAX_MERGE_NOT_MATCHED, columns, sourceColumns);
+		}
+	}
+
+	/**
+	 * Returns the clause limiting a query to the passed number of rows, to be appended to a {@code SELECT}.
+	 *
+	 * @param passedRows - The maximum number of rows to return
+	 * @return The limit clause, with a leading space.
+	 */
+	public String limit(int passedRows) {
+		// PostgreSQL, SQLite, MySQL and MariaDB all understand LIMIT; FETCH FIRST is the standard form
+		return String.format((this == MERGE) ? SYNTAX_FETCH_FIRST : SYNTAX_LIMIT, passedRows);
+	}
+
+	/* Logic Methods */
+
+	private static boolean contains(EnumEntry[] passedColumns, EnumEntry passedEntry) {
+		for (EnumEntry iteratedColumn : passedColumns) {
+			if (iteratedColumn == passedEntry) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static String join(EnumEntry[] passedColumns, String passedFormat, EnumEntry passedExcluded) {
+		StringBuilder builder = new StringBuilder();
+		for (EnumEntry iteratedColumn : passedColumns) {
+			if (iteratedColumn != passedExcluded) {
+				if (builder.length() > 0) {
+					builder.append(", ");
+				}
+				builder.append(String.format(passedFormat, iteratedColumn.getEntryName()));
+			}
+		}
+		return builder.toString();
+	}
+
+	private static String rows(int passedWidth, int passedRows) {
+		StringBuilder row = new StringBuilder("(?");
+		for (int iterator = 1; iterator < passedWidth; iterator++) {
+			row.append(", ?");
+		}
+		row.append(')');
+		StringBuilder builder = new StringBuilder(row);
+		for (int iterator = 1; iterator < passedRows; iterator++) {
+			builder.append(", ").append(row);
+		}
+		return builder.toString();
+	}
+}
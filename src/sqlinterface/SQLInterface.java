@@ -1,36 +1,97 @@
 package sqlinterface;
 
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Function;
 
 /**
  * Class that provides support for several common SQL operations, using {@link TableEntry} and {@link EnumEntry} for ease of use.
+ * <p>
+ * Single-column inserts and updates may also be queued with {@link #batchInsertRaw(String, EnumEntry)} and {@link #batchUpdateRaw(String, String, EnumEntry)},
+ * and sent to the database together as JDBC batches by {@link #executeBatch()}.
+ * <p>
+ * Rows may be written whether or not they already exist with {@link #upsert(TableEntry...)}, {@link #batchUpsert(TableEntry, EnumEntry...)} and
+ * {@link #upsertRows(List)}, using the {@link SQLDialect} detected from the database (see {@link #setDialect(SQLDialect)}).
+ * <p>
+ * Single-column write statements are prepared once per shape and kept in a {@link StatementCache}; call {@link #close()} to release them.
+ * <p>
+ * If a {@link TextCodec} is set with {@link #setTextCodec(TextCodec)}, values written to compressible columns (see {@link EnumEntry#isCompressible()})
+ * are stored compressed, as binary values; read them back with {@link #readText(ResultSet, int, EnumEntry)} or {@link #selectText(String, EnumEntry)}.
  *
  * @author Malcolm Riley
  */
-public class SQLInterface {
+public class SQLInterface implements BatchWriter, AutoCloseable {
 
 	private Connection CONNECTION;
 	private String TABLE_NAME;
+	private StatementCache STATEMENT_CACHE;
+	private volatile TextCodec TEXT_CODEC = null;
+	private SQLDialect DIALECT;
+
+	// Batching
+	private int BATCH_MAX_ROWS = DEFAULT_BATCH_MAX_ROWS;
+	private long BATCH_MAX_BYTES = DEFAULT_BATCH_MAX_BYTES;
+	private int BATCH_ROWS = 0;
+	private long BATCH_BYTES = 0;
+	private Map<String, PendingBatch> PENDING_BATCHES = new LinkedHashMap<String, PendingBatch>();
+	private List<PendingBatch> BATCH_ORDER = new ArrayList<PendingBatch>();
+	private List<String> BATCH_ORDER_PAGES = new ArrayList<String>();
+	private Map<String, PendingBatch> BATCH_PAGES = new HashMap<String, PendingBatch>();
+	private Set<String> FAILED_PAGES = new HashSet<String>();
+	private int[] BATCH_RESULTS = new int[DEFAULT_BATCH_MAX_ROWS];
+	private int BATCH_RESULT_COUNT = 0;
+
+	private static final int DEFAULT_CACHE_CAPACITY = 32;
+	private static final int DEFAULT_BATCH_MAX_ROWS = 1000;
+	private static final long DEFAULT_BATCH_MAX_BYTES = 4L * 1024L * 1024L;
 
 	private static final String SYNTAX_INSERT = "INSERT INTO %s VALUES %s";
 	private static final String SYNTAX_UPDATE = "UPDATE %s SET %s";
 	private static final String SYNTAX_SELECT = "SELECT %s FROM %s";
+	private static final String SYNTAX_COUNT = "SELECT COUNT(*) FROM %s";
+	private static final String SYNTAX_SELECT_PRESENT = "SELECT %1$s FROM %2$s WHERE %1$s IS NOT NULL";
+	private static final String SYNTAX_SELECT_NONE = "SELECT %s FROM %s WHERE 1 = 0";
+	private static final String SYNTAX_SELECT_COLUMN = "SELECT %s FROM %s WHERE %s = ?";
+	private static final String SYNTAX_INSERT_COLUMN = "INSERT INTO %s (%s) VALUES (?)";
+	private static final String SYNTAX_UPDATE_COLUMN = "UPDATE %s SET %s = ? WHERE %s = ?";
 	
+	private static final String OPERATION_INSERT = "INSERT";
+	private static final String OPERATION_UPDATE = "UPDATE";
+	private static final String OPERATION_BATCH_INSERT = "BATCH_INSERT";
+	private static final String OPERATION_BATCH_UPDATE = "BATCH_UPDATE";
+	private static final String OPERATION_SELECT = "SELECT";
+	private static final String OPERATION_INSERT_ROWS = "INSERT_ROWS(%dx%d)";
+	private static final String OPERATION_BATCH_UPSERT = "BATCH_UPSERT";
+	private static final String OPERATION_UPSERT_ROWS = "UPSERT_ROWS(%dx%d)";
+
 	private static final String EXCEPTION_STRING = "Exception when attempting to send command \"%s\"";
 
 	private static final Function<EnumEntry, String> MAPPER_SELECT = (entry) -> {
-		return "?";
+		return entry.getEntryName(); // Column names can't be bound as parameters
+	};
+	private static final Function<EnumEntry, String> MAPPER_ASSIGNMENT = (entry) -> {
+		return String.format("%s = ?", entry.getEntryName());
 	};
 	private static final Function<TableEntry, String> MAPPER_INSERT = (entry) -> {
 		return String.format("(%s)", fromTableEntry(entry));
 	};
 	private static final Function<TableEntry, String> MAPPER_UPDATE = (entry) -> {
-		return String.format("%s WHERE %s", fromTableEntry(entry), String.format("%s = ?", EnumEntry.PAGE_ID.getEntryName()));
+		return String.format("%s WHERE %s = ?", buildForEach(MAPPER_ASSIGNMENT, EnumEntry.values()), EnumEntry.PAGE_ID.getEntryName());
 	};
 
 	/**
@@ -45,30 +106,207 @@ public class SQLInterface {
 	public SQLInterface(String passedDatabaseURL, String passedTableName, String passedUsername, String passedPassword) throws SQLException {
 		this.CONNECTION = DriverManager.getConnection(passedDatabaseURL, passedUsername, passedPassword);
 		this.TABLE_NAME = passedTableName;
+		this.STATEMENT_CACHE = new StatementCache(this.CONNECTION, DEFAULT_CACHE_CAPACITY);
+		this.DIALECT = SQLDialect.fromProductName(this.CONNECTION.getMetaData().getDatabaseProductName());
+	}
+
+	/**
+	 * Returns the {@link StatementCache} holding this instance's prepared write statements, i.e. for inspecting its hit and miss statistics.
+	 *
+	 * @return The {@link StatementCache} used by this instance.
+	 */
+	public StatementCache getStatementCache() {
+		return this.STATEMENT_CACHE;
+	}
+
+	/**
+	 * Sets the {@link TextCodec} used to compress values written to, and decompress values read from, compressible columns.
+	 * <p>
+	 * The compressible columns of the table must be binary (see {@link #findTextColumns()}). Values stored before compression
+	 * was enabled are still read as they are.
+	 *
+	 * @param passedCodec - The {@link TextCodec} to use, or {@code null} to store text uncompressed
+	 */
+	public void setTextCodec(TextCodec passedCodec) {
+		this.TEXT_CODEC = passedCodec;
+	}
+
+	/**
+	 * Returns the {@link TextCodec} used for compressible columns.
+	 *
+	 * @return The {@link TextCodec} in use, or {@code null} if text is stored uncompressed.
+	 */
+	public TextCodec getTextCodec() {
+		return this.TEXT_CODEC;
+	}
+
+	/**
+	 * Sets the {@link SQLDialect} used to write upserts, replacing the one detected from the database's product name.
+	 * <p>
+	 * Any batch commands already queued are sent first.
+	 *
+	 * @param passedDialect - The {@link SQLDialect} to use
+	 */
+	public synchronized void setDialect(SQLDialect passedDialect) {
+		this.flushBatches();
+		this.DIALECT = passedDialect;
+	}
+
+	/**
+	 * Returns the {@link SQLDialect} used to write upserts.
+	 *
+	 * @return The {@link SQLDialect} in use.
+	 */
+	public synchronized SQLDialect getDialect() {
+		return this.DIALECT;
+	}
+
+	/**
+	 * Sends any queued batch commands, then closes all cached statements and the underlying connection.
+	 *
+	 * @throws SQLException If the connection could not be closed
+	 */
+	@Override
+	public synchronized void close() throws SQLException {
+		this.flushBatches();
+		this.STATEMENT_CACHE.close();
+		this.CONNECTION.close();
 	}
 
 	/**
 	 * Performs a {@code SELECT} operation on this instance's table's columns specified by the passed {@link EnumEntry} instances.
 	 *
 	 * @param passedEntries - The columns to select from this instance's table
-	 * @return The {@link ResultSet} from the command's execution.
+	 * @return The {@link ResultSet} from the command's execution, or {@code null} if the command failed.
 	 */
 	public ResultSet select(EnumEntry... passedEntries) {
 		String command = String.format(SYNTAX_SELECT, buildForEach(MAPPER_SELECT, passedEntries), this.TABLE_NAME) + ";";
+		PreparedStatement statement = this.obtain(command);
+		if (statement == null) {
+			System.out.println(String.format(EXCEPTION_STRING, command));
+			return null;
+		}
+		return this.executeCommand(statement);
+	}
+
+	/**
+	 * Performs a {@code SELECT} of at most the passed number of values of the passed column, skipping rows without one, in no particular order.
+	 * <p>
+	 * As the limit is part of the command, a driver that buffers whole results (such as MySQL's) never holds more than a sample of a large table.
+	 *
+	 * @param passedEntry - The column to select from this instance's table
+	 * @param passedLimit - The maximum number of rows to select
+	 * @return The {@link ResultSet} from the command's execution, or {@code null} if the command failed.
+	 */
+	public ResultSet selectSample(EnumEntry passedEntry, int passedLimit) {
+		String command = String.format(SYNTAX_SELECT_PRESENT, passedEntry.getEntryName(), this.TABLE_NAME) + this.getDialect().limit(passedLimit) + ";";
+		PreparedStatement statement = this.obtain(command);
+		if (statement == null) {
+			System.out.println(String.format(EXCEPTION_STRING, command));
+			return null;
+		}
+		return this.executeCommand(statement);
+	}
+
+	/**
+	 * Returns the compressible columns of this instance's table that are not of a binary type, and so cannot hold values compressed by a
+	 * {@link TextCodec}; their type must first be changed (i.e. to {@link EnumEntry#getSQLType(boolean)}).
+	 *
+	 * @return The compressible columns that are not binary, empty if there are none.
+	 * @throws SQLException If the types of the table's columns could not be read
+	 */
+	public List<EnumEntry> findTextColumns() throws SQLException {
+		List<EnumEntry> compressible = new ArrayList<EnumEntry>();
+		for (EnumEntry iteratedEntry : EnumEntry.values()) {
+			if (iteratedEntry.isCompressible()) {
+				compressible.add(iteratedEntry);
+			}
+		}
+		List<EnumEntry> textColumns = new ArrayList<EnumEntry>();
+		if (compressible.isEmpty()) {
+			return textColumns;
+		}
+		String command = String.format(SYNTAX_SELECT_NONE, buildForEach(MAPPER_SELECT, compressible.toArray(new EnumEntry[compressible.size()])), this.TABLE_NAME) + ";";
+		try (PreparedStatement statement = this.CONNECTION.prepareStatement(command); ResultSet results = statement.executeQuery()) {
+			ResultSetMetaData metadata = results.getMetaData();
+			for (int iterator = 0; iterator < compressible.size(); iterator++) {
+				switch (metadata.getColumnType(iterator + 1)) {
+					case Types.BINARY:
+					case Types.VARBINARY:
+					case Types.LONGVARBINARY:
+					case Types.BLOB:
+						break;
+					default:
+						textColumns.add(compressible.get(iterator));
+						break;
+				}
+			}
+		}
+		return textColumns;
+	}
+
+	/**
+	 * Reads the value of the {@link EnumEntry} column for the row keyed by the passed key, decompressing it if needed.
+	 * <p>
+	 * Transmits a command equivalent to {@code SELECT [passedEntry] FROM [table] WHERE [pageid] = [passedKey]}
+	 *
+	 * @param passedKey - The key of the row to read
+	 * @param passedEntry - The column to read
+	 * @return The value, or {@code null} if the row does not exist, has no value, or could not be read.
+	 */
+	public synchronized String selectText(String passedKey, EnumEntry passedEntry) {
+		String command = String.format(SYNTAX_SELECT_COLUMN, passedEntry.getEntryName(), this.TABLE_NAME, EnumEntry.PAGE_ID.getEntryName()) + ";";
 		try {
-			PreparedStatement statement = this.obtain(command);
-			for (int iterator = 0; iterator < passedEntries.length; iterator++) {
-				statement.setString(iterator, passedEntries[iterator].getEntryName());
+			PreparedStatement statement = this.STATEMENT_CACHE.obtain(StatementCache.key(OPERATION_SELECT, passedEntry), command);
+			statement.setString(1, passedKey);
+			try (ResultSet results = statement.executeQuery()) {
+				return results.next() ? this.readText(results, 1, passedEntry) : null;
 			}
-			return this.executeCommand(statement);
 		}
-		catch (SQLException passedException) {
+		catch (SQLException | IllegalArgumentException passedException) {
 			System.out.println(String.format(EXCEPTION_STRING, command));
 			passedException.printStackTrace();
 		}
 		return null;
 	}
 
+	/**
+	 * Reads the value of the {@link EnumEntry} column at the passed index of the current row of the passed {@link ResultSet}, decompressing it if needed.
+	 *
+	 * @param passedResults - The {@link ResultSet}, positioned at the row to read
+	 * @param passedColumnIndex - The index of the column within the {@link ResultSet}, starting at 1
+	 * @param passedEntry - The column being read
+	 * @return The value, or {@code null} if the row has no value.
+	 * @throws SQLException If the value could not be read
+	 * @throws IllegalArgumentException If the value is compressed, and cannot be decompressed with this instance's {@link TextCodec}.
+	 */
+	public String readText(ResultSet passedResults, int passedColumnIndex, EnumEntry passedEntry) throws SQLException {
+		TextCodec codec = this.TEXT_CODEC;
+		if ((codec == null) || !passedEntry.isCompressible()) {
+			return passedResults.getString(passedColumnIndex);
+		}
+		return codec.decode(passedResults.getBytes(passedColumnIndex));
+	}
+
+	/**
+	 * Counts the rows in this instance's table.
+	 *
+	 * @return The number of rows, or {@code -1} if they could not be counted.
+	 */
+	public long count() {
+		String command = String.format(SYNTAX_COUNT, this.TABLE_NAME) + ";";
+		try (PreparedStatement statement = this.CONNECTION.prepareStatement(command); ResultSet results = statement.executeQuery()) {
+			if (results.next()) {
+				return results.getLong(1);
+			}
+		}
+		catch (SQLException passedException) {
+			passedException.printStackTrace();
+		}
+		System.out.println(String.format(EXCEPTION_STRING, command));
+		return -1L;
+	}
+
 	/**
 	 * Inserts the passed {@link TableEntry} instances into the {@link SQLInterface} instance's table.
 	 * <p>
@@ -81,9 +319,10 @@ public class SQLInterface {
 		String command = String.format(SYNTAX_INSERT, this.TABLE_NAME, buildForEach(MAPPER_INSERT, passedTableEntries)) + ";";
 		try {
 			PreparedStatement statement = this.obtain(command);
-			for (int iterator = 0; iterator < passedTableEntries.length; iterator++) {
-				for (EnumEntry iteratedEnum : EnumEntry.values()) {
-					statement.setString(iterator, passedTableEntries[iterator].getEntry(iteratedEnum));
+			int parameter = 1;
+			for (TableEntry iteratedEntry : passedTableEntries) {
+				for (String iteratedValue : iteratedEntry.getEntries()) {
+					statement.setString(parameter++, iteratedValue);
 				}
 			}
 			return this.executeCommand(statement);
@@ -95,20 +334,103 @@ public class SQLInterface {
 		return null;
 	}
 	
+	/**
+	 * Inserts the passed rows into this instance's table with a single multi-row command, i.e. as one chunk of a bulk load.
+	 * <p>
+	 * Transmits a command equivalent to {@code INSERT INTO [table] VALUES (TableEntry 1), (TableEntry 2), ...}. Statements are prepared once
+	 * per number of rows and values, so equally sized chunks share one. Unless auto-commit has been disabled on the connection, each chunk
+	 * commits on its own. Values are taken to be in column order, so that those of compressible columns are compressed as per
+	 * {@link #setTextCodec(TextCodec)}.
+	 *
+	 * @param passedRows - The rows to insert, each holding the same number of values
+	 * @return The number of rows inserted, or {@link Statement#EXECUTE_FAILED} if the command failed.
+	 * @throws IllegalArgumentException If the rows do not all hold the same number of values.
+	 */
+	public synchronized int insertRows(List<TableEntry> passedRows) {
+		if (passedRows.isEmpty()) {
+			return 0;
+		}
+		TableEntry[] rows = passedRows.toArray(new TableEntry[passedRows.size()]);
+		int width = getWidth(rows);
+		String command = String.format(SYNTAX_INSERT, this.TABLE_NAME, buildForEach(MAPPER_INSERT, rows)) + ";";
+		try {
+			PreparedStatement statement = this.STATEMENT_CACHE.obtain(String.format(OPERATION_INSERT_ROWS, rows.length, width), command);
+			EnumEntry[] columns = EnumEntry.values();
+			int parameter = 1;
+			for (TableEntry iteratedRow : rows) {
+				String[] values = iteratedRow.getEntries();
+				for (int iterator = 0; iterator < values.length; iterator++) {
+					if (iterator < columns.length) {
+						this.bind(statement, parameter++, columns[iterator], values[iterator]);
+					}
+					else {
+						statement.setString(parameter++, values[iterator]);
+					}
+				}
+			}
+			return statement.executeUpdate();
+		}
+		catch (SQLException passedException) {
+			System.out.println(String.format(EXCEPTION_STRING, String.format(SYNTAX_INSERT, this.TABLE_NAME, String.format("(%d rows)", rows.length))));
+			passedException.printStackTrace();
+		}
+		return Statement.EXECUTE_FAILED;
+	}
+
+	/**
+	 * Inserts or updates the passed rows of this instance's table with a single multi-row upsert, i.e. as one chunk of a bulk load that may
+	 * be repeated without failing on rows already loaded.
+	 * <p>
+	 * The values of each row are written, in order, to the columns whose {@link EnumEntry#getIndex()} matches their position; the first
+	 * must therefore be the page ID. Rows whose page ID already exists have their other columns replaced. The same page ID should not
+	 * appear twice in one call (see {@link SQLDialect#upsert(String, EnumEntry[], int)}). Statements are cached as per {@link #insertRows(List)}.
+	 *
+	 * @param passedRows - The rows to write, each holding the same number of values
+	 * @return The update count reported by the database, which for some databases counts an updated row twice, or {@link Statement#EXECUTE_FAILED} if the command failed.
+	 * @throws IllegalArgumentException If the rows do not all hold the same number of values, or hold more values than there are columns.
+	 */
+	public synchronized int upsertRows(List<TableEntry> passedRows) {
+		if (passedRows.isEmpty()) {
+			return 0;
+		}
+		TableEntry[] rows = passedRows.toArray(new TableEntry[passedRows.size()]);
+		int width = getWidth(rows);
+		if (width > EnumEntry.values().length) {
+			throw new IllegalArgumentException("Rows to upsert may not hold more values than the table has columns");
+		}
+		EnumEntry[] columns = Arrays.copyOf(EnumEntry.values(), width);
+		String command = this.DIALECT.upsert(this.TABLE_NAME, columns, rows.length) + ";";
+		try {
+			PreparedStatement statement = this.STATEMENT_CACHE.obtain(String.format(OPERATION_UPSERT_ROWS, rows.length, width), command);
+			int parameter = 1;
+			for (TableEntry iteratedRow : rows) {
+				for (EnumEntry iteratedColumn : columns) {
+					this.bind(statement, parameter++, iteratedColumn, iteratedRow.getEntry(iteratedColumn));
+				}
+			}
+			return statement.executeUpdate();
+		}
+		catch (SQLException passedException) {
+			System.out.println(String.format(EXCEPTION_STRING, String.format(OPERATION_UPSERT_ROWS, rows.length, width)));
+			passedException.printStackTrace();
+		}
+		return Statement.EXECUTE_FAILED;
+	}
+
 	/**
 	 * Inserts the passed value into the {@link EnumEntry} column in the {@link SQLInterface} instance's table.
 	 * <p>
-	 * Transmits a command equivalent to {@code INSERT INTO [table] VALUES (passedEntry = passedKey)}
+	 * Transmits a command equivalent to {@code INSERT INTO [table] ([passedEntry]) VALUES ([passedKey])}
 	 *
 	 * @param passedKey - The data to insert into the table
 	 * @param passedEntry - The column to use for insertion (Should be the table's primary key!)
 	 * @return The {@link ResultSet} from the command's execution.
 	 */
-	public ResultSet insertRaw(String passedKey, EnumEntry passedEntry) {
-		String command = String.format(SYNTAX_INSERT, this.TABLE_NAME, String.format("(%s = ?)", passedEntry.getEntryName())) + ";";
+	public synchronized ResultSet insertRaw(String passedKey, EnumEntry passedEntry) {
+		String command = String.format(SYNTAX_INSERT_COLUMN, this.TABLE_NAME, passedEntry.getEntryName()) + ";";
 		try {
-			PreparedStatement statement = this.obtain(command);
-			statement.setString(0, passedKey);
+			PreparedStatement statement = this.STATEMENT_CACHE.obtain(StatementCache.key(OPERATION_INSERT, passedEntry), command);
+			statement.setString(1, passedKey);
 			return this.executeCommand(statement);
 		}
 		catch (SQLException passedException) {
@@ -130,9 +452,11 @@ public class SQLInterface {
 		String command = String.format(SYNTAX_UPDATE, this.TABLE_NAME, buildForEach(MAPPER_UPDATE, new TableEntry[] { passedTableEntry })) + ";";
 		try {
 			PreparedStatement statement = this.obtain(command);
-			for (int iterator = 0; iterator < EnumEntry.values().length; iterator++) {
-				statement.setString(iterator, passedTableEntry.getEntry(iterator));
+			EnumEntry[] columns = EnumEntry.values();
+			for (int iterator = 0; iterator < columns.length; iterator++) {
+				this.bind(statement, iterator + 1, columns[iterator], passedTableEntry.getEntry(columns[iterator]));
 			}
+			statement.setString(columns.length + 1, passedTableEntry.getEntry(EnumEntry.PAGE_ID));
 			return this.executeCommand(statement);
 		}
 		catch (SQLException passedException) {
@@ -165,13 +489,12 @@ public class SQLInterface {
 	 * @param passedEntry  - The column to set within the SQL database
 	 * @return The {@link ResultSet} from the command's execution.
 	 */
-	public ResultSet updateRaw(String passedEntryValue, String passedKey, EnumEntry passedEntry) {
+	public synchronized ResultSet updateRaw(String passedEntryValue, String passedKey, EnumEntry passedEntry) {
 		// Command: UPDATE (tablename) SET (column = value) WHERE (pageid = pageid);
-		String command = String.format(SYNTAX_UPDATE, this.TABLE_NAME, String.format("? = ? WHERE %s = ?", EnumEntry.PAGE_ID.getEntryName())) + ";";
+		String command = String.format(SYNTAX_UPDATE_COLUMN, this.TABLE_NAME, passedEntry.getEntryName(), EnumEntry.PAGE_ID.getEntryName()) + ";";
 		try {
-			PreparedStatement statement = this.obtain(command);
-			statement.setString(0, passedEntry.getEntryName());
-			statement.setString(1, passedEntryValue);
+			PreparedStatement statement = this.STATEMENT_CACHE.obtain(StatementCache.key(OPERATION_UPDATE, passedEntry), command);
+			this.bind(statement, 1, passedEntry, passedEntryValue);
 			statement.setString(2, passedKey);
 			return this.executeCommand(statement);
 		}
@@ -182,6 +505,157 @@ public class SQLInterface {
 		return null;
 	}
 
+	/**
+	 * Queues an insertion of the passed value into the {@link EnumEntry} column, to be sent with the next {@link #executeBatch()}.
+	 * <p>
+	 * Queues a command equivalent to {@code INSERT INTO [table] ([passedEntry]) VALUES ([passedKey])}. If queueing this command causes the
+	 * configured row count or byte budget to be exceeded, all queued commands are sent immediately; see {@link #setBatchLimits(int, long)}.
+	 *
+	 * @param passedKey - The data to insert into the table
+	 * @param passedEntry - The column to use for insertion (Should be the table's primary key!)
+	 */
+	@Override
+	public synchronized void batchInsertRaw(String passedKey, EnumEntry passedEntry) {
+		String command = String.format(SYNTAX_INSERT_COLUMN, this.TABLE_NAME, passedEntry.getEntryName()) + ";";
+		this.queueBatch(StatementCache.key(OPERATION_BATCH_INSERT, passedEntry), command, new EnumEntry[] { passedEntry }, passedKey);
+	}
+
+	/**
+	 * Queues an update of the {@link EnumEntry} column for the row keyed by the passed key, to be sent with the next {@link #executeBatch()}.
+	 * <p>
+	 * Queues a command equivalent to {@code UPDATE [table] SET [passedEntry] = [passedEntryValue] WHERE [pageid] = [passedKey]}. If queueing this
+	 * command causes the configured row count or byte budget to be exceeded, all queued commands are sent immediately; see {@link #setBatchLimits(int, long)}.
+	 *
+	 * @param passedEntryValue - The value to set
+	 * @param passedKey - The key to use
+	 * @param passedEntry - The column to set within the SQL database
+	 */
+	@Override
+	public synchronized void batchUpdateRaw(String passedEntryValue, String passedKey, EnumEntry passedEntry) {
+		String command = String.format(SYNTAX_UPDATE_COLUMN, this.TABLE_NAME, passedEntry.getEntryName(), EnumEntry.PAGE_ID.getEntryName()) + ";";
+		this.queueBatch(StatementCache.key(OPERATION_BATCH_UPDATE, passedEntry), command, new EnumEntry[] { passedEntry, EnumEntry.PAGE_ID }, passedEntryValue, passedKey);
+	}
+
+	/**
+	 * Queues an update of the passed columns for the row keyed by the passed {@link TableEntry}'s page ID, to be sent with the next {@link #executeBatch()}.
+	 * <p>
+	 * Queues a single command equivalent to {@code UPDATE [table] SET [column1] = [value1], [column2] = [value2], ... WHERE [pageid] = [TableEntry pageID]}.
+	 * One statement is prepared per distinct set of columns. Limits apply as per {@link #batchUpdateRaw(String, String, EnumEntry)}.
+	 *
+	 * @param passedTableEntry - The {@link TableEntry} holding the page ID and the values to set
+	 * @param passedEntries - The columns to set within the SQL database
+	 * @throws IllegalArgumentException If no columns are passed.
+	 */
+	@Override
+	public synchronized void batchUpdate(TableEntry passedTableEntry, EnumEntry... passedEntries) {
+		if (passedEntries.length == 0) {
+			throw new IllegalArgumentException("At least one column must be updated");
+		}
+		String command = String.format(SYNTAX_UPDATE, this.TABLE_NAME, buildForEach(MAPPER_ASSIGNMENT, passedEntries)) + String.format(" WHERE %s = ?;", EnumEntry.PAGE_ID.getEntryName());
+		String[] values = new String[passedEntries.length + 1];
+		for (int iterator = 0; iterator < passedEntries.length; iterator++) {
+			values[iterator] = passedTableEntry.getEntry(passedEntries[iterator]);
+		}
+		values[passedEntries.length] = passedTableEntry.getEntry(EnumEntry.PAGE_ID);
+		EnumEntry[] columns = Arrays.copyOf(passedEntries, passedEntries.length + 1);
+		columns[passedEntries.length] = EnumEntry.PAGE_ID;
+		this.queueBatch(StatementCache.key(OPERATION_BATCH_UPDATE, passedEntries), command, columns, values);
+	}
+
+	/**
+	 * Queues an upsert of the passed columns for the row keyed by the passed {@link TableEntry}'s page ID, to be sent with the next {@link #executeBatch()}.
+	 * <p>
+	 * Queues a single command, in this instance's {@link SQLDialect}, that inserts the row with the page ID and the passed columns if it does not
+	 * exist, and otherwise sets only the passed columns. With no columns passed, only a missing row is inserted. One statement is prepared per
+	 * distinct set of columns. Limits apply as per {@link #batchUpdateRaw(String, String, EnumEntry)}.
+	 *
+	 * @param passedTableEntry - The {@link TableEntry} holding the page ID and the values to set
+	 * @param passedEntries - The columns to set within the SQL database, besides the page ID
+	 */
+	@Override
+	public synchronized void batchUpsert(TableEntry passedTableEntry, EnumEntry... passedEntries) {
+		EnumEntry[] columns = withPageID(passedEntries);
+		String command = this.DIALECT.upsert(this.TABLE_NAME, columns, 1) + ";";
+		String[] values = new String[columns.length];
+		for (int iterator = 0; iterator < columns.length; iterator++) {
+			values[iterator] = passedTableEntry.getEntry(columns[iterator]);
+		}
+		this.queueBatch(StatementCache.key(OPERATION_BATCH_UPSERT, columns), command, columns, values);
+	}
+
+	/**
+	 * Inserts or updates the rows keyed by the page IDs of the passed {@link TableEntry} instances, writing only the columns each holds a value for.
+	 * <p>
+	 * Each entry is queued as per {@link #batchUpsert(TableEntry, EnumEntry...)}, with its non-null columns, and all queued commands are then
+	 * sent as per {@link #executeBatch()}.
+	 *
+	 * @param passedTableEntries - The {@link TableEntry} instances to write
+	 * @return The update counts of every command queued since the previous call to {@link #executeBatch()}, including these.
+	 * @throws IllegalArgumentException If an entry has no page ID.
+	 */
+	public synchronized int[] upsert(TableEntry... passedTableEntries) {
+		for (TableEntry iteratedEntry : passedTableEntries) {
+			if (iteratedEntry.getEntry(EnumEntry.PAGE_ID) == null) {
+				throw new IllegalArgumentException("Every row to upsert must have a page ID");
+			}
+			List<EnumEntry> columns = new ArrayList<EnumEntry>();
+			for (EnumEntry iteratedColumn : EnumEntry.values()) {
+				if ((iteratedColumn != EnumEntry.PAGE_ID) && (iteratedEntry.getEntry(iteratedColumn) != null)) {
+					columns.add(iteratedColumn);
+				}
+			}
+			this.batchUpsert(iteratedEntry, columns.toArray(new EnumEntry[columns.size()]));
+		}
+		return this.executeBatch();
+	}
+
+	/**
+	 * Sends all queued batch commands to the database, and returns the results of every command queued since the previous call to this method.
+	 * <p>
+	 * Commands are grouped into one JDBC batch per distinct statement, and statements are sent in the order in which each was first queued,
+	 * so that insertions queued before updates are applied first. Commands sharing a statement are applied in the order they were queued.
+	 * Commands to the same page ID are always applied in the order they were queued: queueing a command for a page that already has one
+	 * pending under a different statement first sends everything queued so far.
+	 *
+	 * @return The update counts of each queued command, in the order they were queued. A command that failed is reported as {@link Statement#EXECUTE_FAILED}.
+	 */
+	@Override
+	public synchronized int[] executeBatch() {
+		this.flushBatches();
+		int[] results = Arrays.copyOf(this.BATCH_RESULTS, this.BATCH_RESULT_COUNT);
+		this.BATCH_RESULT_COUNT = 0;
+		return results;
+	}
+
+	/**
+	 * Returns the page IDs of the batch commands that failed since the previous call to this method, and forgets them.
+	 * <p>
+	 * Commands are only known to have failed once they have been sent, so call this after {@link #executeBatch()}.
+	 *
+	 * @return The page IDs of the rows whose writes failed.
+	 */
+	@Override
+	public synchronized Set<String> takeFailedPages() {
+		Set<String> failedPages = this.FAILED_PAGES;
+		this.FAILED_PAGES = new HashSet<String>();
+		return failedPages;
+	}
+
+	/**
+	 * Sets the limits at which queued batch commands are sent to the database without waiting for a call to {@link #executeBatch()}.
+	 *
+	 * @param passedMaxRows - The maximum number of commands to queue
+	 * @param passedMaxBytes - The approximate maximum size, in bytes, of all values queued
+	 * @throws IllegalArgumentException If either limit is less than or equal to zero.
+	 */
+	public synchronized void setBatchLimits(int passedMaxRows, long passedMaxBytes) {
+		if ((passedMaxRows <= 0) || (passedMaxBytes <= 0)) {
+			throw new IllegalArgumentException("Batch limits must be greater than zero");
+		}
+		this.BATCH_MAX_ROWS = passedMaxRows;
+		this.BATCH_MAX_BYTES = passedMaxBytes;
+	}
+
 	/* Internal Methods */
 
 	private PreparedStatement obtain(String passedCommand) {
@@ -196,9 +670,111 @@ public class SQLInterface {
 		return statement;
 	}
 
+	private void queueBatch(String passedKey, String passedCommand, EnumEntry[] passedColumns, String... passedValues) {
+		String pageID = getPageID(passedColumns, passedValues);
+		PendingBatch pageBatch = (pageID != null) ? this.BATCH_PAGES.get(pageID) : null;
+		if ((pageBatch != null) && (pageBatch != this.PENDING_BATCHES.get(passedKey))) {
+			// Statements are sent one after another, so this command could otherwise overtake the page's earlier one
+			this.flushBatches();
+		}
+		PendingBatch batch = this.PENDING_BATCHES.get(passedKey);
+		try {
+			if (batch == null) {
+				batch = new PendingBatch(this.STATEMENT_CACHE.obtain(passedKey, passedCommand), passedCommand);
+				this.STATEMENT_CACHE.pin(passedKey);
+				this.PENDING_BATCHES.put(passedKey, batch);
+			}
+			for (int iterator = 0; iterator < passedValues.length; iterator++) {
+				this.BATCH_BYTES += this.bind(batch.STATEMENT, iterator + 1, passedColumns[iterator], passedValues[iterator]);
+			}
+			batch.STATEMENT.addBatch();
+		}
+		catch (SQLException passedException) {
+			System.out.println(String.format(EXCEPTION_STRING, passedCommand));
+			passedException.printStackTrace();
+			this.BATCH_ORDER.add(null); // Reported as failed when the batch is flushed
+			this.BATCH_ORDER_PAGES.add(pageID);
+			return;
+		}
+		batch.COUNT++;
+		this.BATCH_ORDER.add(batch);
+		this.BATCH_ORDER_PAGES.add(pageID);
+		if (pageID != null) {
+			this.BATCH_PAGES.put(pageID, batch);
+		}
+		this.BATCH_ROWS++;
+		if ((this.BATCH_ROWS >= this.BATCH_MAX_ROWS) || (this.BATCH_BYTES >= this.BATCH_MAX_BYTES)) {
+			this.flushBatches();
+		}
+	}
+
+	private long bind(PreparedStatement passedStatement, int passedIndex, EnumEntry passedEntry, String passedValue) throws SQLException {
+		TextCodec codec = this.TEXT_CODEC;
+		if ((codec == null) || !passedEntry.isCompressible() || (passedValue == null)) {
+			passedStatement.setString(passedIndex, passedValue);
+			return estimateSize(passedValue);
+		}
+		byte[] encoded = codec.encode(passedValue);
+		passedStatement.setBytes(passedIndex, encoded);
+		return encoded.length;
+	}
+
+	private void flushBatches() {
+		Map<PendingBatch, int[]> statementResults = new HashMap<PendingBatch, int[]>();
+		for (Map.Entry<String, PendingBatch> iteratedEntry : this.PENDING_BATCHES.entrySet()) {
+			PendingBatch batch = iteratedEntry.getValue();
+			int[] results;
+			try {
+				results = batch.STATEMENT.executeBatch();
+			}
+			catch (BatchUpdateException passedException) {
+				System.out.println(String.format(EXCEPTION_STRING, batch.COMMAND));
+				passedException.printStackTrace();
+				results = passedException.getUpdateCounts();
+			}
+			catch (SQLException passedException) {
+				System.out.println(String.format(EXCEPTION_STRING, batch.COMMAND));
+				passedException.printStackTrace();
+				results = new int[0];
+			}
+			// Drivers that stop at the first failure report fewer counts than commands queued
+			if (results.length < batch.COUNT) {
+				int reported = results.length;
+				results = Arrays.copyOf(results, batch.COUNT);
+				Arrays.fill(results, reported, batch.COUNT, Statement.EXECUTE_FAILED);
+			}
+			statementResults.put(batch, results);
+			this.STATEMENT_CACHE.unpin(iteratedEntry.getKey());
+		}
+		// Report results in the order commands were queued, rather than grouped per statement
+		for (int iterator = 0; iterator < this.BATCH_ORDER.size(); iterator++) {
+			PendingBatch batch = this.BATCH_ORDER.get(iterator);
+			int result = (batch != null) ? statementResults.get(batch)[batch.REPORTED++] : Statement.EXECUTE_FAILED;
+			String pageID = this.BATCH_ORDER_PAGES.get(iterator);
+			if ((result == Statement.EXECUTE_FAILED) && (pageID != null)) {
+				this.FAILED_PAGES.add(pageID);
+			}
+			this.appendResult(result);
+		}
+		this.PENDING_BATCHES.clear();
+		this.BATCH_ORDER.clear();
+		this.BATCH_ORDER_PAGES.clear();
+		this.BATCH_PAGES.clear();
+		this.BATCH_ROWS = 0;
+		this.BATCH_BYTES = 0;
+	}
+
+	private void appendResult(int passedResult) {
+		if (this.BATCH_RESULT_COUNT == this.BATCH_RESULTS.length) {
+			this.BATCH_RESULTS = Arrays.copyOf(this.BATCH_RESULTS, this.BATCH_RESULTS.length * 2);
+		}
+		this.BATCH_RESULTS[this.BATCH_RESULT_COUNT++] = passedResult;
+	}
+
 	private ResultSet executeCommand(PreparedStatement passedStatement) {
 		try {
-			return passedStatement.executeQuery();
+			// execute() rather than executeQuery(), as most drivers refuse data manipulation through the latter
+			return passedStatement.execute() ? passedStatement.getResultSet() : null;
 		}
 		catch (SQLException passedException) {
 			passedException.printStackTrace();
@@ -222,6 +798,42 @@ public class SQLInterface {
 		}
 	}
 
+	private static String getPageID(EnumEntry[] passedColumns, String[] passedValues) {
+		for (int iterator = 0; iterator < passedColumns.length; iterator++) {
+			if (passedColumns[iterator] == EnumEntry.PAGE_ID) {
+				return passedValues[iterator];
+			}
+		}
+		return null;
+	}
+
+	private static int getWidth(TableEntry[] passedRows) {
+		int width = passedRows[0].getEntries().length;
+		for (TableEntry iteratedRow : passedRows) {
+			if (iteratedRow.getEntries().length != width) {
+				throw new IllegalArgumentException("Every row of a multi-row command must hold the same number of values");
+			}
+		}
+		return width;
+	}
+
+	private static EnumEntry[] withPageID(EnumEntry[] passedEntries) {
+		// The page ID leads, once, so that equal sets of columns share a statement
+		List<EnumEntry> columns = new ArrayList<EnumEntry>(passedEntries.length + 1);
+		columns.add(EnumEntry.PAGE_ID);
+		for (EnumEntry iteratedEntry : passedEntries) {
+			if (!columns.contains(iteratedEntry)) {
+				columns.add(iteratedEntry);
+			}
+		}
+		return columns.toArray(new EnumEntry[columns.size()]);
+	}
+
+	private static long estimateSize(String passedValue) {
+		// Approximation; exact encoded size depends on the driver and character set
+		return (passedValue == null) ? 0 : passedValue.length();
+	}
+
 	private static <T> String buildForEach(Function<T, String> passedMapper, T[] passedObjects) {
 		if (passedObjects.length > 1) {
 			StringBuilder builder = new StringBuilder();
@@ -235,4 +847,19 @@ public class SQLInterface {
 		}
 		return passedMapper.apply(passedObjects[0]);
 	}
+
+	/* Internal Classes */
+
+	private static class PendingBatch {
+
+		private final PreparedStatement STATEMENT;
+		private final String COMMAND;
+		private int COUNT = 0;
+		private int REPORTED = 0;
+
+		private PendingBatch(PreparedStatement passedStatement, String passedCommand) {
+			this.STATEMENT = passedStatement;
+			this.COMMAND = passedCommand;
+		}
+	}
 }
@@ -0,0 +1,269 @@
+package sqlinterface;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * {@link BatchWriter} that spreads writes over a pool of database connections, each drained by its own writer thread.
+ * <p>
+ * Every connection is held by its own {@link SQLInterface} and fed by a bounded queue of write operations. Writes are partitioned by page ID,
+ * so all writes to the same row pass through the same queue and connection and therefore stay in order, while writes to different rows
+ * proceed in parallel. When a queue is full, the thread submitting to it blocks until the writer catches up.
+ */
+public class SQLWriterPool implements BatchWriter, AutoCloseable {
+
+	private static final String THREAD_NAME = "SQLWriterPool-%d";
+	private static final String EXCEPTION_CLOSED = "May not submit writes to a closed SQLWriterPool";
+	private static final String EXCEPTION_INTERRUPTED = "Interrupted while queueing a write";
+	private static final Consumer<SQLInterface> STOP = (sqlInterface) -> {
+	};
+
+	private final List<Partition> PARTITIONS = new ArrayList<Partition>();
+	private final Set<String> FAILED_PAGES = ConcurrentHashMap.newKeySet();
+	private volatile boolean CLOSED = false;
+
+	/**
+	 * Constructs a new {@link SQLWriterPool} opening the passed number of connections using the passed parameters.
+	 *
+	 * @param passedDatabaseURL - The URL of the database to access
+	 * @param passedTableName - The name of the table that this {@link SQLWriterPool} will alter
+	 * @param passedUsername - The username to use for accessing the SQL database
+	 * @param passedPassword - The password that will be used for accessing the SQL database
+	 * @param passedWriters - The number of connections, and writer threads, to use
+	 * @param passedQueueCapacity - The number of writes that may wait in each writer's queue
+	 * @throws SQLException If an exception occurs while setting up any of the connections to the SQL database
+	 * @throws IllegalArgumentException If {@code passedWriters} or {@code passedQueueCapacity} is less than or equal to zero.
+	 */
+	public SQLWriterPool(String passedDatabaseURL, String passedTableName, String passedUsername, String passedPassword, int passedWriters, int passedQueueCapacity) throws SQLException {
+		if ((passedWriters <= 0) || (passedQueueCapacity <= 0)) {
+			throw new IllegalArgumentException("Writer count and queue capacity must be greater than zero");
+		}
+		try {
+			for (int iterator = 0; iterator < passedWriters; iterator++) {
+				SQLInterface sqlInterface = new SQLInterface(passedDatabaseURL, passedTableName, passedUsername, passedPassword);
+				this.PARTITIONS.add(new Partition(sqlInterface, passedQueueCapacity, String.format(THREAD_NAME, iterator)));
+			}
+		}
+		catch (SQLException passedException) {
+			this.close();
+			throw passedException;
+		}
+	}
+
+	/**
+	 * Queues the passed operation to run on the connection responsible for the passed page ID.
+	 * <p>
+	 * Operations submitted for the same page ID run in the order they were submitted, on a single writer thread. An operation that throws
+	 * marks its page ID as failed; see {@link #takeFailedPages()}.
+	 *
+	 * @param passedKey - The page ID of the row the operation writes to
+	 * @param passedOperation - The operation to run against that connection's {@link SQLInterface}
+	 * @throws IllegalStateException If this {@link SQLWriterPool} has been closed, or the calling thread is interrupted while waiting for queue space.
+	 */
+	public void submit(String passedKey, Consumer<SQLInterface> passedOperation) {
+		this.enqueue(this.PARTITIONS.get(Math.floorMod(passedKey.hashCode(), this.PARTITIONS.size())), (sqlInterface) -> {
+			try {
+				passedOperation.accept(sqlInterface);
+			}
+			catch (RuntimeException passedException) {
+				// Reported by takeFailedPages(), as the writer thread only prints it
+				this.FAILED_PAGES.add(passedKey);
+				throw passedException;
+			}
+		});
+	}
+
+	/**
+	 * Sets the {@link TextCodec} each writer uses to compress values written to compressible columns; see {@link SQLInterface#setTextCodec(TextCodec)}.
+	 *
+	 * @param passedCodec - The {@link TextCodec} to use, or {@code null} to store text uncompressed
+	 */
+	public void setTextCodec(TextCodec passedCodec) {
+		for (Partition iteratedPartition : this.PARTITIONS) {
+			iteratedPartition.SQL_INTERFACE.setTextCodec(passedCodec);
+		}
+	}
+
+	@Override
+	public void batchInsertRaw(String passedKey, EnumEntry passedEntry) {
+		this.submit(passedKey, (sqlInterface) -> sqlInterface.batchInsertRaw(passedKey, passedEntry));
+	}
+
+	@Override
+	public void batchUpdateRaw(String passedEntryValue, String passedKey, EnumEntry passedEntry) {
+		this.submit(passedKey, (sqlInterface) -> sqlInterface.batchUpdateRaw(passedEntryValue, passedKey, passedEntry));
+	}
+
+	@Override
+	public void batchUpdate(TableEntry passedTableEntry, EnumEntry... passedEntries) {
+		this.submit(passedTableEntry.getEntry(EnumEntry.PAGE_ID), (sqlInterface) -> sqlInterface.batchUpdate(passedTableEntry, passedEntries));
+	}
+
+	@Override
+	public void batchUpsert(TableEntry passedTableEntry, EnumEntry... passedEntries) {
+		this.submit(passedTableEntry.getEntry(EnumEntry.PAGE_ID), (sqlInterface) -> sqlInterface.batchUpsert(passedTableEntry, passedEntries));
+	}
+
+	/**
+	 * Waits for every writer to apply the writes queued before this call, and to send them to the database.
+	 *
+	 * @return The update counts of the writes sent, grouped by writer; within each writer, in the order they were queued.
+	 */
+	@Override
+	public int[] executeBatch() {
+		List<CompletableFuture<int[]>> futures = new ArrayList<CompletableFuture<int[]>>();
+		for (Partition iteratedPartition : this.PARTITIONS) {
+			CompletableFuture<int[]> future = new CompletableFuture<int[]>();
+			this.enqueue(iteratedPartition, (sqlInterface) -> {
+				try {
+					future.complete(sqlInterface.executeBatch());
+				}
+				catch (RuntimeException passedException) {
+					future.completeExceptionally(passedException);
+				}
+			});
+			futures.add(future);
+		}
+		int[] results = new int[0];
+		for (CompletableFuture<int[]> iteratedFuture : futures) {
+			int[] partitionResults = iteratedFuture.join();
+			int offset = results.length;
+			results = Arrays.copyOf(results, offset + partitionResults.length);
+			System.arraycopy(partitionResults, 0, results, offset, partitionResults.length);
+		}
+		return results;
+	}
+
+	/**
+	 * Waits for every writer to apply the operations queued before this call, then returns the page IDs of the writes that failed since the
+	 * previous call to this method, on any writer, and forgets them.
+	 *
+	 * @return The page IDs of the rows whose writes failed, or whose operations threw.
+	 */
+	@Override
+	public Set<String> takeFailedPages() {
+		List<CompletableFuture<Set<String>>> futures = new ArrayList<CompletableFuture<Set<String>>>();
+		for (Partition iteratedPartition : this.PARTITIONS) {
+			CompletableFuture<Set<String>> future = new CompletableFuture<Set<String>>();
+			this.enqueue(iteratedPartition, (sqlInterface) -> future.complete(sqlInterface.takeFailedPages()));
+			futures.add(future);
+		}
+		Set<String> failedPages = new HashSet<String>();
+		for (CompletableFuture<Set<String>> iteratedFuture : futures) {
+			failedPages.addAll(iteratedFuture.join());
+		}
+		// Taken after every writer has caught up, so operations queued before this call have all run
+		for (String iteratedPage : this.FAILED_PAGES) {
+			if (this.FAILED_PAGES.remove(iteratedPage)) {
+				failedPages.add(iteratedPage);
+			}
+		}
+		return failedPages;
+	}
+
+	/**
+	 * Returns the number of writes currently waiting in each writer's queue.
+	 *
+	 * @return An array of queue depths, one per writer.
+	 */
+	public int[] getQueueDepths() {
+		return this.PARTITIONS.stream().mapToInt((partition) -> partition.QUEUE.size()).toArray();
+	}
+
+	/**
+	 * Applies and sends all queued writes, then stops the writer threads and closes every connection.
+	 * <p>
+	 * Writes must not be submitted concurrently with this call.
+	 */
+	@Override
+	public void close() {
+		if (this.CLOSED) {
+			return;
+		}
+		this.CLOSED = true;
+		for (Partition iteratedPartition : this.PARTITIONS) {
+			iteratedPartition.QUEUE.add(STOP); // Queue capacity reserves a slot for this
+		}
+		for (Partition iteratedPartition : this.PARTITIONS) {
+			try {
+				iteratedPartition.THREAD.join();
+			}
+			catch (InterruptedException passedException) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/* Internal Methods */
+
+	private void enqueue(Partition passedPartition, Consumer<SQLInterface> passedOperation) {
+		if (this.CLOSED) {
+			throw new IllegalStateException(EXCEPTION_CLOSED);
+		}
+		try {
+			passedPartition.ACCEPTED.acquire();
+			passedPartition.QUEUE.put(passedOperation);
+		}
+		catch (InterruptedException passedException) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(EXCEPTION_INTERRUPTED, passedException);
+		}
+	}
+
+	/* Internal Classes */
+
+	private static class Partition {
+
+		private final SQLInterface SQL_INTERFACE;
+		private final BlockingQueue<Consumer<SQLInterface>> QUEUE;
+		private final Semaphore ACCEPTED;
+		private final Thread THREAD;
+
+		private Partition(SQLInterface passedInterface, int passedQueueCapacity, String passedThreadName) {
+			this.SQL_INTERFACE = passedInterface;
+			this.QUEUE = new ArrayBlockingQueue<Consumer<SQLInterface>>(passedQueueCapacity + 1);
+			this.ACCEPTED = new Semaphore(passedQueueCapacity);
+			this.THREAD = new Thread(this::drain, passedThreadName);
+			this.THREAD.start();
+		}
+
+		private void drain() {
+			try {
+				while (true) {
+					Consumer<SQLInterface> operation = this.QUEUE.take();
+					if (operation == STOP) {
+						break;
+					}
+					this.ACCEPTED.release();
+					try {
+						operation.accept(this.SQL_INTERFACE);
+					}
+					catch (RuntimeException passedException) {
+						passedException.printStackTrace();
+					}
+				}
+			}
+			catch (InterruptedException passedException) {
+				Thread.currentThread().interrupt();
+			}
+			finally {
+				try {
+					this.SQL_INTERFACE.close();
+				}
+				catch (SQLException passedException) {
+					passedException.printStackTrace();
+				}
+			}
+		}
+	}
+}
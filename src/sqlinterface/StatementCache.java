@@ -0,0 +1,168 @@
+package sqlinterface;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bounded, least-recently-used cache of {@link PreparedStatement} instances on a single {@link Connection}.
+ * <p>
+ * Statements are keyed by the operation they perform and the columns they touch (see {@link #key(String, EnumEntry...)}), so that each
+ * statement shape is only prepared once. Statements evicted from the cache are closed. A statement may be pinned while it holds state
+ * that must not be lost, such as a pending JDBC batch; pinned statements are never evicted, so the cache may temporarily exceed its capacity.
+ */
+public class StatementCache implements AutoCloseable {
+
+	private final Connection CONNECTION;
+	private final int CAPACITY;
+	private final Map<String, PreparedStatement> STATEMENTS;
+	private final Set<String> PINNED = new HashSet<String>();
+
+	private long HITS = 0;
+	private long MISSES = 0;
+	private long EVICTIONS = 0;
+
+	/**
+	 * Creates a new {@link StatementCache} preparing statements on the passed {@link Connection}.
+	 *
+	 * @param passedConnection - The {@link Connection} to prepare statements on
+	 * @param passedCapacity - The maximum number of statements to keep open
+	 * @throws IllegalArgumentException If {@code passedCapacity} is less than or equal to zero.
+	 */
+	public StatementCache(Connection passedConnection, int passedCapacity) {
+		if (passedCapacity <= 0) {
+			throw new IllegalArgumentException("Cache capacity must be greater than zero");
+		}
+		this.CONNECTION = passedConnection;
+		this.CAPACITY = passedCapacity;
+		this.STATEMENTS = new LinkedHashMap<String, PreparedStatement>(16, 0.75F, true);
+	}
+
+	/**
+	 * Returns the cached {@link PreparedStatement} for the passed key, preparing the passed command if none is cached.
+	 *
+	 * @param passedKey - The key of the statement, as returned by {@link #key(String, EnumEntry...)}
+	 * @param passedCommand - The SQL command to prepare if the statement is not cached
+	 * @return A {@link PreparedStatement} for the passed command.
+	 * @throws SQLException If the command could not be prepared
+	 */
+	public synchronized PreparedStatement obtain(String passedKey, String passedCommand) throws SQLException {
+		PreparedStatement statement = this.STATEMENTS.get(passedKey);
+		if ((statement != null) && !statement.isClosed()) {
+			this.HITS++;
+			return statement;
+		}
+		this.MISSES++;
+		statement = this.CONNECTION.prepareStatement(passedCommand);
+		this.STATEMENTS.put(passedKey, statement);
+		this.trim(passedKey);
+		return statement;
+	}
+
+	/**
+	 * Prevents the statement with the passed key from being evicted until {@link #unpin(String)} is called.
+	 *
+	 * @param passedKey - The key of the statement to pin
+	 */
+	public synchronized void pin(String passedKey) {
+		this.PINNED.add(passedKey);
+	}
+
+	/**
+	 * Allows the statement with the passed key to be evicted again, evicting statements as necessary to return to capacity.
+	 *
+	 * @param passedKey - The key of the statement to unpin
+	 */
+	public synchronized void unpin(String passedKey) {
+		this.PINNED.remove(passedKey);
+		this.trim(null);
+	}
+
+	/**
+	 * Returns the number of calls to {@link #obtain(String, String)} that were served from the cache.
+	 *
+	 * @return The number of cache hits.
+	 */
+	public synchronized long getHits() {
+		return this.HITS;
+	}
+
+	/**
+	 * Returns the number of calls to {@link #obtain(String, String)} that required a statement to be prepared.
+	 *
+	 * @return The number of cache misses.
+	 */
+	public synchronized long getMisses() {
+		return this.MISSES;
+	}
+
+	/**
+	 * Returns the number of statements closed to keep this {@link StatementCache} within its capacity.
+	 *
+	 * @return The number of evictions.
+	 */
+	public synchronized long getEvictions() {
+		return this.EVICTIONS;
+	}
+
+	/**
+	 * Closes every cached statement and empties this {@link StatementCache}.
+	 */
+	@Override
+	public synchronized void close() {
+		for (PreparedStatement iteratedStatement : this.STATEMENTS.values()) {
+			closeQuietly(iteratedStatement);
+		}
+		this.STATEMENTS.clear();
+		this.PINNED.clear();
+	}
+
+	/**
+	 * Returns the cache key for a statement performing the passed operation on the passed columns.
+	 *
+	 * @param passedOperation - A name for the operation performed by the statement (i.e. "UPDATE")
+	 * @param passedEntries - The columns touched by the statement, in parameter order
+	 * @return A suitably formatted key.
+	 */
+	public static String key(String passedOperation, EnumEntry... passedEntries) {
+		StringBuilder builder = new StringBuilder(passedOperation).append('(');
+		for (int iterator = 0; iterator < passedEntries.length; iterator++) {
+			if (iterator > 0) {
+				builder.append(',');
+			}
+			builder.append(passedEntries[iterator].getEntryName());
+		}
+		return builder.append(')').toString();
+	}
+
+	/* Internal Methods */
+
+	private void trim(String passedKeptKey) {
+		Iterator<Map.Entry<String, PreparedStatement>> iterator = this.STATEMENTS.entrySet().iterator();
+		// Access order places the least recently used statements first; the statement about to be returned is kept, even if all others are pinned
+		while ((this.STATEMENTS.size() > this.CAPACITY) && iterator.hasNext()) {
+			Map.Entry<String, PreparedStatement> iteratedEntry = iterator.next();
+			if (!this.PINNED.contains(iteratedEntry.getKey()) && !iteratedEntry.getKey().equals(passedKeptKey)) {
+				closeQuietly(iteratedEntry.getValue());
+				iterator.remove();
+				this.EVICTIONS++;
+			}
+		}
+	}
+
+	/* Logic Methods */
+
+	private static void closeQuietly(PreparedStatement passedStatement) {
+		try {
+			passedStatement.close();
+		}
+		catch (SQLException passedException) {
+			passedException.printStackTrace();
+		}
+	}
+}
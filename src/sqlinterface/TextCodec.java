@@ -0,0 +1,254 @@
+package sqlinterface;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Adler32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Codec compressing article text for storage in a binary column, using Deflate with a preset dictionary.
+ * <p>
+ * Articles are short enough that Deflate alone finds little to reuse within each one; a preset dictionary of phrases common across articles
+ * (i.e. "is a video game developed by") gives it that material up front. A dictionary may be trained from a sample of articles with
+ * {@link #train(Iterable, int)}; otherwise a built-in dictionary of common phrases is used.
+ * <p>
+ * Encoded values start with a two-byte marker, which plain UTF-8 text never does, so {@link #decode(byte[])} reads values stored before
+ * compression was enabled as they are. Values compressed with the built-in dictionary are read by every {@link TextCodec}, so text stored
+ * before a dictionary was trained stays readable; a value compressed with any other dictionary is detected, and refused.
+ * <p>
+ * A {@link TextCodec} is thread safe.
+ */
+public class TextCodec {
+
+	private static final byte[] MARKER = new byte[] { 0x00, 'Z' };
+	private static final int BUFFER_SIZE = 8192;
+	private static final int TRAINING_SEGMENT_LENGTH = 24;
+	private static final int TRAINING_SEGMENT_STRIDE = 4;
+	private static final int TRAINING_MAX_SEGMENTS = 1 << 20;
+	private static final String STATUS_STRING = "Text codec: %d bytes encoded to %d (%.2fx)";
+	private static final String EXCEPTION_DICTIONARY = "Value was compressed with a different dictionary";
+	private static final String EXCEPTION_CORRUPT = "Value is not valid compressed text";
+
+	private static final String DEFAULT_DICTIONARY = " is a video game developed by and published by for the PlayStation 2, Xbox 360, Nintendo Entertainment System, "
+			+ "Super Nintendo Entertainment System, Game Boy Advance, Nintendo DS, Nintendo Switch, Microsoft Windows, macOS and Linux. It was released in North America, "
+			+ "Europe and Japan. The game received generally positive reviews from critics, according to review aggregator Metacritic. Gameplay The player controls "
+			+ "the player character through a series of levels, in which the player must defeat enemies and bosses. The game features a single-player campaign and a "
+			+ "multiplayer mode. Plot The story takes place in the world of Development The game was announced at the Electronic Entertainment Expo (E3). "
+			+ "Reception The game sold over one million copies worldwide. It is the sequel to the first game in the series. References External links ";
+
+	private static final TextCodec DEFAULT = new TextCodec(DEFAULT_DICTIONARY.getBytes(StandardCharsets.UTF_8));
+
+	private final byte[] DICTIONARY;
+	private final int DICTIONARY_ID;
+	private final ThreadLocal<Deflater> DEFLATERS = ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_COMPRESSION));
+	private final ThreadLocal<Inflater> INFLATERS = ThreadLocal.withInitial(Inflater::new);
+	private final AtomicLong BYTES_IN = new AtomicLong();
+	private final AtomicLong BYTES_OUT = new AtomicLong();
+
+	/**
+	 * Creates a new {@link TextCodec} compressing with the passed preset dictionary.
+	 *
+	 * @param passedDictionary - The preset dictionary, its most useful phrases last
+	 */
+	public TextCodec(byte[] passedDictionary) {
+		this.DICTIONARY = passedDictionary.clone();
+		Adler32 checksum = new Adler32();
+		checksum.update(this.DICTIONARY);
+		this.DICTIONARY_ID = (int) checksum.getValue();
+	}
+
+	/**
+	 * Returns the {@link TextCodec} using the built-in dictionary.
+	 *
+	 * @return The default {@link TextCodec}.
+	 */
+	public static TextCodec getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Creates a new {@link TextCodec} using the dictionary stored at the passed path, as written by {@link #save(Path)}.
+	 *
+	 * @param passedPath - The path of the dictionary file
+	 * @return A new {@link TextCodec}.
+	 * @throws IOException If the dictionary could not be read
+	 */
+	public static TextCodec load(Path passedPath) throws IOException {
+		return new TextCodec(Files.readAllBytes(passedPath));
+	}
+
+	/**
+	 * Stores this {@link TextCodec}'s dictionary at the passed path.
+	 *
+	 * @param passedPath - The path of the dictionary file
+	 * @throws IOException If the dictionary could not be written
+	 */
+	public void save(Path passedPath) throws IOException {
+		Files.write(passedPath, this.DICTIONARY);
+	}
+
+	/**
+	 * Compresses the passed text.
+	 *
+	 * @param passedText - The text to compress
+	 * @return The compressed value, or {@code null} if {@code passedText} is {@code null}.
+	 */
+	public byte[] encode(String passedText) {
+		if (passedText == null) {
+			return null;
+		}
+		byte[] input = passedText.getBytes(StandardCharsets.UTF_8);
+		Deflater deflater = this.DEFLATERS.get();
+		deflater.reset();
+		deflater.setDictionary(this.DICTIONARY);
+		deflater.setInput(input);
+		deflater.finish();
+		ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(64, input.length / 3));
+		output.write(MARKER, 0, MARKER.length);
+		byte[] buffer = new byte[BUFFER_SIZE];
+		while (!deflater.finished()) {
+			output.write(buffer, 0, deflater.deflate(buffer));
+		}
+		this.BYTES_IN.addAndGet(input.length);
+		this.BYTES_OUT.addAndGet(output.size());
+		return output.toByteArray();
+	}
+
+	/**
+	 * Decompresses the passed value. A value without the marker of a compressed value is read as plain UTF-8 text.
+	 *
+	 * @param passedValue - The value to decompress
+	 * @return The text, or {@code null} if {@code passedValue} is {@code null}.
+	 * @throws IllegalArgumentException If the value was compressed with a dictionary other than this codec's or the built-in one, or is corrupt.
+	 */
+	public String decode(byte[] passedValue) {
+		if (passedValue == null) {
+			return null;
+		}
+		if (!isEncoded(passedValue)) {
+			return new String(passedValue, StandardCharsets.UTF_8);
+		}
+		Inflater inflater = this.INFLATERS.get();
+		inflater.reset();
+		inflater.setInput(passedValue, MARKER.length, passedValue.length - MARKER.length);
+		ByteArrayOutputStream output = new ByteArrayOutputStream(passedValue.length * 4);
+		byte[] buffer = new byte[BUFFER_SIZE];
+		try {
+			while (!inflater.finished()) {
+				int inflated = inflater.inflate(buffer);
+				if (inflated > 0) {
+					output.write(buffer, 0, inflated);
+				}
+				else if (inflater.needsDictionary()) {
+					if (inflater.getAdler() == this.DICTIONARY_ID) {
+						inflater.setDictionary(this.DICTIONARY);
+					}
+					else if (inflater.getAdler() == DEFAULT.DICTIONARY_ID) {
+						inflater.setDictionary(DEFAULT.DICTIONARY);
+					}
+					else {
+						throw new IllegalArgumentException(EXCEPTION_DICTIONARY);
+					}
+				}
+				else if (inflater.needsInput()) {
+					throw new IllegalArgumentException(EXCEPTION_CORRUPT);
+				}
+			}
+		}
+		catch (DataFormatException passedException) {
+			throw new IllegalArgumentException(EXCEPTION_CORRUPT, passedException);
+		}
+		return new String(output.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Returns whether the passed value was produced by {@link #encode(String)}.
+	 *
+	 * @param passedValue - The value to check
+	 * @return Whether the value is compressed.
+	 */
+	public static boolean isEncoded(byte[] passedValue) {
+		return (passedValue.length >= MARKER.length) && (passedValue[0] == MARKER[0]) && (passedValue[1] == MARKER[1]);
+	}
+
+	/**
+	 * Returns the total size of the text encoded by this {@link TextCodec}, before compression.
+	 *
+	 * @return The number of bytes of text encoded.
+	 */
+	public long getBytesIn() {
+		return this.BYTES_IN.get();
+	}
+
+	/**
+	 * Returns the total size of the values encoded by this {@link TextCodec}, after compression.
+	 *
+	 * @return The number of bytes produced.
+	 */
+	public long getBytesOut() {
+		return this.BYTES_OUT.get();
+	}
+
+	@Override
+	public String toString() {
+		long bytesOut = this.getBytesOut();
+		return String.format(STATUS_STRING, this.getBytesIn(), bytesOut, (bytesOut > 0) ? ((double) this.getBytesIn() / bytesOut) : 0D);
+	}
+
+	/**
+	 * Trains a {@link TextCodec} on the passed sample of texts.
+	 * <p>
+	 * Each text is cut into overlapping segments, and the segments recurring across the most texts are concatenated into the dictionary,
+	 * the most common last, where Deflate reaches them most cheaply. Segments repeated within a single text are only counted once, as
+	 * Deflate finds those without help.
+	 *
+	 * @param passedSamples - The texts to train on
+	 * @param passedDictionarySize - The size of the dictionary to build, in bytes; Deflate uses at most 32768
+	 * @return A new {@link TextCodec} using the trained dictionary.
+	 */
+	public static TextCodec train(Iterable<String> passedSamples, int passedDictionarySize) {
+		Map<String, Integer> segmentCounts = new HashMap<String, Integer>();
+		for (String iteratedSample : passedSamples) {
+			Map<String, Boolean> seen = new HashMap<String, Boolean>();
+			for (int index = 0; (index + TRAINING_SEGMENT_LENGTH) <= iteratedSample.length(); index += TRAINING_SEGMENT_STRIDE) {
+				String segment = iteratedSample.substring(index, index + TRAINING_SEGMENT_LENGTH);
+				if ((seen.put(segment, Boolean.TRUE) == null) && (segmentCounts.containsKey(segment) || (segmentCounts.size() < TRAINING_MAX_SEGMENTS))) {
+					segmentCounts.merge(segment, 1, Integer::sum);
+				}
+			}
+		}
+		List<Map.Entry<String, Integer>> segments = new ArrayList<Map.Entry<String, Integer>>(segmentCounts.entrySet());
+		segments.removeIf((entry) -> entry.getValue() < 2);
+		segments.sort((first, second) -> Integer.compare(second.getValue(), first.getValue()));
+
+		// Most common first here, then reversed, so that the dictionary ends with them
+		List<byte[]> chosen = new ArrayList<byte[]>();
+		int size = 0;
+		for (Map.Entry<String, Integer> iteratedSegment : segments) {
+			byte[] segmentBytes = iteratedSegment.getKey().getBytes(StandardCharsets.UTF_8);
+			if ((size + segmentBytes.length) > passedDictionarySize) {
+				break;
+			}
+			chosen.add(segmentBytes);
+			size += segmentBytes.length;
+		}
+		if (chosen.isEmpty()) {
+			return DEFAULT;
+		}
+		ByteArrayOutputStream dictionary = new ByteArrayOutputStream(size);
+		for (int iterator = chosen.size() - 1; iterator >= 0; iterator--) {
+			dictionary.write(chosen.get(iterator), 0, chosen.get(iterator).length);
+		}
+		return new TextCodec(dictionary.toByteArray());
+	}
+}
@@ -0,0 +1,184 @@
+package sqlinterface;
+
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Write-behind buffer that coalesces column updates to the same row into a single multi-column upsert.
+ * <p>
+ * Values are held per page ID until the page is marked complete with {@link #complete(String)}, at which point all of its changed
+ * columns are queued on the {@link BatchWriter} as one batched command. If the values held exceed the configured byte budget, the pages
+ * that have been buffered the longest are written early (and may therefore take more than one command in total).
+ * <p>
+ * Writes are queued with {@link BatchWriter#batchUpsert(TableEntry, EnumEntry...)}, so a page's row is created if it is not in the table yet;
+ * {@link #flush()} writes every buffered page and sends the queued commands. Once a flush has sent them, each page marked complete since the
+ * last flush is passed to the listener set with {@link #setWrittenListener(Consumer)}, unless any write to it has failed.
+ */
+public class WriteBehindBuffer {
+
+	private static final long DEFAULT_MAX_BYTES = 64L * 1024L * 1024L;
+	private static final long ROW_OVERHEAD_BYTES = 64L;
+
+	private final BatchWriter WRITER;
+	private final long MAX_BYTES;
+	private final Map<String, EnumMap<EnumEntry, String>> ROWS = new LinkedHashMap<String, EnumMap<EnumEntry, String>>();
+	private final Set<String> COMPLETED = new LinkedHashSet<String>();
+	private final Set<String> FAILED_PAGES = new HashSet<String>();
+	private Consumer<String> WRITTEN_LISTENER = null;
+	private long BYTES = 0;
+
+	/**
+	 * Creates a new {@link WriteBehindBuffer} writing to the passed {@link BatchWriter}, with the default byte budget.
+	 *
+	 * @param passedWriter - The {@link BatchWriter} to write to
+	 */
+	public WriteBehindBuffer(BatchWriter passedWriter) {
+		this(passedWriter, DEFAULT_MAX_BYTES);
+	}
+
+	/**
+	 * Creates a new {@link WriteBehindBuffer} writing to the passed {@link BatchWriter}.
+	 *
+	 * @param passedWriter - The {@link BatchWriter} to write to
+	 * @param passedMaxBytes - The approximate size, in bytes, of buffered values above which pages are written early
+	 * @throws IllegalArgumentException If {@code passedMaxBytes} is less than or equal to zero.
+	 */
+	public WriteBehindBuffer(BatchWriter passedWriter, long passedMaxBytes) {
+		if (passedMaxBytes <= 0) {
+			throw new IllegalArgumentException("Byte budget must be greater than zero");
+		}
+		this.WRITER = passedWriter;
+		this.MAX_BYTES = passedMaxBytes;
+	}
+
+	/**
+	 * Sets the listener told of each page marked complete, once the flush sending its last writes has succeeded, i.e. to record that the
+	 * database holds it. Pages with any failed write are left out.
+	 *
+	 * @param passedListener - The {@link Consumer} receiving the page ID of each written page, or {@code null} for none
+	 */
+	public synchronized void setWrittenListener(Consumer<String> passedListener) {
+		this.WRITTEN_LISTENER = passedListener;
+	}
+
+	/**
+	 * Buffers the passed value for the passed column of the row keyed by the passed page ID, replacing any value already buffered for that column.
+	 *
+	 * @param passedKey - The page ID of the row to update
+	 * @param passedEntry - The column to set
+	 * @param passedValue - The value to set
+	 */
+	public synchronized void put(String passedKey, EnumEntry passedEntry, String passedValue) {
+		EnumMap<EnumEntry, String> row = this.ROWS.get(passedKey);
+		if (row == null) {
+			row = new EnumMap<EnumEntry, String>(EnumEntry.class);
+			this.ROWS.put(passedKey, row);
+			this.BYTES += ROW_OVERHEAD_BYTES;
+		}
+		String previousValue = row.put(passedEntry, passedValue);
+		this.BYTES += estimateSize(passedValue) - estimateSize(previousValue);
+		if (this.BYTES > this.MAX_BYTES) {
+			this.evict(passedKey);
+		}
+	}
+
+	/**
+	 * Marks the row keyed by the passed page ID as complete, queueing one upsert of all its buffered columns. The page is passed to the
+	 * written listener by the next {@link #flush()}, even if no values are buffered for it.
+	 * <p>
+	 * No more values should be put for the page afterwards.
+	 *
+	 * @param passedKey - The page ID of the completed row
+	 */
+	public synchronized void complete(String passedKey) {
+		EnumMap<EnumEntry, String> row = this.ROWS.remove(passedKey);
+		if (row != null) {
+			this.write(passedKey, row);
+		}
+		this.COMPLETED.add(passedKey);
+	}
+
+	/**
+	 * Writes every buffered row, then sends all commands queued on the {@link BatchWriter}, and passes each page completed since the last
+	 * flush, and never failed, to the written listener.
+	 *
+	 * @return The results of {@link BatchWriter#executeBatch()}.
+	 */
+	public synchronized int[] flush() {
+		for (Map.Entry<String, EnumMap<EnumEntry, String>> iteratedEntry : this.ROWS.entrySet()) {
+			this.writeRow(iteratedEntry.getKey(), iteratedEntry.getValue());
+		}
+		this.ROWS.clear();
+		this.BYTES = 0;
+		int[] results = this.WRITER.executeBatch();
+		this.FAILED_PAGES.addAll(this.WRITER.takeFailedPages());
+		if (this.WRITTEN_LISTENER != null) {
+			for (String iteratedKey : this.COMPLETED) {
+				if (!this.FAILED_PAGES.contains(iteratedKey)) {
+					this.WRITTEN_LISTENER.accept(iteratedKey);
+				}
+			}
+		}
+		this.COMPLETED.clear();
+		return results;
+	}
+
+	/**
+	 * Returns the page ID of every page with a write that failed in any flush so far, written early or not.
+	 *
+	 * @return A new {@link Set} of the failed pages' IDs.
+	 */
+	public synchronized Set<String> getFailedPages() {
+		return new HashSet<String>(this.FAILED_PAGES);
+	}
+
+	/**
+	 * Returns the number of pages currently buffered.
+	 *
+	 * @return The number of buffered rows.
+	 */
+	public synchronized int size() {
+		return this.ROWS.size();
+	}
+
+	/* Internal Methods */
+
+	private void evict(String passedCurrentKey) {
+		// Oldest rows first; the row currently being built is kept, as more of its columns are likely to follow
+		Iterator<Map.Entry<String, EnumMap<EnumEntry, String>>> iterator = this.ROWS.entrySet().iterator();
+		while ((this.BYTES > this.MAX_BYTES) && iterator.hasNext()) {
+			Map.Entry<String, EnumMap<EnumEntry, String>> iteratedEntry = iterator.next();
+			if (!iteratedEntry.getKey().equals(passedCurrentKey)) {
+				iterator.remove();
+				this.write(iteratedEntry.getKey(), iteratedEntry.getValue());
+			}
+		}
+	}
+
+	private void write(String passedKey, EnumMap<EnumEntry, String> passedRow) {
+		this.writeRow(passedKey, passedRow);
+		this.BYTES -= ROW_OVERHEAD_BYTES;
+		for (String iteratedValue : passedRow.values()) {
+			this.BYTES -= estimateSize(iteratedValue);
+		}
+	}
+
+	private void writeRow(String passedKey, EnumMap<EnumEntry, String> passedRow) {
+		TableEntry entry = new TableEntry(new String[EnumEntry.values().length]);
+		entry.setEntry(EnumEntry.PAGE_ID, passedKey);
+		passedRow.forEach((column, value) -> entry.setEntry(column, value));
+		this.WRITER.batchUpsert(entry, passedRow.keySet().toArray(new EnumEntry[] {}));
+	}
+
+	/* Logic Methods */
+
+	private static long estimateSize(String passedValue) {
+		return (passedValue == null) ? 0 : passedValue.length();
+	}
+}
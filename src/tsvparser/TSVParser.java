@@ -1,20 +1,32 @@
 package tsvparser;
 
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import sqlinterface.SQLInterface;
 import sqlinterface.TableEntry;
 import tsvparser.utilities.TSVConfig;
+import tsvparser.utilities.TSVIngest;
+import tsvparser.utilities.TSVLoader;
+import tsvparser.utilities.TSVManifest;
 import tsvparser.utilities.TSVUtilities;
 import wikiscrape.utilities.JsonObjectParser;
 
 public class TSVParser {
 
 	private static String TSV_EXTENSION = "tsv";
+	private static final int LOADER_QUEUE_CAPACITY = 4096;
+	private static final String ARGUMENT_PARALLEL = "--parallel";
+	private static final String ARGUMENT_INCREMENTAL = "--incremental";
 
 	public static void main(String[] passedArguments) {
 		
@@ -22,17 +34,21 @@ public class TSVParser {
 		TSVConfig configuration = getConfig(configPath);
 
 		List<Path> discoveredFiles = TSVUtilities.getFilesInDirectory(configuration.getDirectory(), TSV_EXTENSION);
-		List<TableEntry> generatedEntries = new ArrayList<TableEntry>();
 
-		try {
-			SQLInterface sqlInterface = new SQLInterface(configuration.getSQLURL(), configuration.getTableName(), configuration.getUsername(), configuration.getPassword());
-
-			// Generate entries
-			discoveredFiles.forEach(filepath -> TSVUtilities.buildEntries(generatedEntries, filepath));
-			generatedEntries.forEach(entry -> entry.swapEntries(0, 1)); // Swap first two entries so that the primary index is page ID (nonvolatile) and not page title (volatile)
+		Consumer<TableEntry> preparer = entry -> entry.swapEntries(0, 1); // Swap first two entries so that the primary index is page ID (nonvolatile) and not page title (volatile)
 
-			// Push entries to database
-			sqlInterface.insert(generatedEntries.toArray(new TableEntry[] {}));
+		boolean incremental = Arrays.asList(passedArguments).contains(ARGUMENT_INCREMENTAL);
+		if (incremental || Arrays.asList(passedArguments).contains(ARGUMENT_PARALLEL)) {
+			ingestParallel(configuration, discoveredFiles, preparer, incremental);
+			return;
+		}
+		try (SQLInterface sqlInterface = new SQLInterface(configuration.getSQLURL(), configuration.getTableName(), configuration.getUsername(), configuration.getPassword())) {
+			// Stream entries to database in chunks, so that files of any size load in constant memory
+			TSVLoader loader = new TSVLoader(sqlInterface, configuration.getChunkRows(), configuration.getChunkBytes(), LOADER_QUEUE_CAPACITY);
+			loader.setUpsert(configuration.getUpsert());
+			loader.setFormat(configuration.getFormat());
+			loader.load(discoveredFiles, preparer);
+			System.out.println(loader);
 		}
 		catch (SQLException passedException) {
 			passedException.printStackTrace();
@@ -41,6 +57,56 @@ public class TSVParser {
 		}
 	}
 	
+	private static void ingestParallel(TSVConfig passedConfig, List<Path> passedFiles, Consumer<TableEntry> passedPreparer, boolean passedIncremental) {
+		List<SQLInterface> connections = new ArrayList<SQLInterface>();
+		try {
+			// Only files new or changed since the last incremental run need ingesting; appended files resume where they stopped
+			TSVManifest manifest = passedIncremental ? new TSVManifest(Paths.get(passedConfig.getManifestPath())) : null;
+			Map<Path, Long> starts = new LinkedHashMap<Path, Long>();
+			if (manifest != null) {
+				starts = manifest.plan(passedFiles);
+			}
+			else {
+				for (Path iteratedFile : passedFiles) {
+					starts.put(iteratedFile, 0L);
+				}
+			}
+
+			for (int iterator = 0; iterator < passedConfig.getWriterConnections(); iterator++) {
+				connections.add(new SQLInterface(passedConfig.getSQLURL(), passedConfig.getTableName(), passedConfig.getUsername(), passedConfig.getPassword()));
+			}
+			TSVIngest ingest = new TSVIngest(connections, passedConfig.getChunkRows(), passedConfig.getChunkBytes(), passedConfig.getSplitBytes(), passedConfig.getIngestThreads());
+			// A changed file is ingested again from the start, and a resumed one may resend rows committed past its offset, so rows already loaded must be replaced
+			ingest.setUpsert(passedIncremental || passedConfig.getUpsert());
+			ingest.setFormat(passedConfig.getFormat());
+			List<TSVIngest.FileProgress> progress = ingest.ingest(starts, passedPreparer);
+			if (manifest != null) {
+				for (TSVIngest.FileProgress iteratedProgress : progress) {
+					manifest.record(iteratedProgress);
+				}
+				manifest.save();
+			}
+		}
+		catch (SQLException passedException) {
+			passedException.printStackTrace();
+			// If the SQLInterface cannot be constructed, there's no point in continuing
+		}
+		catch (IOException passedException) {
+			passedException.printStackTrace();
+			// Without the manifest, the next incremental run would ingest everything again
+		}
+		finally {
+			for (SQLInterface iteratedConnection : connections) {
+				try {
+					iteratedConnection.close();
+				}
+				catch (SQLException passedException) {
+					passedException.printStackTrace();
+				}
+			}
+		}
+	}
+	
 	private static TSVConfig getConfig(String passedFilePath) {
 		try {
 			JsonObjectParser<TSVConfig> configReader = new JsonObjectParser<TSVConfig>(passedFilePath, TSVConfig.class);
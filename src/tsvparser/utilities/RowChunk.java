@@ -0,0 +1,81 @@
+package tsvparser.utilities;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import sqlinterface.TableEntry;
+
+/**
+ * Chunk of rows to be sent as one multi-row insert, bounded by a row count and a byte budget.
+ * <p>
+ * Every row of a chunk holds the same number of values, and a chunk never needs more bound parameters than common drivers allow.
+ */
+class RowChunk {
+
+	private static final int MAX_PARAMETERS = 32767; // Within the bound parameter limits of common drivers
+
+	private final int MAX_ROWS;
+	private final long MAX_BYTES;
+	private final List<TableEntry> ROWS;
+	private long BYTES = 0;
+
+	RowChunk(int passedMaxRows, long passedMaxBytes) {
+		this.MAX_ROWS = passedMaxRows;
+		this.MAX_BYTES = passedMaxBytes;
+		this.ROWS = new ArrayList<TableEntry>(passedMaxRows);
+	}
+
+	/**
+	 * Returns whether the passed row may join this chunk; if not, the chunk must be sent first.
+	 *
+	 * @param passedRow - The row to add
+	 * @return Whether the row fits.
+	 */
+	boolean accepts(TableEntry passedRow) {
+		if (this.ROWS.isEmpty()) {
+			return true;
+		}
+		int width = passedRow.getEntries().length;
+		return (this.ROWS.get(0).getEntries().length == width) && ((this.ROWS.size() + 1) * width <= MAX_PARAMETERS);
+	}
+
+	/**
+	 * Adds the passed row, which must be accepted.
+	 *
+	 * @param passedRow - The row to add
+	 * @return Whether the chunk is now full, and should be sent.
+	 */
+	boolean add(TableEntry passedRow) {
+		this.ROWS.add(passedRow);
+		this.BYTES += estimateSize(passedRow);
+		return (this.ROWS.size() >= this.MAX_ROWS) || (this.BYTES >= this.MAX_BYTES);
+	}
+
+	List<TableEntry> getRows() {
+		return this.ROWS;
+	}
+
+	int size() {
+		return this.ROWS.size();
+	}
+
+	boolean isEmpty() {
+		return this.ROWS.isEmpty();
+	}
+
+	void clear() {
+		this.ROWS.clear();
+		this.BYTES = 0;
+	}
+
+	/* Logic Methods */
+
+	private static long estimateSize(TableEntry passedRow) {
+		// Approximation; exact encoded size depends on the driver and character set
+		long size = 0;
+		for (String iteratedValue : passedRow.getEntries()) {
+			size += (iteratedValue == null) ? 0 : iteratedValue.length();
+		}
+		return size;
+	}
+}
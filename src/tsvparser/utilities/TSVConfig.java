@@ -2,11 +2,24 @@ package tsvparser.utilities;
 
 public class TSVConfig {
 
+	private static final int DEFAULT_CHUNK_ROWS = 500;
+	private static final long DEFAULT_CHUNK_BYTES = 1024L * 1024L;
+	private static final int DEFAULT_WRITER_CONNECTIONS = 4;
+	private static final String DEFAULT_MANIFEST_PATH = "ingest.manifest";
+
 	private String USERNAME;
 	private String PASSWORD;
 	private String SQL_URL;
 	private String TSV_DIRECTORY;
 	private String TABLENAME;
+	private int CHUNK_ROWS;
+	private long CHUNK_BYTES;
+	private int INGEST_THREADS;
+	private int WRITER_CONNECTIONS;
+	private long SPLIT_BYTES;
+	private String MANIFEST_PATH;
+	private boolean UPSERT;
+	private TSVFormat FORMAT;
 	
 	/**
 	 * Returns the username in the SQL database to use
@@ -53,12 +66,94 @@ public class TSVConfig {
 		return this.TSV_DIRECTORY;
 	}
 	
+	/**
+	 * Returns the maximum number of rows sent to the database in a single insert
+	 * 
+	 * @return - The number of rows per chunk, 500 if unset
+	 */
+	public int getChunkRows() {
+		return (this.CHUNK_ROWS > 0) ? this.CHUNK_ROWS : DEFAULT_CHUNK_ROWS;
+	}
+	
+	/**
+	 * Returns the approximate maximum size, in bytes, of the values sent to the database in a single insert
+	 * 
+	 * @return - The byte budget of each chunk, 1 MiB if unset
+	 */
+	public long getChunkBytes() {
+		return (this.CHUNK_BYTES > 0) ? this.CHUNK_BYTES : DEFAULT_CHUNK_BYTES;
+	}
+	
+	/**
+	 * Returns the number of threads parsing files during a parallel ingest
+	 * 
+	 * @return - The number of ingest threads, the number of available processors if unset
+	 */
+	public int getIngestThreads() {
+		return (this.INGEST_THREADS > 0) ? this.INGEST_THREADS : Runtime.getRuntime().availableProcessors();
+	}
+	
+	/**
+	 * Returns the number of database connections inserting rows during a parallel ingest
+	 * 
+	 * @return - The number of writer connections, 4 if unset
+	 */
+	public int getWriterConnections() {
+		return (this.WRITER_CONNECTIONS > 0) ? this.WRITER_CONNECTIONS : DEFAULT_WRITER_CONNECTIONS;
+	}
+	
+	/**
+	 * Returns the size above which a file is split between threads during a parallel ingest. Splits are made at newlines, so only set this
+	 * for files whose fields never hold one.
+	 * 
+	 * @return - The split size in bytes, 0 (files are never split) if unset
+	 */
+	public long getSplitBytes() {
+		return Math.max(this.SPLIT_BYTES, 0);
+	}
+	
+	/**
+	 * Returns the path of the manifest recording which files have been ingested, used by incremental runs
+	 * 
+	 * @return - The path of the ingest manifest, "ingest.manifest" if unset
+	 */
+	public String getManifestPath() {
+		return ((this.MANIFEST_PATH != null) && !this.MANIFEST_PATH.isEmpty()) ? this.MANIFEST_PATH : DEFAULT_MANIFEST_PATH;
+	}
+	
+	/**
+	 * Returns whether rows should be upserted rather than inserted, so that rows already in the table are replaced instead of failing their
+	 * chunk. The values of each row must then be in the table's column order, page ID first. Incremental ingests always upsert.
+	 * 
+	 * @return - Whether to upsert rows, false if unset
+	 */
+	public boolean getUpsert() {
+		return this.UPSERT;
+	}
+	
+	/**
+	 * Returns the convention by which the exporter of the TSV files writes fields holding tabs or newlines
+	 * 
+	 * @return - The {@link TSVFormat} of the files, {@link TSVFormat#LITERAL} if unset
+	 */
+	public TSVFormat getFormat() {
+		return (this.FORMAT != null) ? this.FORMAT : TSVFormat.LITERAL;
+	}
+	
 	public void clear() {
 		this.USERNAME = "";
 		this.PASSWORD = "";
 		this.SQL_URL = "";
 		this.TABLENAME = "";
 		this.TSV_DIRECTORY = "";
+		this.CHUNK_ROWS = 0;
+		this.CHUNK_BYTES = 0;
+		this.INGEST_THREADS = 0;
+		this.WRITER_CONNECTIONS = 0;
+		this.SPLIT_BYTES = 0;
+		this.MANIFEST_PATH = "";
+		this.UPSERT = false;
+		this.FORMAT = null;
 	}
 
 }
@@ -0,0 +1,23 @@
+package tsvparser.utilities;
+
+/**
+ * The convention by which a TSV file's exporter writes fields that hold tabs or newlines, as understood by a {@link TSVReader}.
+ */
+public enum TSVFormat {
+
+	/**
+	 * Every tab separates fields and every newline ends a row; the bytes of each field are kept as they are.
+	 */
+	LITERAL,
+	/**
+	 * A field starting with a double quote runs to the matching closing quote, and may hold tabs and newlines; a doubled quote within it
+	 * stands for one quote. A field whose closing quote is missing, or not followed by a delimiter, is read as a literal field.
+	 */
+	QUOTED,
+	/**
+	 * A backslash escapes the next character: {@code \t}, {@code \n} and {@code \r} stand for a tab, newline and carriage return, and any
+	 * other escaped character stands for itself.
+	 */
+	ESCAPED,
+	;
+}
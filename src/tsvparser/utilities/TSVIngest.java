@@ -0,0 +1,381 @@
+package tsvparser.utilities;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+import sqlinterface.SQLInterface;
+import sqlinterface.TableEntry;
+
+/**
+ * Parallel bulk loader, parsing many TSV files at once on a {@link ForkJoinPool} and inserting their rows through a set of connections.
+ * <p>
+ * Each file is a task. If a split size is set, a file larger than it is halved at a row boundary, recursively, so that large files are
+ * parsed by several threads too; as rows are found by their newlines, this is only safe for files whose fields never hold one. Each range is parsed and chunked as by a {@link TSVLoader}, and every chunk borrows whichever connection is free to
+ * be inserted; chunks of a range are committed in order.
+ * <p>
+ * Progress is tracked per file in a {@link FileProgress}. Its committed offset only advances past a range once that range and every range
+ * before it are fully committed, so rows before it are known to be in the database. A file that cannot be read is reported and abandoned
+ * without affecting the others.
+ */
+public class TSVIngest {
+
+	private static final String STATUS_FILE = "%s: %d of %d bytes committed, %d rows loaded";
+	private static final String STATUS_TOTAL = "Ingested %d files (%d failed): %d rows loaded, %d chunks failed";
+	private static final String EXCEPTION_FILE = "Exception when ingesting file \"%s\"";
+	private static final String EXCEPTION_ROW = "Skipping malformed row in file \"%s\"";
+
+	private final BlockingQueue<SQLInterface> CONNECTIONS;
+	private final int CHUNK_ROWS;
+	private final long CHUNK_BYTES;
+	private final long SPLIT_BYTES;
+	private final int PARALLELISM;
+	private boolean UPSERT = false;
+	private TSVFormat FORMAT = TSVFormat.LITERAL;
+
+	/**
+	 * Creates a new {@link TSVIngest} inserting through the passed {@link SQLInterface} instances.
+	 *
+	 * @param passedConnections - The {@link SQLInterface} instances to insert rows with, each used by one thread at a time
+	 * @param passedChunkRows - The maximum number of rows per chunk
+	 * @param passedChunkBytes - The approximate maximum size, in bytes, of the values in a chunk
+	 * @param passedSplitBytes - The size above which a file, or part of one, is split between threads, or 0 to never split files
+	 * @param passedParallelism - The number of threads to parse with
+	 * @throws IllegalArgumentException If no connections are passed, the split size is negative, or any other limit is less than or equal to zero.
+	 */
+	public TSVIngest(List<SQLInterface> passedConnections, int passedChunkRows, long passedChunkBytes, long passedSplitBytes, int passedParallelism) {
+		if (passedConnections.isEmpty() || (passedChunkRows <= 0) || (passedChunkBytes <= 0) || (passedSplitBytes < 0) || (passedParallelism <= 0)) {
+			throw new IllegalArgumentException("Connections, chunk limits and parallelism must all be greater than zero, and the split size not negative");
+		}
+		this.CONNECTIONS = new ArrayBlockingQueue<SQLInterface>(passedConnections.size(), false, passedConnections);
+		this.CHUNK_ROWS = passedChunkRows;
+		this.CHUNK_BYTES = passedChunkBytes;
+		this.SPLIT_BYTES = passedSplitBytes;
+		this.PARALLELISM = passedParallelism;
+	}
+
+	/**
+	 * Sets whether chunks are upserted with {@link SQLInterface#upsertRows(List)}, making a repeated ingest of the same rows safe, rather than
+	 * inserted with {@link SQLInterface#insertRows(List)}. Must be set before {@link #ingest(Map, Consumer)} is called.
+	 *
+	 * @param passedUpsert - Whether to upsert rows
+	 */
+	public void setUpsert(boolean passedUpsert) {
+		this.UPSERT = passedUpsert;
+	}
+
+	/**
+	 * Sets the convention by which the files ingested write fields holding delimiters. Must be set before {@link #ingest(Map, Consumer)} is
+	 * called.
+	 *
+	 * @param passedFormat - The {@link TSVFormat} of the files
+	 */
+	public void setFormat(TSVFormat passedFormat) {
+		this.FORMAT = passedFormat;
+	}
+
+	/**
+	 * Inserts every row of the passed files, returning once all have been sent or abandoned.
+	 *
+	 * @param passedFiles - The TSV files to load
+	 * @param passedPreparer - Applied to each row as it is read, before it is inserted (i.e. to reorder its values); must be thread safe
+	 * @return The {@link FileProgress} of each file, in the order passed.
+	 */
+	public List<FileProgress> ingest(List<Path> passedFiles, Consumer<TableEntry> passedPreparer) {
+		Map<Path, Long> starts = new LinkedHashMap<Path, Long>();
+		passedFiles.forEach((file) -> starts.put(file, 0L));
+		return this.ingest(starts, passedPreparer);
+	}
+
+	/**
+	 * Inserts the rows of the passed files from the passed offsets on, returning once all have been sent or abandoned.
+	 * <p>
+	 * The header row is only skipped for files read from the start.
+	 *
+	 * @param passedFiles - The TSV files to load, each mapped to the offset of the row to start from (i.e. as planned by a {@link TSVManifest})
+	 * @param passedPreparer - Applied to each row as it is read, before it is inserted (i.e. to reorder its values); must be thread safe
+	 * @return The {@link FileProgress} of each file, in the order passed.
+	 */
+	public List<FileProgress> ingest(Map<Path, Long> passedFiles, Consumer<TableEntry> passedPreparer) {
+		List<FileProgress> progress = new ArrayList<FileProgress>();
+		List<RangeTask> tasks = new ArrayList<RangeTask>();
+		for (Map.Entry<Path, Long> iteratedFile : passedFiles.entrySet()) {
+			FileProgress fileProgress = new FileProgress(iteratedFile.getKey(), iteratedFile.getValue());
+			progress.add(fileProgress);
+			try {
+				fileProgress.SIZE = Math.max(Files.size(iteratedFile.getKey()), fileProgress.COMMITTED);
+				tasks.add(new RangeTask(fileProgress, passedPreparer, fileProgress.COMMITTED, fileProgress.SIZE));
+			}
+			catch (IOException passedException) {
+				fileProgress.fail(passedException);
+			}
+		}
+		ForkJoinPool pool = new ForkJoinPool(this.PARALLELISM);
+		try {
+			pool.invoke(new RecursiveAction() {
+
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void compute() {
+					ForkJoinTask.invokeAll(tasks);
+				}
+			});
+		}
+		finally {
+			pool.shutdown();
+		}
+		long rowsLoaded = 0;
+		long failedChunks = 0;
+		int failedFiles = 0;
+		for (FileProgress iteratedProgress : progress) {
+			rowsLoaded += iteratedProgress.getRowsLoaded();
+			failedChunks += iteratedProgress.getFailedChunks();
+			failedFiles += (iteratedProgress.getError() != null) ? 1 : 0;
+		}
+		System.out.println(String.format(STATUS_TOTAL, progress.size(), failedFiles, rowsLoaded, failedChunks));
+		return progress;
+	}
+
+	/* Internal Methods */
+
+	private void load(FileProgress passedProgress, Consumer<TableEntry> passedPreparer, long passedStart, long passedEnd) {
+		RangeCount count = new RangeCount();
+		try (TSVReader reader = new TSVReader(passedProgress.PATH, passedStart, passedEnd)) {
+			reader.setFormat(this.FORMAT);
+			if (passedStart == 0) {
+				reader.next(); // Skip header row - contains labels that are not needed
+			}
+			RowChunk chunk = new RowChunk(this.CHUNK_ROWS, this.CHUNK_BYTES);
+			while (reader.next()) {
+				if ((reader.getFieldCount() == 1) && (reader.getFieldLength(0) == 0)) {
+					continue; // Blank line
+				}
+				TableEntry row = reader.toTableEntry();
+				try {
+					passedPreparer.accept(row);
+				}
+				catch (RuntimeException passedException) {
+					System.out.println(String.format(EXCEPTION_ROW, passedProgress.PATH));
+					passedException.printStackTrace();
+					continue;
+				}
+				if (!chunk.accepts(row)) {
+					this.insert(passedProgress, chunk, count);
+				}
+				if (chunk.add(row)) {
+					this.insert(passedProgress, chunk, count);
+				}
+			}
+			this.insert(passedProgress, chunk, count);
+		}
+		catch (IOException | RuntimeException passedException) {
+			passedProgress.complete(passedStart, passedEnd, count.ROWS, false);
+			passedProgress.fail(passedException);
+			return;
+		}
+		// A range missing a failed chunk is not committed, so the committed offset stops before it
+		passedProgress.complete(passedStart, passedEnd, count.ROWS, !count.FAILED);
+	}
+
+	private void insert(FileProgress passedProgress, RowChunk passedChunk, RangeCount passedCount) {
+		if (passedChunk.isEmpty()) {
+			return;
+		}
+		SQLInterface connection;
+		try {
+			connection = this.CONNECTIONS.take();
+		}
+		catch (InterruptedException passedException) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(passedException);
+		}
+		try {
+			int result = this.UPSERT ? connection.upsertRows(passedChunk.getRows()) : connection.insertRows(passedChunk.getRows());
+			if (result == Statement.EXECUTE_FAILED) {
+				passedProgress.chunkFailed();
+				passedCount.FAILED = true;
+			}
+			else {
+				passedCount.ROWS += passedChunk.size();
+			}
+		}
+		finally {
+			this.CONNECTIONS.add(connection);
+			passedChunk.clear();
+		}
+	}
+
+	/* Internal Classes */
+
+	private class RangeTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final FileProgress PROGRESS;
+		private final Consumer<TableEntry> PREPARER;
+		private final long START;
+		private final long END;
+
+		private RangeTask(FileProgress passedProgress, Consumer<TableEntry> passedPreparer, long passedStart, long passedEnd) {
+			this.PROGRESS = passedProgress;
+			this.PREPARER = passedPreparer;
+			this.START = passedStart;
+			this.END = passedEnd;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.PROGRESS.getError() != null) {
+				return; // Another range of the file has already failed
+			}
+			if ((TSVIngest.this.SPLIT_BYTES > 0) && ((this.END - this.START) > TSVIngest.this.SPLIT_BYTES)) {
+				try {
+					long middle = TSVReader.findRowStart(this.PROGRESS.PATH, this.START + ((this.END - this.START) / 2));
+					if ((middle > this.START) && (middle < this.END)) {
+						ForkJoinTask.invokeAll(new RangeTask(this.PROGRESS, this.PREPARER, this.START, middle), new RangeTask(this.PROGRESS, this.PREPARER, middle, this.END));
+						return;
+					}
+				}
+				catch (IOException passedException) {
+					this.PROGRESS.fail(passedException);
+					return;
+				}
+			}
+			TSVIngest.this.load(this.PROGRESS, this.PREPARER, this.START, this.END);
+		}
+	}
+
+	private static class RangeCount {
+
+		private long ROWS = 0;
+		private boolean FAILED = false;
+	}
+
+	/**
+	 * Progress of the ingest of a single file.
+	 */
+	public static class FileProgress {
+
+		private final Path PATH;
+		private final TreeMap<Long, Long> COMPLETED_RANGES = new TreeMap<Long, Long>();
+		private long SIZE = 0;
+		private long COMMITTED = 0;
+		private long ROWS_LOADED = 0;
+		private long FAILED_CHUNKS = 0;
+		private Exception ERROR = null;
+
+		private FileProgress(Path passedPath, long passedStart) {
+			this.PATH = passedPath;
+			this.COMMITTED = passedStart;
+		}
+
+		/**
+		 * Returns the path of the file.
+		 *
+		 * @return The file's path.
+		 */
+		public Path getPath() {
+			return this.PATH;
+		}
+
+		/**
+		 * Returns the size of the file when the ingest started.
+		 *
+		 * @return The file's size in bytes.
+		 */
+		public synchronized long getSize() {
+			return this.SIZE;
+		}
+
+		/**
+		 * Returns the offset before which every row of the file has been sent to the database.
+		 *
+		 * @return The committed offset, equal to {@link #getSize()} once the whole file has been sent.
+		 */
+		public synchronized long getCommitted() {
+			return this.COMMITTED;
+		}
+
+		/**
+		 * Returns the number of rows of the file inserted so far.
+		 *
+		 * @return The number of rows inserted.
+		 */
+		public synchronized long getRowsLoaded() {
+			return this.ROWS_LOADED;
+		}
+
+		/**
+		 * Returns the number of chunks of the file that could not be inserted.
+		 *
+		 * @return The number of failed chunks.
+		 */
+		public synchronized long getFailedChunks() {
+			return this.FAILED_CHUNKS;
+		}
+
+		/**
+		 * Returns the exception that caused the file to be abandoned.
+		 *
+		 * @return The exception, or {@code null} if the file has not failed.
+		 */
+		public synchronized Exception getError() {
+			return this.ERROR;
+		}
+
+		/**
+		 * Returns whether every row of the file has been sent to the database, i.e. it was read, and none of its chunks failed.
+		 *
+		 * @return Whether the file is complete.
+		 */
+		public synchronized boolean isComplete() {
+			return (this.ERROR == null) && (this.COMMITTED == this.SIZE);
+		}
+
+		@Override
+		public synchronized String toString() {
+			return String.format(STATUS_FILE, this.PATH, this.COMMITTED, this.SIZE, this.ROWS_LOADED);
+		}
+
+		/* Internal Methods */
+
+		private synchronized void complete(long passedStart, long passedEnd, long passedRowsLoaded, boolean passedCommitted) {
+			this.ROWS_LOADED += passedRowsLoaded;
+			if (!passedCommitted) {
+				return;
+			}
+			this.COMPLETED_RANGES.put(passedStart, passedEnd);
+			// Ranges finish in any order, but only a contiguous prefix counts as committed
+			Long end;
+			while ((end = this.COMPLETED_RANGES.remove(this.COMMITTED)) != null) {
+				this.COMMITTED = end;
+			}
+			System.out.println(this);
+		}
+
+		private synchronized void chunkFailed() {
+			this.FAILED_CHUNKS++;
+		}
+
+		private synchronized void fail(Exception passedException) {
+			if (this.ERROR == null) {
+				this.ERROR = passedException;
+				System.out.println(String.format(EXCEPTION_FILE, this.PATH));
+				passedException.printStackTrace();
+			}
+		}
+	}
+}
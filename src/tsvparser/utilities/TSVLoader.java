@@ -0,0 +1,216 @@
+package tsvparser.utilities;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+import sqlinterface.SQLInterface;
+import sqlinterface.TableEntry;
+
+/**
+ * Streaming bulk loader, inserting the rows of TSV files into the database in chunks.
+ * <p>
+ * A reader thread reads the files a line at a time into a bounded queue, while the calling thread drains the queue into chunks, each sent
+ * as one multi-row insert by {@link SQLInterface#insertRows(List)} once it reaches the row count or byte budget. Only the queue and a single
+ * chunk are held in memory however large the files are, and no one command grows past the budget. Each chunk commits on its own, so a
+ * failed chunk loses only its own rows.
+ */
+public class TSVLoader {
+
+	private static final String THREAD_NAME = "TSVLoader-Reader";
+	private static final String STATUS_STRING = "Loaded %d of %d rows in %d chunks; %d chunks failed";
+	private static final String EXCEPTION_READ = "Exception when reading file \"%s\"";
+	private static final String EXCEPTION_ROW = "Skipping malformed row in file \"%s\"";
+	private static final TableEntry END = new TableEntry(new String[0]);
+
+	private final SQLInterface SQL_INTERFACE;
+	private final int CHUNK_ROWS;
+	private final long CHUNK_BYTES;
+	private final int QUEUE_CAPACITY;
+	private boolean UPSERT = false;
+	private TSVFormat FORMAT = TSVFormat.LITERAL;
+
+	private volatile long ROWS_READ = 0;
+	private long ROWS_LOADED = 0;
+	private long CHUNKS = 0;
+	private long FAILED_CHUNKS = 0;
+
+	/**
+	 * Creates a new {@link TSVLoader} inserting through the passed {@link SQLInterface}.
+	 *
+	 * @param passedInterface - The {@link SQLInterface} to insert rows with
+	 * @param passedChunkRows - The maximum number of rows per chunk
+	 * @param passedChunkBytes - The approximate maximum size, in bytes, of the values in a chunk
+	 * @param passedQueueCapacity - The number of rows that may wait between the reader and the loader
+	 * @throws IllegalArgumentException If any limit is less than or equal to zero.
+	 */
+	public TSVLoader(SQLInterface passedInterface, int passedChunkRows, long passedChunkBytes, int passedQueueCapacity) {
+		if ((passedChunkRows <= 0) || (passedChunkBytes <= 0) || (passedQueueCapacity <= 0)) {
+			throw new IllegalArgumentException("Chunk limits and queue capacity must be greater than zero");
+		}
+		this.SQL_INTERFACE = passedInterface;
+		this.CHUNK_ROWS = passedChunkRows;
+		this.CHUNK_BYTES = passedChunkBytes;
+		this.QUEUE_CAPACITY = passedQueueCapacity;
+	}
+
+	/**
+	 * Sets whether chunks are sent with {@link SQLInterface#upsertRows(List)} rather than {@link SQLInterface#insertRows(List)}, so that
+	 * rows already in the table are replaced instead of failing their chunk.
+	 *
+	 * @param passedUpsert - Whether to upsert rows
+	 */
+	public void setUpsert(boolean passedUpsert) {
+		this.UPSERT = passedUpsert;
+	}
+
+	/**
+	 * Sets the convention by which the files loaded write fields holding delimiters.
+	 *
+	 * @param passedFormat - The {@link TSVFormat} of the files
+	 */
+	public void setFormat(TSVFormat passedFormat) {
+		this.FORMAT = passedFormat;
+	}
+
+	/**
+	 * Inserts every row of the passed files, returning once all have been sent.
+	 * <p>
+	 * A file that cannot be read is reported and skipped, as are malformed rows and chunks that cannot be inserted.
+	 *
+	 * @param passedFiles - The TSV files to load, in order
+	 * @param passedPreparer - Applied to each row as it is read, before it is queued (i.e. to reorder its values)
+	 */
+	public void load(List<Path> passedFiles, Consumer<TableEntry> passedPreparer) {
+		BlockingQueue<TableEntry> queue = new ArrayBlockingQueue<TableEntry>(this.QUEUE_CAPACITY);
+		Thread reader = new Thread(() -> this.read(passedFiles, passedPreparer, queue), THREAD_NAME);
+		reader.start();
+		try {
+			RowChunk chunk = new RowChunk(this.CHUNK_ROWS, this.CHUNK_BYTES);
+			TableEntry row;
+			while ((row = queue.take()) != END) {
+				if (!chunk.accepts(row)) {
+					this.insert(chunk);
+				}
+				if (chunk.add(row)) {
+					this.insert(chunk);
+				}
+			}
+			this.insert(chunk);
+		}
+		catch (InterruptedException passedException) {
+			Thread.currentThread().interrupt();
+		}
+		finally {
+			// Unblocks the reader if loading stopped early
+			reader.interrupt();
+		}
+	}
+
+	/**
+	 * Returns the number of rows read from the files so far.
+	 *
+	 * @return The number of rows read.
+	 */
+	public long getRowsRead() {
+		return this.ROWS_READ;
+	}
+
+	/**
+	 * Returns the number of rows inserted so far.
+	 *
+	 * @return The number of rows inserted.
+	 */
+	public long getRowsLoaded() {
+		return this.ROWS_LOADED;
+	}
+
+	/**
+	 * Returns the number of chunks sent so far, including those that failed.
+	 *
+	 * @return The number of chunks sent.
+	 */
+	public long getChunks() {
+		return this.CHUNKS;
+	}
+
+	/**
+	 * Returns the number of chunks that could not be inserted.
+	 *
+	 * @return The number of failed chunks.
+	 */
+	public long getFailedChunks() {
+		return this.FAILED_CHUNKS;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(STATUS_STRING, this.ROWS_LOADED, this.ROWS_READ, this.CHUNKS, this.FAILED_CHUNKS);
+	}
+
+	/* Internal Methods */
+
+	private void read(List<Path> passedFiles, Consumer<TableEntry> passedPreparer, BlockingQueue<TableEntry> passedQueue) {
+		try {
+			for (Path iteratedFile : passedFiles) {
+				try {
+					TSVUtilities.forEachEntry(iteratedFile, this.FORMAT, (row) -> {
+						try {
+							passedPreparer.accept(row);
+						}
+						catch (RuntimeException passedException) {
+							// A malformed row is skipped, but not the rest of its file
+							System.out.println(String.format(EXCEPTION_ROW, iteratedFile));
+							passedException.printStackTrace();
+							return;
+						}
+						try {
+							passedQueue.put(row);
+						}
+						catch (InterruptedException passedException) {
+							Thread.currentThread().interrupt();
+							throw new IllegalStateException(passedException);
+						}
+						this.ROWS_READ++; // Only this thread writes it
+					});
+				}
+				catch (IOException | RuntimeException passedException) {
+					if (Thread.currentThread().isInterrupted()) {
+						return; // The loader has stopped, and nothing will take from the queue
+					}
+					System.out.println(String.format(EXCEPTION_READ, iteratedFile));
+					passedException.printStackTrace();
+				}
+			}
+		}
+		finally {
+			if (!Thread.currentThread().isInterrupted()) {
+				try {
+					passedQueue.put(END);
+				}
+				catch (InterruptedException passedException) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+	}
+
+	private void insert(RowChunk passedChunk) {
+		if (passedChunk.isEmpty()) {
+			return;
+		}
+		this.CHUNKS++;
+		int result = this.UPSERT ? this.SQL_INTERFACE.upsertRows(passedChunk.getRows()) : this.SQL_INTERFACE.insertRows(passedChunk.getRows());
+		if (result == Statement.EXECUTE_FAILED) {
+			this.FAILED_CHUNKS++;
+		}
+		else {
+			this.ROWS_LOADED += passedChunk.size();
+		}
+		passedChunk.clear();
+	}
+}
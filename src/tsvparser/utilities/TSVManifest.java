@@ -0,0 +1,217 @@
+package tsvparser.utilities;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Persistent record of the TSV files already ingested, so that a run only ingests what is new.
+ * <p>
+ * For each file, the manifest records its size and modification time when it was ingested, the offset up to which its rows are committed,
+ * and a fingerprint of its contents before that offset. {@link #plan(List)} compares each file against its entry:
+ * <ul>
+ * <li>A file ingested whole, and unmodified since, is skipped without being read.</li>
+ * <li>A file whose contents before the recorded offset are unchanged, i.e. one that has only had rows appended, or whose last ingest stopped
+ * short, resumes from that offset.</li>
+ * <li>Any other file is ingested from the start.</li>
+ * </ul>
+ * The fingerprint is a SHA-256 digest of the offset and of every byte before it, so that an edit anywhere in the committed part of a file,
+ * even one that keeps its length, is noticed. Checking a file therefore reads it up to its offset, but only once its size or modification
+ * time has changed.
+ * <p>
+ * The manifest is a file of tab-separated lines, one per file, replaced whole by {@link #save()}.
+ * <p>
+ * Rows already in the table may be sent again: a changed file is ingested from its start, and the offset recorded for a file is only the end
+ * of its contiguous committed prefix, so rows committed past it are sent again on resuming. Ingests planned with a manifest must therefore
+ * upsert rows (see {@link TSVIngest#setUpsert(boolean)}).
+ */
+public class TSVManifest {
+
+	private static final int FINGERPRINT_BUFFER = 1024 * 1024;
+	private static final String SEPARATOR = "\t";
+	private static final String LINE_END = "\n";
+	private static final String TEMPORARY_SUFFIX = ".tmp";
+	private static final String STATUS_PLAN = "Ingest manifest %s: %d new, %d changed, %d resumed, %d unchanged";
+	private static final String EXCEPTION_DIGEST = "SHA-256 is not available";
+
+	/**
+	 * The offset returned by {@link #plan(List)} for a file that need not be ingested.
+	 */
+	public static final long SKIP = -1L;
+
+	private final Path PATH;
+	private final Map<String, Entry> ENTRIES = new TreeMap<String, Entry>();
+	private final Map<String, Long> MODIFIED = new HashMap<String, Long>();
+
+	/**
+	 * Opens the manifest at the passed path, which is created by {@link #save()} if there is none.
+	 *
+	 * @param passedPath - The path of the manifest file
+	 * @throws IOException If the manifest exists, but could not be read
+	 */
+	public TSVManifest(Path passedPath) throws IOException {
+		this.PATH = passedPath;
+		if (Files.exists(passedPath)) {
+			for (String iteratedLine : Files.readAllLines(passedPath, StandardCharsets.UTF_8)) {
+				String[] fields = iteratedLine.split(SEPARATOR);
+				if (fields.length == 5) {
+					this.ENTRIES.put(fields[0], new Entry(Long.parseLong(fields[1]), Long.parseLong(fields[2]), Long.parseLong(fields[3]), fields[4]));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Decides where to start ingesting each of the passed files.
+	 * <p>
+	 * The modification time of each file is noted, to be recorded by {@link #record(TSVIngest.FileProgress)} once it has been ingested.
+	 *
+	 * @param passedFiles - The files found to ingest
+	 * @return The offset at which to start ingesting each file to be ingested, in the order passed; files to skip are left out.
+	 * @throws IOException If a file could not be read
+	 */
+	public Map<Path, Long> plan(List<Path> passedFiles) throws IOException {
+		Map<Path, Long> starts = new LinkedHashMap<Path, Long>();
+		int[] counts = new int[4];
+		for (Path iteratedFile : passedFiles) {
+			String key = toKey(iteratedFile);
+			long size = Files.size(iteratedFile);
+			long modified = Files.getLastModifiedTime(iteratedFile).toMillis();
+			this.MODIFIED.put(key, modified);
+			Entry entry = this.ENTRIES.get(key);
+			long start;
+			if (entry == null) {
+				start = 0;
+				counts[0]++;
+			}
+			else if ((entry.OFFSET == entry.SIZE) && (size == entry.SIZE) && (modified == entry.MODIFIED)) {
+				start = SKIP;
+			}
+			else if ((entry.OFFSET > 0) && (size >= entry.OFFSET) && entry.HASH.equals(fingerprint(iteratedFile, entry.OFFSET))) {
+				start = (size == entry.OFFSET) ? SKIP : entry.OFFSET;
+			}
+			else {
+				start = 0;
+				counts[1]++;
+			}
+			if (start > 0) {
+				counts[2]++;
+			}
+			else if (start == SKIP) {
+				counts[3]++;
+			}
+			if (start != SKIP) {
+				starts.put(iteratedFile, start);
+			}
+		}
+		System.out.println(String.format(STATUS_PLAN, this.PATH, counts[0], counts[1], counts[2], counts[3]));
+		return starts;
+	}
+
+	/**
+	 * Records how far the passed file has been ingested, to be kept once {@link #save()}d.
+	 * <p>
+	 * A file abandoned before any of it was committed keeps whatever entry it had.
+	 *
+	 * @param passedProgress - The {@link TSVIngest.FileProgress} of the file's ingest
+	 * @throws IOException If the file could not be read
+	 */
+	public void record(TSVIngest.FileProgress passedProgress) throws IOException {
+		String key = toKey(passedProgress.getPath());
+		Long modified = this.MODIFIED.get(key);
+		if ((modified == null) || ((passedProgress.getError() != null) && (passedProgress.getCommitted() == 0))) {
+			return; // Nothing was learned about the file
+		}
+		long offset = passedProgress.getCommitted();
+		this.ENTRIES.put(key, new Entry(passedProgress.getSize(), modified, offset, fingerprint(passedProgress.getPath(), offset)));
+	}
+
+	/**
+	 * Writes the manifest, replacing the file only once it is complete.
+	 *
+	 * @throws IOException If the manifest could not be written
+	 */
+	public void save() throws IOException {
+		StringBuilder builder = new StringBuilder();
+		for (Map.Entry<String, Entry> iteratedEntry : this.ENTRIES.entrySet()) {
+			Entry entry = iteratedEntry.getValue();
+			builder.append(iteratedEntry.getKey()).append(SEPARATOR).append(entry.SIZE).append(SEPARATOR).append(entry.MODIFIED).append(SEPARATOR)
+					.append(entry.OFFSET).append(SEPARATOR).append(entry.HASH).append(LINE_END);
+		}
+		Path temporaryPath = this.PATH.resolveSibling(this.PATH.getFileName() + TEMPORARY_SUFFIX);
+		try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.wrap(builder.toString().getBytes(StandardCharsets.UTF_8));
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(true);
+		}
+		Files.move(temporaryPath, this.PATH, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/* Logic Methods */
+
+	private static String toKey(Path passedFile) {
+		return passedFile.toAbsolutePath().normalize().toString();
+	}
+
+	private static String fingerprint(Path passedFile, long passedOffset) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException passedException) {
+			throw new IllegalStateException(EXCEPTION_DIGEST, passedException);
+		}
+		digest.update(ByteBuffer.allocate(Long.BYTES).putLong(0, passedOffset));
+		try (FileChannel channel = FileChannel.open(passedFile, StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(FINGERPRINT_BUFFER);
+			long position = 0;
+			while (position < passedOffset) {
+				buffer.clear();
+				buffer.limit((int) Math.min(FINGERPRINT_BUFFER, passedOffset - position));
+				int read = channel.read(buffer, position);
+				if (read < 0) {
+					break; // The file was truncated since its size was taken
+				}
+				buffer.flip();
+				digest.update(buffer);
+				position += read;
+			}
+		}
+		StringBuilder builder = new StringBuilder();
+		for (byte iteratedByte : digest.digest()) {
+			builder.append(String.format("%02x", iteratedByte));
+		}
+		return builder.toString();
+	}
+
+	/* Internal Classes */
+
+	private static class Entry {
+
+		private final long SIZE;
+		private final long MODIFIED;
+		private final long OFFSET;
+		private final String HASH;
+
+		private Entry(long passedSize, long passedModified, long passedOffset, String passedHash) {
+			this.SIZE = passedSize;
+			this.MODIFIED = passedModified;
+			this.OFFSET = passedOffset;
+			this.HASH = passedHash;
+		}
+	}
+}
@@ -0,0 +1,481 @@
+package tsvparser.utilities;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import sqlinterface.TableEntry;
+
+/**
+ * Reader tokenizing a TSV file in place, through a memory mapping.
+ * <p>
+ * Each call to {@link #next()} scans the bytes of one row for tab and newline delimiters, and records where each field starts and ends;
+ * nothing is copied or decoded. A field becomes a {@code String} only when read with {@link #getString(int)}, and numeric fields may be
+ * read with {@link #getLong(int)} without ever becoming one. The raw bytes of a field lie at {@link #getFieldOffset(int)} in the file,
+ * and span {@link #getFieldLength(int)} bytes.
+ * <p>
+ * By default every tab and newline is a delimiter, and fields are read byte for byte. Files whose exporter quotes or escapes fields holding
+ * delimiters are read by setting the matching {@link TSVFormat} with {@link #setFormat(TSVFormat)}. Rows may end in {@code \n} or {@code \r\n}. The file is mapped in windows, so files of any size may be read; a window always starts
+ * at a row, and is enlarged if a single row does not fit.
+ * <p>
+ * A reader may be limited to the rows starting within a range of the file, so that the ranges of a large file can be read in parallel;
+ * {@link #findRowStart(Path, long)} finds where to split it. Splitting looks for a newline, so only {@link TSVFormat#LITERAL} files are
+ * certain to split correctly.
+ * <p>
+ * A {@link TSVReader} is not thread safe.
+ */
+public class TSVReader implements AutoCloseable {
+
+	private static final long DEFAULT_WINDOW_SIZE = 256L * 1024L * 1024L;
+	private static final int DEFAULT_FIELD_CAPACITY = 16;
+	private static final byte TAB = '\t';
+	private static final byte NEWLINE = '\n';
+	private static final byte RETURN = '\r';
+	private static final byte QUOTE = '"';
+	private static final byte BACKSLASH = '\\';
+	private static final byte FLAG_PLAIN = 0;
+	private static final byte FLAG_QUOTED = 1;
+	private static final byte FLAG_ESCAPED = 2;
+	private static final String EXCEPTION_FIELD = "Field %d is outside a row of %d fields";
+	private static final String EXCEPTION_ROW = "Row at offset %d is too long to map";
+	private static final String EXCEPTION_NUMBER = "Field %d is not a number: \"%s\"";
+
+	private final FileChannel CHANNEL;
+	private final long FILE_SIZE;
+	private final long WINDOW_SIZE;
+	private final long END;
+
+	private MappedByteBuffer BUFFER;
+	private ByteBuffer VIEW;
+	private long WINDOW_START = 0;
+	private int WINDOW_LIMIT = 0;
+	private long POSITION = 0;
+	private long ROW_START = 0;
+	private TSVFormat FORMAT = TSVFormat.LITERAL;
+
+	private int FIELD_COUNT = 0;
+	private int[] STARTS = new int[DEFAULT_FIELD_CAPACITY];
+	private int[] ENDS = new int[DEFAULT_FIELD_CAPACITY];
+	private byte[] FLAGS = new byte[DEFAULT_FIELD_CAPACITY];
+	private byte[] SCRATCH = new byte[256];
+
+	/**
+	 * Opens the TSV file at the passed path, positioned before its first row.
+	 *
+	 * @param passedFilePath - The path of the file to read
+	 * @throws IOException If the file could not be opened
+	 */
+	public TSVReader(Path passedFilePath) throws IOException {
+		this(passedFilePath, DEFAULT_WINDOW_SIZE);
+	}
+
+	/**
+	 * Opens the TSV file at the passed path, positioned before its first row, mapping at most the passed number of bytes at once.
+	 *
+	 * @param passedFilePath - The path of the file to read
+	 * @param passedWindowSize - The number of bytes to map at once, enlarged for any row longer than it
+	 * @throws IOException If the file could not be opened
+	 * @throws IllegalArgumentException If {@code passedWindowSize} is less than or equal to zero, or more than {@link Integer#MAX_VALUE}.
+	 */
+	public TSVReader(Path passedFilePath, long passedWindowSize) throws IOException {
+		this(passedFilePath, 0, Long.MAX_VALUE, passedWindowSize);
+	}
+
+	/**
+	 * Opens the TSV file at the passed path, limited to the rows starting within the passed range.
+	 * <p>
+	 * The last row read may run past the end of the range, so ranges split at {@link #findRowStart(Path, long)} are read exactly once.
+	 *
+	 * @param passedFilePath - The path of the file to read
+	 * @param passedStart - The offset at which to start reading, which must be the start of a row
+	 * @param passedEnd - The offset before which the last row read must start
+	 * @throws IOException If the file could not be opened
+	 */
+	public TSVReader(Path passedFilePath, long passedStart, long passedEnd) throws IOException {
+		this(passedFilePath, passedStart, passedEnd, DEFAULT_WINDOW_SIZE);
+	}
+
+	private TSVReader(Path passedFilePath, long passedStart, long passedEnd, long passedWindowSize) throws IOException {
+		if ((passedWindowSize <= 0) || (passedWindowSize > Integer.MAX_VALUE)) {
+			throw new IllegalArgumentException("Window size must be greater than zero, and fit a single mapping");
+		}
+		this.CHANNEL = FileChannel.open(passedFilePath, StandardOpenOption.READ);
+		this.FILE_SIZE = this.CHANNEL.size();
+		this.WINDOW_SIZE = passedWindowSize;
+		this.END = Math.min(passedEnd, this.FILE_SIZE);
+		this.POSITION = Math.min(Math.max(0, passedStart), this.FILE_SIZE);
+		this.ROW_START = this.POSITION;
+		this.map(this.POSITION, passedWindowSize);
+	}
+
+	/**
+	 * Returns the offset of the first row starting at or after the passed offset, i.e. just past the next newline.
+	 *
+	 * @param passedFilePath - The path of the file to search
+	 * @param passedOffset - The offset to search from; zero is always the start of a row
+	 * @return The offset of the row, or the size of the file if no row starts after {@code passedOffset}.
+	 * @throws IOException If the file could not be read
+	 */
+	public static long findRowStart(Path passedFilePath, long passedOffset) throws IOException {
+		try (FileChannel channel = FileChannel.open(passedFilePath, StandardOpenOption.READ)) {
+			if (passedOffset <= 0) {
+				return 0;
+			}
+			// A row starts here if the byte before is a newline
+			long position = passedOffset - 1;
+			ByteBuffer buffer = ByteBuffer.allocate(8192);
+			while (channel.read(buffer, position) > 0) {
+				buffer.flip();
+				while (buffer.hasRemaining()) {
+					position++;
+					if (buffer.get() == NEWLINE) {
+						return position;
+					}
+				}
+				buffer.clear();
+			}
+			return channel.size();
+		}
+	}
+
+	/**
+	 * Sets the convention by which fields holding delimiters are written, applied from the next row read.
+	 *
+	 * @param passedFormat - The {@link TSVFormat} of the file
+	 */
+	public void setFormat(TSVFormat passedFormat) {
+		this.FORMAT = passedFormat;
+	}
+
+	/**
+	 * Advances to the next row.
+	 *
+	 * @return Whether there was another row; if not, the reader is at the end of the file.
+	 * @throws IOException If the file could not be mapped
+	 */
+	public boolean next() throws IOException {
+		if (this.POSITION >= this.END) {
+			this.FIELD_COUNT = 0;
+			return false;
+		}
+		if (this.POSITION >= (this.WINDOW_START + this.WINDOW_LIMIT)) {
+			this.map(this.POSITION, this.WINDOW_SIZE);
+		}
+		int rowEnd;
+		while ((rowEnd = this.scanRow((int) (this.POSITION - this.WINDOW_START))) < 0) {
+			// The row runs past the window; map a window starting at it, larger if it already did
+			long size = (this.WINDOW_START == this.POSITION) ? (this.WINDOW_LIMIT * 2L) : this.WINDOW_SIZE;
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException(String.format(EXCEPTION_ROW, this.POSITION));
+			}
+			this.map(this.POSITION, size);
+		}
+		this.ROW_START = this.POSITION;
+		this.POSITION = this.WINDOW_START + rowEnd;
+		return true;
+	}
+
+	/**
+	 * Returns the number of fields in the current row.
+	 *
+	 * @return The number of fields.
+	 */
+	public int getFieldCount() {
+		return this.FIELD_COUNT;
+	}
+
+	/**
+	 * Returns the offset in the file of the current row.
+	 *
+	 * @return The offset of the row's first byte.
+	 */
+	public long getRowOffset() {
+		return this.ROW_START;
+	}
+
+	/**
+	 * Returns the offset in the file of the row after the current one, i.e. the number of bytes read so far.
+	 *
+	 * @return The offset at which the next row starts.
+	 */
+	public long getPosition() {
+		return this.POSITION;
+	}
+
+	/**
+	 * Returns the offset in the file of the raw bytes of the passed field, excluding the quotes of a {@link TSVFormat#QUOTED} field.
+	 *
+	 * @param passedField - The index of the field, starting at zero
+	 * @return The offset of the field's first byte.
+	 * @throws IndexOutOfBoundsException If {@code passedField} is outside the current row.
+	 */
+	public long getFieldOffset(int passedField) {
+		this.validate(passedField);
+		return this.WINDOW_START + this.STARTS[passedField];
+	}
+
+	/**
+	 * Returns the length of the raw bytes of the passed field, excluding the quotes of a {@link TSVFormat#QUOTED} field, and before quotes or
+	 * escapes are resolved.
+	 *
+	 * @param passedField - The index of the field, starting at zero
+	 * @return The number of bytes in the field.
+	 * @throws IndexOutOfBoundsException If {@code passedField} is outside the current row.
+	 */
+	public int getFieldLength(int passedField) {
+		this.validate(passedField);
+		return this.ENDS[passedField] - this.STARTS[passedField];
+	}
+
+	/**
+	 * Decodes the passed field of the current row.
+	 *
+	 * @param passedField - The index of the field, starting at zero
+	 * @return The field's value, with quoting and escapes resolved.
+	 * @throws IndexOutOfBoundsException If {@code passedField} is outside the current row.
+	 */
+	public String getString(int passedField) {
+		int length = this.getFieldLength(passedField);
+		if (length == 0) {
+			return "";
+		}
+		byte[] bytes = this.copy(passedField, length);
+		switch (this.FLAGS[passedField]) {
+			case FLAG_QUOTED:
+				length = unquote(bytes, length);
+				break;
+			case FLAG_ESCAPED:
+				length = unescape(bytes, length);
+				break;
+			default:
+				break;
+		}
+		return new String(bytes, 0, length, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Parses the passed field of the current row as a decimal integer, without decoding it.
+	 *
+	 * @param passedField - The index of the field, starting at zero
+	 * @return The field's value.
+	 * @throws IndexOutOfBoundsException If {@code passedField} is outside the current row.
+	 * @throws NumberFormatException If the field is not a decimal integer within the range of a {@code long}.
+	 */
+	public long getLong(int passedField) {
+		int length = this.getFieldLength(passedField);
+		if (this.FLAGS[passedField] != FLAG_PLAIN) {
+			return parseLong(passedField, this.getString(passedField));
+		}
+		int index = this.STARTS[passedField];
+		int end = index + length;
+		boolean negative = (length > 0) && (this.BUFFER.get(index) == '-');
+		if (negative) {
+			index++;
+		}
+		if (index == end) {
+			throw new NumberFormatException(String.format(EXCEPTION_NUMBER, passedField, this.getString(passedField)));
+		}
+		long value = 0;
+		for (; index < end; index++) {
+			int digit = this.BUFFER.get(index) - '0';
+			if ((digit < 0) || (digit > 9) || (value < ((Long.MIN_VALUE + digit) / 10))) {
+				return parseLong(passedField, this.getString(passedField)); // Not a number, or out of range; reports the error
+			}
+			value = (value * 10) - digit; // Accumulated negatively, as Long.MIN_VALUE has no positive counterpart
+		}
+		if (!negative && (value == Long.MIN_VALUE)) {
+			throw new NumberFormatException(String.format(EXCEPTION_NUMBER, passedField, this.getString(passedField)));
+		}
+		return negative ? value : -value;
+	}
+
+	/**
+	 * Decodes every field of the current row into a new {@link TableEntry}.
+	 *
+	 * @return A {@link TableEntry} holding the row's values.
+	 */
+	public TableEntry toTableEntry() {
+		String[] values = new String[this.FIELD_COUNT];
+		for (int iterator = 0; iterator < values.length; iterator++) {
+			values[iterator] = this.getString(iterator);
+		}
+		return new TableEntry(values);
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.CHANNEL.close();
+	}
+
+	/* Internal Methods */
+
+	private void map(long passedStart, long passedSize) throws IOException {
+		long size = Math.min(passedSize, this.FILE_SIZE - passedStart);
+		this.BUFFER = this.CHANNEL.map(FileChannel.MapMode.READ_ONLY, passedStart, size);
+		this.VIEW = this.BUFFER.duplicate();
+		this.WINDOW_START = passedStart;
+		this.WINDOW_LIMIT = (int) size;
+	}
+
+	private int scanRow(int passedStart) {
+		// Returns the index in the window just past the row, or -1 if the window ends before the row does
+		MappedByteBuffer buffer = this.BUFFER;
+		int limit = this.WINDOW_LIMIT;
+		boolean atEnd = (this.WINDOW_START + limit) >= this.FILE_SIZE;
+		boolean quoting = this.FORMAT == TSVFormat.QUOTED;
+		boolean escaping = this.FORMAT == TSVFormat.ESCAPED;
+		int index = passedStart;
+		this.FIELD_COUNT = 0;
+		while (true) {
+			int start = index;
+			int end;
+			byte flag = FLAG_PLAIN;
+			int closing = quoting ? this.scanQuoted(index, limit, atEnd) : -1;
+			if (closing == -2) {
+				return -1;
+			}
+			if (closing >= 0) {
+				flag = FLAG_QUOTED;
+				start = index + 1;
+				end = closing;
+				index = closing + 1;
+				if ((index < limit) && (buffer.get(index) == RETURN)) {
+					index++;
+				}
+			}
+			else {
+				// Unquoted, or a quote not closed just before a delimiter, which is read as it is
+				byte current;
+				while ((index < limit) && ((current = buffer.get(index)) != TAB) && (current != NEWLINE)) {
+					if (escaping && (current == BACKSLASH)) {
+						flag = FLAG_ESCAPED;
+						index++;
+					}
+					index++;
+				}
+				index = Math.min(index, limit);
+				end = index;
+			}
+			if ((index >= limit) && !atEnd) {
+				return -1;
+			}
+			boolean rowEnds = (index >= limit) || (buffer.get(index) == NEWLINE);
+			if (rowEnds && (flag != FLAG_QUOTED) && (end > start) && (buffer.get(end - 1) == RETURN)) {
+				end--;
+			}
+			this.addField(start, end, flag);
+			if (rowEnds) {
+				return Math.min(index + 1, limit);
+			}
+			index++;
+		}
+	}
+
+	private int scanQuoted(int passedStart, int passedLimit, boolean passedAtEnd) {
+		// Returns the index of the quote closing a field starting at the passed index, -1 if the field is not quoted or its quotes are malformed,
+		// or -2 if the window ends before that is known
+		MappedByteBuffer buffer = this.BUFFER;
+		if ((passedStart >= passedLimit) || (buffer.get(passedStart) != QUOTE)) {
+			return -1;
+		}
+		int index = passedStart + 1;
+		while ((index < passedLimit) && ((buffer.get(index) != QUOTE) || (((index + 1) < passedLimit) && (buffer.get(index + 1) == QUOTE)))) {
+			index += (buffer.get(index) == QUOTE) ? 2 : 1;
+		}
+		// The closing quote must be followed by a delimiter, a row end or the end of the file
+		int next = index + 1;
+		if ((next < passedLimit) && (buffer.get(next) == RETURN)) {
+			next++;
+		}
+		if ((next >= passedLimit) && !passedAtEnd) {
+			return -2;
+		}
+		if (index >= passedLimit) {
+			return -1; // Unterminated
+		}
+		if (next >= passedLimit) {
+			return index;
+		}
+		byte following = buffer.get(next);
+		return ((following == NEWLINE) || ((following == TAB) && (next == (index + 1)))) ? index : -1;
+	}
+
+	private void addField(int passedStart, int passedEnd, byte passedFlag) {
+		if (this.FIELD_COUNT == this.STARTS.length) {
+			this.STARTS = Arrays.copyOf(this.STARTS, this.FIELD_COUNT * 2);
+			this.ENDS = Arrays.copyOf(this.ENDS, this.FIELD_COUNT * 2);
+			this.FLAGS = Arrays.copyOf(this.FLAGS, this.FIELD_COUNT * 2);
+		}
+		this.STARTS[this.FIELD_COUNT] = passedStart;
+		this.ENDS[this.FIELD_COUNT] = passedEnd;
+		this.FLAGS[this.FIELD_COUNT] = passedFlag;
+		this.FIELD_COUNT++;
+	}
+
+	private byte[] copy(int passedField, int passedLength) {
+		if (this.SCRATCH.length < passedLength) {
+			this.SCRATCH = new byte[Math.max(passedLength, this.SCRATCH.length * 2)];
+		}
+		this.VIEW.position(this.STARTS[passedField]);
+		this.VIEW.get(this.SCRATCH, 0, passedLength);
+		return this.SCRATCH;
+	}
+
+	private void validate(int passedField) {
+		if ((passedField < 0) || (passedField >= this.FIELD_COUNT)) {
+			throw new IndexOutOfBoundsException(String.format(EXCEPTION_FIELD, passedField, this.FIELD_COUNT));
+		}
+	}
+
+	/* Logic Methods */
+
+	private static int unquote(byte[] passedBytes, int passedLength) {
+		int written = 0;
+		for (int iterator = 0; iterator < passedLength; iterator++) {
+			passedBytes[written++] = passedBytes[iterator];
+			if ((passedBytes[iterator] == QUOTE) && ((iterator + 1) < passedLength) && (passedBytes[iterator + 1] == QUOTE)) {
+				iterator++;
+			}
+		}
+		return written;
+	}
+
+	private static int unescape(byte[] passedBytes, int passedLength) {
+		int written = 0;
+		for (int iterator = 0; iterator < passedLength; iterator++) {
+			byte current = passedBytes[iterator];
+			if ((current == BACKSLASH) && ((iterator + 1) < passedLength)) {
+				current = passedBytes[++iterator];
+				switch (current) {
+					case 't':
+						current = TAB;
+						break;
+					case 'n':
+						current = NEWLINE;
+						break;
+					case 'r':
+						current = RETURN;
+						break;
+					default:
+						break;
+				}
+			}
+			passedBytes[written++] = current;
+		}
+		return written;
+	}
+
+	private static long parseLong(int passedField, String passedValue) {
+		try {
+			return Long.parseLong(passedValue);
+		}
+		catch (NumberFormatException passedException) {
+			throw new NumberFormatException(String.format(EXCEPTION_NUMBER, passedField, passedValue));
+		}
+	}
+}
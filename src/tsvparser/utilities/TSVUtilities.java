@@ -1,6 +1,5 @@
 package tsvparser.utilities;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.FileVisitOption;
@@ -9,6 +8,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 import sqlinterface.TableEntry;
@@ -64,16 +64,50 @@ public class TSVUtilities {
 	 * @param passedList - The {@link List} to add the constructed {@link TableEntry} objects to
 	 */
 	public static void buildEntries(List<TableEntry> passedList, Path passedFilePath) {
-		try (BufferedReader reader = Files.newBufferedReader(passedFilePath)) {
-			Stream<String> lines = reader.lines();
-			// Skip header row - contains labels that are not needed
-			lines.skip(1).forEach(string -> passedList.add(TSVUtilities.fromLine(string)));
+		try {
+			forEachEntry(passedFilePath, passedList::add);
 		}
 		catch (IOException passedException) {
 			passedException.printStackTrace();
 		}
 	}
 	
+	/**
+	 * Passes each {@link TableEntry} constructed from the file at the {@link Path} to the passed {@link Consumer}, as it is read.
+	 * <p>
+	 * The file is tokenized in place by a {@link TSVReader}, so files of any size may be read. Fields are kept byte for byte, as with
+	 * {@link TSVFormat#LITERAL}. Blank lines are skipped.
+	 * @param passedFilePath - The path at which the .tsv file resides
+	 * @param passedConsumer - The {@link Consumer} to receive each constructed {@link TableEntry}
+	 * @throws IOException If the file cannot be read
+	 */
+	public static void forEachEntry(Path passedFilePath, Consumer<TableEntry> passedConsumer) throws IOException {
+		forEachEntry(passedFilePath, TSVFormat.LITERAL, passedConsumer);
+	}
+	
+	/**
+	 * Passes each {@link TableEntry} constructed from the file at the {@link Path} to the passed {@link Consumer}, as it is read.
+	 * <p>
+	 * The file is tokenized in place by a {@link TSVReader}, so files of any size may be read, and fields quoted or escaped as per the passed
+	 * {@link TSVFormat} are understood. Blank lines are skipped.
+	 * @param passedFilePath - The path at which the .tsv file resides
+	 * @param passedFormat - The {@link TSVFormat} of the file
+	 * @param passedConsumer - The {@link Consumer} to receive each constructed {@link TableEntry}
+	 * @throws IOException If the file cannot be read
+	 */
+	public static void forEachEntry(Path passedFilePath, TSVFormat passedFormat, Consumer<TableEntry> passedConsumer) throws IOException {
+		try (TSVReader reader = new TSVReader(passedFilePath)) {
+			reader.setFormat(passedFormat);
+			// Skip header row - contains labels that are not needed
+			reader.next();
+			while (reader.next()) {
+				if ((reader.getFieldCount() > 1) || (reader.getFieldLength(0) > 0)) {
+					passedConsumer.accept(reader.toTableEntry());
+				}
+			}
+		}
+	}
+	
 	/**
 	 * Returns a single {@link TableEntry} object from the passed {@code String} line.
 	 * <p>
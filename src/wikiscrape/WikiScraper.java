@@ -1,26 +1,54 @@
 package wikiscrape;
 
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 
 import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
+import sqlinterface.BatchWriter;
 import sqlinterface.EnumEntry;
 import sqlinterface.SQLInterface;
-import wikiscrape.queries.Argument;
+import sqlinterface.SQLWriterPool;
+import sqlinterface.TableEntry;
+import sqlinterface.TextCodec;
+import sqlinterface.WriteBehindBuffer;
 import wikiscrape.queries.Queries;
 import wikiscrape.queries.QueryBuilder;
+import wikiscrape.utilities.AdaptiveBatchIterator;
+import wikiscrape.utilities.BatchExecutor;
 import wikiscrape.utilities.BatchIterator;
+import wikiscrape.utilities.CategoryCrawler;
+import wikiscrape.utilities.CheckpointJournal;
 import wikiscrape.utilities.JsonObjectParser;
+import wikiscrape.utilities.PageCursor;
+import wikiscrape.utilities.PageIDList;
+import wikiscrape.utilities.PageIDSet;
+import wikiscrape.utilities.PageStateIndex;
+import wikiscrape.utilities.PageStreamParser;
+import wikiscrape.utilities.PipelineStage;
 import wikiscrape.utilities.QueryIterator;
+import wikiscrape.utilities.RecentChangesFeed;
 import wikiscrape.utilities.RequestManager;
 import wikiscrape.utilities.ScrapeConfig;
 import wikiscrape.utilities.ScrapeUtilities;
@@ -29,11 +57,30 @@ public class WikiScraper {
 	
 	// TODO: BIG TODO! Logging, very necessary!
 
-	// Unused!
-	// private static final int MAX_QUERY_SIZE = 50;
+	private static final int MAX_QUERY_SIZE = 50;
 	private static final int MAX_PLAINTEXT_EXTRACTS = 20;
 	private static final int MAX_WHOLE_ARTICLE_EXTRACTS = 1;
-	private static final int TIMEOUT_SECONDS = 5;
+	private static final int WRITER_QUEUE_CAPACITY = 1024;
+	private static final int FETCH_QUEUE_CAPACITY = 16;
+	private static final int TRANSFORM_QUEUE_CAPACITY = 256;
+	private static final int STATUS_INTERVAL_BATCHES = 20;
+	private static final int CHECKPOINT_INTERVAL_BATCHES = 50;
+	private static final int DICTIONARY_TRAINING_SAMPLES = 2000;
+	private static final int DICTIONARY_SIZE = 32 * 1024;
+	private static final int EXIT_INCOMPLETE = 1;
+	
+	private static final String ARGUMENT_RESUME = "--resume";
+	private static final String ARGUMENT_INCREMENTAL = "--incremental";
+	private static final String ARGUMENT_TRAIN_DICTIONARY = "--train-dictionary";
+	private static final String PHASE_PAGES = "pages";
+	private static final String PHASE_REVISIONS = "revisions";
+	private static final String PHASE_PAGEDATA = "pagedata";
+	private static final String PHASE_EXTRACTS = "extracts";
+	
+	// The revisions pass only reads each page's ID and revision; anything else in a response is skipped unparsed
+	private static final BiPredicate<String, JsonObject> REVISIONS_FIELDS = (fieldName, page) -> {
+		return fieldName.equals(Queries.FIELD_PAGEID) || fieldName.equals(Queries.FIELD_REVISIONS) || fieldName.equals(Queries.FIELD_MISSING);
+	};
 
 	public static void main(String[] passedArguments) {
 
@@ -41,30 +88,106 @@ public class WikiScraper {
 		ScrapeConfig configuration = getConfig("config.json");
 		RequestManager scraper = new RequestManager(configuration.getWikiURL());
 		QueryBuilder query = Queries.GET_PAGES.clone();
+		boolean resume = Arrays.asList(passedArguments).contains(ARGUMENT_RESUME);
+		boolean incremental = Arrays.asList(passedArguments).contains(ARGUMENT_INCREMENTAL);
+		Path syncStatePath = Paths.get(configuration.getSyncStatePath());
+		boolean complete = true;
 
-		try {
-			SQLInterface sqlInterface = new SQLInterface(configuration.getSQLURL(), configuration.getTableName(), configuration.getUsername(), configuration.getPassword());
-			HashMap<String,String> databaseMap = new HashMap<String, String>();
-			ArrayList<String> updatesList = new ArrayList<String>();
+		try (CheckpointJournal journal = new CheckpointJournal(Paths.get(configuration.getJournalPath()), resume);
+				SQLInterface sqlInterface = new SQLInterface(configuration.getSQLURL(), configuration.getTableName(), configuration.getUsername(), configuration.getPassword());
+				SQLWriterPool writerPool = new SQLWriterPool(configuration.getSQLURL(), configuration.getTableName(), configuration.getUsername(), configuration.getPassword(), configuration.getWriterThreads(), WRITER_QUEUE_CAPACITY);
+				PageStateIndex stateIndex = new PageStateIndex(Paths.get(configuration.getStateIndexPath()))) {
+			TextCodec textCodec = configuration.getCompressText() ? getTextCodec(configuration) : null;
+			sqlInterface.setTextCodec(textCodec);
+			writerPool.setTextCodec(textCodec);
+			if (Arrays.asList(passedArguments).contains(ARGUMENT_TRAIN_DICTIONARY)) {
+				trainDictionary(sqlInterface, configuration);
+				return;
+			}
+			if ((textCodec != null) && !checkTextColumns(sqlInterface, configuration)) {
+				return;
+			}
+			WriteBehindBuffer writeBuffer = new WriteBehindBuffer(writerPool);
+			// A page is recorded as up to date by the flush writing the last of its data, so that a crash keeps the pages already written
+			writeBuffer.setWrittenListener((pageID) -> commitPage(stateIndex, pageID));
+			// Edits made after this point will be picked up by the next incremental run; a resumed run keeps the time the original run started
+			Instant started = journal.getStarted();
+			if (started == null) {
+				started = Instant.now().minus(RecentChangesFeed.SKEW_MARGIN);
+				journal.stageStarted(started);
+			}
+			// Both are written by pipeline worker threads
+			PageIDSet updatesSet = new PageIDSet();
+			PageIDSet changedSet = new PageIDSet();
 
-			// Build page update map from database
-			populateDatabaseMap(databaseMap, sqlInterface);			
+			// Only scan the table if the page state index no longer matches it
+			if (!stateIndex.isConsistent(sqlInterface.count())) {
+				rebuildStateIndex(stateIndex, sqlInterface);
+			}
+			// Revision IDs found by an interrupted run supersede the stored ones, as the data of their pages has already been written
+			journal.getPendingRevisions().forEach((pageID, revisionID) -> stateIndex.stage(Long.parseLong(pageID), Long.parseLong(revisionID)));
 			
 			// Get pages from Categories listings
-			buildPagesList(scraper, sqlInterface, configuration.getCategoryPages(), updatesList, databaseMap);
-
-			// Get Revisions, Titles, Categories
-			updatePageData(query, scraper, sqlInterface, updatesList, databaseMap);
+			if (journal.isPhaseComplete(PHASE_PAGES)) {
+				updatesSet.addAll(PageIDSet.fromStrings(journal.getPages()));
+			}
+			else {
+				Instant highWater = incremental ? RecentChangesFeed.readHighWater(syncStatePath) : null;
+				if ((highWater != null) && RecentChangesFeed.isWithinFeed(highWater)) {
+					// Only tracked pages edited since the last run need refetching
+					updatesSet.addAll(PageIDSet.fromStrings(new RecentChangesFeed(scraper).getChangedPages(highWater, (pageID) -> stateIndex.contains(Long.parseLong(pageID)))));
+				}
+				else {
+					if (incremental) {
+						System.out.println(String.format("No high-water mark within the last %d days; performing a full scrape", RecentChangesFeed.MAX_AGE.toDays()));
+					}
+					complete = buildPagesList(scraper, configuration, writerPool, updatesSet, stateIndex);
+				}
+				// A partial list is not recorded, so that a resume lists pages again rather than finish the run without the missing ones
+				if (complete) {
+					journal.stagePages(updatesSet);
+					journal.stagePhase(PHASE_PAGES);
+				}
+				journal.checkpoint(writerPool::executeBatch);
+			}
+			if (complete) {
+				System.out.println(String.format("Pages to update: %s", updatesSet));
 
-			// Redownload text extracts
-			updateExtracts(query, scraper, sqlInterface, updatesList);
+				// Each phase runs only once those before it are complete, as it works from the pages they found
+				// Get Revisions, to find which pages changed; pages found changed by an interrupted run are those with a pending revision
+				changedSet.addAll(PageIDSet.fromStrings(journal.getPendingRevisions().keySet()));
+				complete = updateRevisions(query, scraper, configuration, journal, writeBuffer, updatesSet, changedSet, stateIndex)
+						// Get Titles, Categories, and Intro text extracts of changed pages
+						&& updatePageData(query, scraper, configuration, journal, writeBuffer, changedSet, stateIndex)
+						// Redownload text extracts of changed pages
+						&& updateExtracts(query, scraper, configuration, journal, writeBuffer, changedSet, stateIndex);
 			
-			// TODO: Get "year" data into database somehow.
-			
-			// Push new revision IDs to database
-			for (String iteratedPageID : updatesList) {
-				if (databaseMap.containsKey(iteratedPageID)) {
-					sqlInterface.updateRaw(databaseMap.get(iteratedPageID), iteratedPageID, EnumEntry.REVISION_ID);
+				// TODO: Get "year" data into database somehow.
+			}
+			if (!complete) {
+				// Pages whose last batch did not finish keep their revision IDs pending, so that they are not taken as up to date before all their data is written
+				System.out.println("Some requests failed; rerun with --resume to retry them");
+			}
+			else {
+				// Every changed page was completed, and committed once written, as its last batch finished; a page whose writes failed is left to be fetched again
+				boolean written = Arrays.stream(writeBuffer.flush()).noneMatch((result) -> result == Statement.EXECUTE_FAILED);
+				// Includes writes that failed at earlier checkpoints
+				Set<String> failedPages = writeBuffer.getFailedPages();
+				failedPages.addAll(writerPool.takeFailedPages());
+				written = written && failedPages.isEmpty();
+				System.out.println(String.format("Skipped %d writes of unchanged text (%d characters)", stateIndex.getSkippedWrites(), stateIndex.getSkippedCharacters()));
+				if (textCodec != null) {
+					System.out.println(textCodec);
+				}
+				stateIndex.force();
+				journal.complete();
+				// Edits to pages whose data was not written must be seen again by the next incremental run
+				if (written) {
+					RecentChangesFeed.writeHighWater(syncStatePath, started);
+				}
+				else {
+					System.out.println(String.format("Writes to %d pages failed; the high-water mark was left as it was", failedPages.size()));
+					complete = false;
 				}
 			}
 		}
@@ -73,71 +196,131 @@ public class WikiScraper {
 			passedException.printStackTrace();
 			return; // If the SQLInterface fails, there's no point in continuing
 		}
+		catch (IOException passedException) {
+			passedException.printStackTrace();
+			return; // Without the journal, progress can't be kept safe
+		}
+		if (!complete) {
+			System.exit(EXIT_INCOMPLETE);
+		}
 	}
 	
 	/* Logic Methods */
 	
-	private static void populateDatabaseMap(HashMap<String,String> passedDatabaseMap, SQLInterface passedSQLInterface) throws SQLException {
+	private static TextCodec getTextCodec(ScrapeConfig passedConfig) throws IOException {
+		Path dictionaryPath = Paths.get(passedConfig.getDictionaryPath());
+		return Files.exists(dictionaryPath) ? TextCodec.load(dictionaryPath) : TextCodec.getDefault();
+	}
+	
+	private static void trainDictionary(SQLInterface passedSQLInterface, ScrapeConfig passedConfig) throws SQLException, IOException {
+		Path dictionaryPath = Paths.get(passedConfig.getDictionaryPath());
+		if (Files.exists(dictionaryPath)) {
+			// Values already compressed with it would become unreadable
+			System.out.println(String.format("A dictionary already exists at %s; move it aside to train a new one", dictionaryPath));
+			return;
+		}
+		// Pages in no particular order; any sample of articles will do
+		List<String> samples = new ArrayList<String>();
+		ResultSet results = passedSQLInterface.selectSample(EnumEntry.TEXT_FULL, DICTIONARY_TRAINING_SAMPLES);
+		if (results == null) {
+			throw new SQLException("Could not read articles to train a dictionary on");
+		}
+		while ((samples.size() < DICTIONARY_TRAINING_SAMPLES) && results.next()) {
+			String text = passedSQLInterface.readText(results, 1, EnumEntry.TEXT_FULL);
+			if (text != null) {
+				samples.add(text);
+			}
+		}
+		results.close();
+		TextCodec.train(samples, DICTIONARY_SIZE).save(dictionaryPath);
+		System.out.println(String.format("Trained a dictionary on %d articles; saved to %s", samples.size(), dictionaryPath));
+	}
+	
+	private static boolean checkTextColumns(SQLInterface passedSQLInterface, ScrapeConfig passedConfig) throws SQLException {
+		// Compressed text is bound as bytes, which a text column would reject or mangle
+		List<EnumEntry> textColumns = passedSQLInterface.findTextColumns();
+		for (EnumEntry iteratedEntry : textColumns) {
+			System.out.println(String.format("Column %s of table %s must be changed to a binary type such as %s before text can be stored compressed", iteratedEntry.getEntryName(), passedConfig.getTableName(), iteratedEntry.getSQLType(true)));
+		}
+		return textColumns.isEmpty();
+	}
+	
+	private static void rebuildStateIndex(PageStateIndex passedStateIndex, SQLInterface passedSQLInterface) throws SQLException, IOException {
+		System.out.println("Page state index does not match the database; rebuilding it from the table");
+		passedStateIndex.clear();
 		ResultSet results = passedSQLInterface.select(EnumEntry.PAGE_ID, EnumEntry.REVISION_ID);
+		if (results == null) {
+			throw new SQLException("Could not read the table to rebuild the page state index");
+		}
 		while (results.next()) {
-			String pageID = results.getString(0);
-			String revisionID = results.getString(1);
-			passedDatabaseMap.put(pageID, revisionID);
+			long pageID = results.getLong(1);
+			long revisionID = results.getLong(2);
+			passedStateIndex.store(pageID, results.wasNull() ? -1L : revisionID, 0L); // Pages inserted but never updated have no revision yet
 		}
+		passedStateIndex.force();
 	}
 	
-	private static void buildPagesList(RequestManager passedRequestManager, SQLInterface passedSQLInterface, String[] passedCategoryPages, List<String> passedUpdatesList, HashMap<String,String> passedDatabaseMap) {
+	private static boolean buildPagesList(RequestManager passedRequestManager, ScrapeConfig passedConfig, BatchWriter passedWriter, PageIDSet passedUpdatesSet, PageStateIndex passedStateIndex) throws IOException {
+		PageIDList insertedList = new PageIDList();
 		// Use links from https://en.wikipedia.org/wiki/Category:Video_games_by_year
-		QueryBuilder query = Queries.LIST_CATEGORYMEMBERS;
-		QueryBuilder categoryTitleOption = new QueryBuilder(Queries.ARGUMENT_CATEGORYMEMBERS_TITLE);
-		for (String iteratedString : passedCategoryPages) {
-			categoryTitleOption.setArguments(new Argument(iteratedString));
-			final Predicate<String> pageFilter = (pageTitle) -> {
-				// TODO: Page title filtering. Possibly add different filter modes or exclusions.
-				return true;
-			};
-			final BiConsumer<String, JsonObject> updatePopulator = (pageID, object) -> {
-				String discoveredPageID = object.get(Queries.FIELD_PAGEID).getAsString();
-				String discoveredPageTitle = object.get(Queries.FIELD_PAGETITLE).getAsString();
-				if (pageFilter.test(discoveredPageTitle)) {
-					passedUpdatesList.add(discoveredPageID);
-					passedDatabaseMap.put(discoveredPageID, "-1"); // Set "null" value; will be overwritten when page data is updated
-					passedSQLInterface.insertRaw(discoveredPageID, EnumEntry.PAGE_ID);
+		final Predicate<String> pageFilter = (pageTitle) -> {
+			// TODO: Page title filtering. Possibly add different filter modes or exclusions.
+			return true;
+		};
+		final BiConsumer<String, String> updatePopulator = (discoveredPageID, discoveredPageTitle) -> {
+			if (pageFilter.test(discoveredPageTitle)) {
+				long pageID = Long.parseLong(discoveredPageID);
+				passedUpdatesSet.add(pageID);
+				// Add pages not yet tracked with their title, which only refreshes the title of a row already in the database; the rest is filled in when page data is updated
+				if (passedStateIndex.stageIfAbsent(pageID, -1L)) {
+					TableEntry entry = new TableEntry(new String[EnumEntry.values().length]);
+					entry.setEntry(EnumEntry.PAGE_ID, discoveredPageID);
+					entry.setEntry(EnumEntry.TITLE, discoveredPageTitle);
+					passedWriter.batchUpsert(entry, EnumEntry.TITLE);
+					insertedList.add(pageID);
 				}
-			};
-			iterateOverQuery(passedRequestManager, query, updatePopulator, Queries.FIELD_CATEGORYMEMBERS);
+			}
+		};
+		CategoryCrawler crawler = new CategoryCrawler(passedRequestManager, passedConfig.getCategoryDepth(), passedConfig.getCrawlThreads());
+		boolean crawled = crawler.crawl(passedConfig.getCategoryPages(), updatePopulator);
+		passedWriter.executeBatch();
+		Set<String> failedPages = passedWriter.takeFailedPages();
+		for (int iterator = 0; iterator < insertedList.size(); iterator++) {
+			if (!failedPages.contains(String.valueOf(insertedList.getLong(iterator)))) {
+				passedStateIndex.commit(insertedList.getLong(iterator), 0L);
+			}
 		}
+		return crawled;
+	}
+	
+	private static boolean updateRevisions(QueryBuilder passedQuery, RequestManager passedRequestManager, ScrapeConfig passedConfig, CheckpointJournal passedJournal, WriteBehindBuffer passedWriteBuffer, PageIDSet passedUpdatesSet, PageIDSet passedChangedSet, PageStateIndex passedStateIndex) {
+		passedQuery.setOptions(getRevisionsQuery());
+		final BiConsumer<String, JsonObject> revisionsPopulator = (pageID, object) -> {
+			if (object.has(Queries.FIELD_REVISIONS) && !isUnchanged(object, passedStateIndex)) {
+				/* 
+				 * Defer revision ID push to database until all of the page's data has been fetched.
+				 * 
+				 * Reason: if there's an issue and the app crashes and the RevisionID is stored before the page's data, the database will have
+				 * old data keyed to the new revision ID.
+				 */
+				long discoveredPageID = object.get(Queries.FIELD_PAGEID).getAsLong();
+				long discoveredRevisionID = getRevisionID(object);
+				passedStateIndex.stage(discoveredPageID, discoveredRevisionID);
+				passedJournal.stageRevision(pageID, String.valueOf(discoveredRevisionID));
+				passedChangedSet.add(discoveredPageID);
+			}
+			// If the revision ID matches the stored value, assume no further changes; therefore no database updates needed
+		};
+		return updatePagesUsing(passedRequestManager, passedConfig, passedJournal, PHASE_REVISIONS, passedQuery, passedWriteBuffer, passedUpdatesSet, revisionsPopulator, REVISIONS_FIELDS, null, MAX_QUERY_SIZE); // Revisions carry no extracts, so the full ID limit applies
 	}
 	
-	private static void updatePageData(QueryBuilder passedQuery, RequestManager passedRequestManager, SQLInterface passedSQLInterface, List<String> passedUpdatesList, HashMap<String,String> passedDatabaseMap) {
+	private static boolean updatePageData(QueryBuilder passedQuery, RequestManager passedRequestManager, ScrapeConfig passedConfig, CheckpointJournal passedJournal, WriteBehindBuffer passedWriteBuffer, PageIDSet passedChangedSet, PageStateIndex passedStateIndex) {
 		passedQuery.setOptions(getCombinedQuery());
 		final BiConsumer<String, JsonObject> categoriesPopulator = (pageID, object) -> {
-			// Get Revisions
-			if (object.has(Queries.FIELD_PAGEID) && object.has(Queries.FIELD_REVISIONS)) {
-				String discoveredPageID = object.get(Queries.FIELD_PAGEID).getAsString();
-				String discoveredRevisionID = object.getAsJsonArray(Queries.FIELD_REVISIONS).get(0).getAsJsonObject().get(Queries.FIELD_REVID).getAsString();
-				String storedRevisionID = passedDatabaseMap.get(discoveredPageID);
-
-				if (!storedRevisionID.equals(discoveredRevisionID)) {
-					/* 
-					 * Defer revision ID push to database until very end.
-					 * 
-					 * Reason: if there's an issue and the app crashes and the RevisionID is stored before scrape completes, the database will have
-					 * old data keyed to the new revision ID.
-					 */
-					passedDatabaseMap.put(pageID, discoveredRevisionID);
-					passedUpdatesList.add(discoveredPageID);
-				}
-				else {
-					// If the revision ID matches the stored value, assume no further changes; therefore no database updates needed
-					return;
-				}
-			}
-			
 			// Get Titles
 			if (object.has(Queries.FIELD_PAGETITLE)) {
 				String discoveredPageTitle = object.get(Queries.FIELD_PAGETITLE).getAsString();
-				passedSQLInterface.updateRaw(discoveredPageTitle, pageID, EnumEntry.TITLE);
+				passedWriteBuffer.put(pageID, EnumEntry.TITLE, discoveredPageTitle);
 			}
 			
 			// Get Categories
@@ -146,32 +329,90 @@ public class WikiScraper {
 				JsonArray categoriesArray = object.getAsJsonArray(Queries.FIELD_CATEGORIES);
 				String[] categories = new String[categoriesArray.size()];
 				for (int iterator = 0; iterator < categoriesArray.size(); iterator++) {
-					String categoriesString = categoriesArray.getAsJsonObject().get(Queries.FIELD_PAGETITLE).getAsString();
+					String categoriesString = categoriesArray.get(iterator).getAsJsonObject().get(Queries.FIELD_PAGETITLE).getAsString();
 					categoriesString = categoriesString.substring("Category:".length()); // prune "Category:" from each returned category "title"
 					categories[iterator] = categoriesString;
 				}
 				String concatenatedCategories = ScrapeUtilities.concatenateArguments(categories); // Concatenate using "|" sandwiched between
-				passedSQLInterface.updateRaw(concatenatedCategories, pageID, EnumEntry.CATEGORIES);
+				putIfChanged(passedWriteBuffer, passedStateIndex, pageID, EnumEntry.CATEGORIES, concatenatedCategories);
 			}
 			
 			// Get Intro text extracts
 			if (object.has(Queries.FIELD_EXTRACT)) {
 				String extracts = object.get(Queries.FIELD_EXTRACT).getAsString();
-				passedSQLInterface.updateRaw(extracts, pageID, EnumEntry.TEXT_INTRO);
+				putIfChanged(passedWriteBuffer, passedStateIndex, pageID, EnumEntry.TEXT_INTRO, extracts);
 			}
 		};
-		updatePagesUsing(passedRequestManager, passedQuery, passedUpdatesList, categoriesPopulator, MAX_PLAINTEXT_EXTRACTS); // Since this query gets introtext extracts, use max for plaintext extracts
+		return updatePagesUsing(passedRequestManager, passedConfig, passedJournal, PHASE_PAGEDATA, passedQuery, passedWriteBuffer, passedChangedSet, categoriesPopulator, null, null, MAX_PLAINTEXT_EXTRACTS); // Since this query gets introtext extracts, use max for plaintext extracts
 	}
 	
-	private static void updateExtracts(QueryBuilder passedQuery, RequestManager passedRequestManager, SQLInterface passedSQLInterface, List<String> passedUpdatesList) {
+	private static boolean updateExtracts(QueryBuilder passedQuery, RequestManager passedRequestManager, ScrapeConfig passedConfig, CheckpointJournal passedJournal, WriteBehindBuffer passedWriteBuffer, PageIDSet passedChangedSet, PageStateIndex passedStateIndex) {
 		passedQuery.setOptions(getPagetextQuery());
 		final BiConsumer<String, JsonObject> extractsPopulator = (pageID, object) -> {
 			if (object.has(Queries.FIELD_EXTRACT)) {
 				String extracts = object.get(Queries.FIELD_EXTRACT).getAsString();
-				passedSQLInterface.updateRaw(extracts, pageID, EnumEntry.TEXT_FULL);
+				putIfChanged(passedWriteBuffer, passedStateIndex, pageID, EnumEntry.TEXT_FULL, extracts);
 			}
 		};
-		updatePagesUsing(passedRequestManager, passedQuery, passedUpdatesList, extractsPopulator, MAX_WHOLE_ARTICLE_EXTRACTS);
+		// The last phase; each page's data is complete once its batch is, and is written with its new revision ID
+		final Consumer<String> pageCompleter = (pageID) -> {
+			long discoveredPageID = Long.parseLong(pageID);
+			if (passedStateIndex.contains(discoveredPageID)) {
+				passedWriteBuffer.put(pageID, EnumEntry.REVISION_ID, String.valueOf(passedStateIndex.getRevision(discoveredPageID)));
+			}
+			passedWriteBuffer.complete(pageID);
+		};
+		return updatePagesUsing(passedRequestManager, passedConfig, passedJournal, PHASE_EXTRACTS, passedQuery, passedWriteBuffer, passedChangedSet, extractsPopulator, null, pageCompleter, MAX_WHOLE_ARTICLE_EXTRACTS);
+	}
+	
+	/**
+	 * Stores the revision ID and content hashes staged for the passed page, now that the database holds them.
+	 * 
+	 * @param passedStateIndex - The {@link PageStateIndex} to commit the page in
+	 * @param passedPageID - The ID of the written page
+	 * @throws UncheckedIOException If the index could not be written, failing the flush that wrote the page
+	 */
+	private static void commitPage(PageStateIndex passedStateIndex, String passedPageID) {
+		try {
+			passedStateIndex.commit(Long.parseLong(passedPageID), System.currentTimeMillis());
+		}
+		catch (IOException passedException) {
+			throw new UncheckedIOException(passedException);
+		}
+	}
+	
+	/**
+	 * Buffers the passed value for writing, unless the database already holds the same value; see {@link PageStateIndex#stageContent(long, EnumEntry, String)}.
+	 * 
+	 * @param passedWriteBuffer - The {@link WriteBehindBuffer} to buffer the value in
+	 * @param passedStateIndex - The {@link PageStateIndex} holding the hash of each stored value
+	 * @param passedPageID - The ID of the page
+	 * @param passedEntry - The column to write
+	 * @param passedValue - The newly fetched value
+	 */
+	private static void putIfChanged(WriteBehindBuffer passedWriteBuffer, PageStateIndex passedStateIndex, String passedPageID, EnumEntry passedEntry, String passedValue) {
+		if (passedStateIndex.stageContent(Long.parseLong(passedPageID), passedEntry, passedValue)) {
+			passedWriteBuffer.put(passedPageID, passedEntry, passedValue);
+		}
+	}
+	
+	/**
+	 * Returns whether the passed page JSON carries the same revision ID as is stored for that page.
+	 * 
+	 * @param passedPageObject - The page JSON, which must already contain its page ID and revisions fields
+	 * @param passedStateIndex - The {@link PageStateIndex} holding each page's revision ID
+	 * @return Whether the page is known to be unchanged; {@code false} if its revision has not been read yet.
+	 */
+	private static boolean isUnchanged(JsonObject passedPageObject, PageStateIndex passedStateIndex) {
+		if (passedPageObject.has(Queries.FIELD_PAGEID) && passedPageObject.has(Queries.FIELD_REVISIONS)) {
+			long storedRevisionID = passedStateIndex.getRevision(passedPageObject.get(Queries.FIELD_PAGEID).getAsLong());
+			return getRevisionID(passedPageObject) == storedRevisionID;
+		}
+		return false;
+	}
+	
+	private static long getRevisionID(JsonObject passedPageObject) {
+		return passedPageObject.getAsJsonArray(Queries.FIELD_REVISIONS).get(0).getAsJsonObject().get(Queries.FIELD_REVID).getAsLong();
 	}
 	
 	/**
@@ -180,50 +421,208 @@ public class WikiScraper {
 	 * It is up to the passed {@link BiConsumer<String, JsonObject>} to perform any operations necessary
 	 * per element in the array; one call to {@link BiConsumer#accept(Object, Object)} is performed per element in the greater JSON object. Whatever the program needs to do with the data in the
 	 * JSON element in the array needs to happen in that {@link BiConsumer<String, JsonObject>}.
+	 * <p>
+	 * The work runs as a pipeline of bounded stages: a fetch stage issues one query per batch of PageIDs and streams the returned elements into a
+	 * transform stage, which runs the {@link BiConsumer<String, JsonObject>}; the writes it produces are applied by the {@link SQLWriterPool}'s writer threads.
+	 * The {@link BiConsumer<String, JsonObject>} may therefore be called from several threads at once, and must be thread safe.
+	 * <p>
+	 * If a batch concurrency is configured, the fetch stage is replaced by a {@link BatchExecutor}, which runs each batch and its continuations as a task
+	 * of its own; otherwise a fixed number of fetch threads work through the batches.
+	 * <p>
+	 * Progress is recorded in the passed {@link CheckpointJournal} as each response is processed, and checkpointed periodically. Batches that an
+	 * interrupted run completed are skipped, and batches it left part way through are resumed from their last continuation. The phase is only
+	 * recorded as complete if no batch failed; a batch fails if any of its requests, or any page it returned, fails to be processed, and is
+	 * then left unrecorded from that response on, so that a resume retries it.
 	 * 
 	 * @param passedRequestManager - The {@link RequestManager} instance to use for the operation
+	 * @param passedConfig - The {@link ScrapeConfig} specifying the parallelism of each stage
+	 * @param passedJournal - The {@link CheckpointJournal} to record progress in
+	 * @param passedPhaseName - The name of the phase, used in status output and to record progress
 	 * @param passedQuery - The {@link QueryBuilder} to use for querying
-	 * @param passedUpdatesList - A {@link List<String>} containing all the PageIDs that require updates
+	 * @param passedWriteBuffer - The {@link WriteBehindBuffer} to flush at each checkpoint
+	 * @param passedUpdatesSet - A {@link PageIDSet} containing all the PageIDs that require updates
 	 * @param passedJSONConsumer - A {@link BiConsumer<String, JsonObject>} that will operate on each returned element in the greater returned JSON object
-	 * @param passedQueryBatchSize - The number of PageIDs to poll for each query
+	 * @param passedFieldFilter - A {@link BiPredicate<String, JsonObject>} deciding which fields of each returned element are read, or {@code null} to read every field
+	 * @param passedPageCompleter - A {@link Consumer<String>} called with each page of a batch once the whole batch has been processed, before it is recorded, or {@code null}
+	 * @param passedQueryBatchSize - The maximum number of PageIDs to poll for each query; batches are sized within it by an {@link AdaptiveBatchIterator}
+	 * @return Whether the phase is complete.
 	 */
-	private static void updatePagesUsing(RequestManager passedRequestManager, QueryBuilder passedQuery, List<String> passedUpdatesList, BiConsumer<String, JsonObject> passedJSONConsumer, int passedQueryBatchSize) {
-		BatchIterator<String> iterator = new BatchIterator<String>(passedUpdatesList, passedQueryBatchSize);
-		for (List<String> iteratedList : iterator) {
-			Argument[] pages = ScrapeUtilities.fromStrings(iteratedList);
-			passedQuery.setArguments(pages);
-			iterateOverQuery(passedRequestManager, passedQuery, passedJSONConsumer, Queries.FIELD_PAGES);
+	private static boolean updatePagesUsing(RequestManager passedRequestManager, ScrapeConfig passedConfig, CheckpointJournal passedJournal, String passedPhaseName, QueryBuilder passedQuery, WriteBehindBuffer passedWriteBuffer, PageIDSet passedUpdatesSet, BiConsumer<String, JsonObject> passedJSONConsumer, BiPredicate<String, JsonObject> passedFieldFilter, Consumer<String> passedPageCompleter, int passedQueryBatchSize) {
+		if (passedJournal.isPhaseComplete(passedPhaseName)) {
+			return true;
 		}
+		// Batches left part way through by an interrupted run go first, from where they stopped
+		List<Batch> resumedBatches = new ArrayList<Batch>();
+		PageIDSet skippedPages = PageIDSet.fromStrings(passedJournal.getCompletedPages(passedPhaseName));
+		passedJournal.getContinuations(passedPhaseName).forEach((batchKey, continuation) -> {
+			List<String> batchPages = CheckpointJournal.fromKey(batchKey);
+			resumedBatches.add(new Batch(batchPages, continuation));
+			skippedPages.addAll(PageIDSet.fromStrings(batchPages));
+		});
+		// Snapshot the list, as the consumer may add to it while batches are still being read
+		PageIDSet pageIDs = passedUpdatesSet.copy();
+		pageIDs.removeAll(skippedPages);
+		// The remaining batches are sized as they are dispatched, from the cost of those already fetched
+		AdaptiveBatchIterator<Long> batchSizer = new AdaptiveBatchIterator<Long>(pageIDs.toList(), passedQueryBatchSize); // In ascending order, so each page is fetched once
+		
+		QueryBuilder[] options = passedQuery.hasOptions() ? passedQuery.getOptions().toArray(new QueryBuilder[] {}) : null;
+		final Runnable checkpoint = () -> passedJournal.checkpoint(passedWriteBuffer::flush);
+		long failed;
+		try (PipelineStage<Runnable> transformStage = new PipelineStage<Runnable>(passedPhaseName + "-transform", passedConfig.getTransformThreads(), TRANSFORM_QUEUE_CAPACITY, Runnable::run)) {
+			final Consumer<Batch> fetcher = (batch) -> {
+				// Progress is only recorded once every element of a response has been through the transform stage, so its writes are in the buffer
+				Semaphore transformed = new Semaphore(0);
+				AtomicInteger submitted = new AtomicInteger();
+				AtomicBoolean transformFailed = new AtomicBoolean();
+				final BiConsumer<String, JsonObject> transformer = (pageID, object) -> {
+					transformStage.submit(() -> {
+						try {
+							passedJSONConsumer.accept(pageID, object);
+						}
+						catch (RuntimeException passedException) {
+							transformFailed.set(true);
+							throw passedException;
+						}
+						finally {
+							transformed.release();
+						}
+					});
+					submitted.incrementAndGet();
+				};
+				final Consumer<String> progressRecorder = (continuation) -> {
+					transformed.acquireUninterruptibly(submitted.getAndSet(0));
+					if (transformFailed.get()) {
+						// Fails the batch before the response is recorded, so that a resume reads it again
+						throw new IllegalStateException(String.format("%s failed to transform a page of batch %s", passedPhaseName, batch.PAGES));
+					}
+					if (continuation != null) {
+						passedJournal.stageContinuation(passedPhaseName, batch.PAGES, continuation);
+					}
+					else {
+						if (passedPageCompleter != null) {
+							batch.PAGES.forEach(passedPageCompleter);
+						}
+						passedJournal.stageBatch(passedPhaseName, batch.PAGES);
+					}
+				};
+				PageStreamParser parser = iterateOverQuery(passedRequestManager, batch.QUERY, transformer, passedFieldFilter, Queries.FIELD_PAGES, batch.CONTINUATION, progressRecorder);
+				if (batch.CONTINUATION == null) {
+					// A resumed batch's responses don't cover all of it, so say nothing of its cost
+					batchSizer.record(batch.PAGES.size(), parser.getBytesDecoded(), parser.getLatency(), parser.getResponses() > 1);
+				}
+			};
+			if (passedConfig.getBatchConcurrency() > 0) {
+				// One task per batch, continuations included
+				try (BatchExecutor fetchExecutor = new BatchExecutor(passedPhaseName + "-fetch", passedConfig.getBatchConcurrency())) {
+					dispatchBatches(resumedBatches, batchSizer, options, (batch) -> fetchExecutor.submit(() -> fetcher.accept(batch)), checkpoint, fetchExecutor, transformStage);
+					fetchExecutor.awaitCompletion();
+					System.out.println(String.format("%s; %s", fetchExecutor, transformStage));
+					for (Throwable iteratedError : fetchExecutor.getErrors()) {
+						System.out.println(String.format("%s failed a batch: %s", passedPhaseName, iteratedError));
+					}
+					failed = fetchExecutor.getFailed();
+				}
+			}
+			else {
+				try (PipelineStage<Batch> fetchStage = new PipelineStage<Batch>(passedPhaseName + "-fetch", passedConfig.getFetchThreads(), FETCH_QUEUE_CAPACITY, fetcher)) {
+					dispatchBatches(resumedBatches, batchSizer, options, fetchStage::submit, checkpoint, fetchStage, transformStage);
+					fetchStage.awaitCompletion();
+					System.out.println(String.format("%s; %s", fetchStage, transformStage));
+					failed = fetchStage.getFailed();
+				}
+			}
+			// Every batch has recorded its progress by now, so every element has been through the transform stage
+		}
+		System.out.println(String.format("%s: %s", passedPhaseName, batchSizer));
+		if (failed == 0) {
+			passedJournal.stagePhase(passedPhaseName);
+		}
+		checkpoint.run();
+		return failed == 0;
 	}
 	
+	/**
+	 * Builds the query for each of the passed batches, then for each batch drawn from the passed {@link BatchIterator}, and hands each to the
+	 * passed fetch step, printing the status of the passed stages and running the passed checkpoint periodically.
+	 * <p>
+	 * Queries are built here so that fetch workers only ever read the shared options. Batches are drawn from the {@link BatchIterator} only as
+	 * the fetch step accepts them, so that an {@link AdaptiveBatchIterator} sizes each from the batches fetched before it.
+	 * 
+	 * @param passedBatches - The batches of PageIDs to fetch first
+	 * @param passedBatchIterator - The {@link BatchIterator} providing the remaining PageIDs to fetch
+	 * @param passedOptions - The options to attach to every query, or {@code null} for none
+	 * @param passedFetcher - The {@link Consumer} that queues each batch for fetching
+	 * @param passedCheckpoint - The checkpoint to run periodically
+	 * @param passedStages - The stages whose status to print
+	 */
+	private static void dispatchBatches(List<Batch> passedBatches, BatchIterator<Long> passedBatchIterator, QueryBuilder[] passedOptions, Consumer<Batch> passedFetcher, Runnable passedCheckpoint, Object... passedStages) {
+		int batches = 0;
+		Iterator<Batch> resumedIterator = passedBatches.iterator();
+		while (resumedIterator.hasNext() || passedBatchIterator.hasNext()) {
+			Batch iteratedBatch = resumedIterator.hasNext() ? resumedIterator.next() : new Batch(toStrings(passedBatchIterator.next()), null);
+			iteratedBatch.QUERY = new QueryBuilder(Queries.PAGES_BY_ID, ScrapeUtilities.fromStrings(iteratedBatch.PAGES), passedOptions);
+			iteratedBatch.QUERY.build();
+			passedFetcher.accept(iteratedBatch);
+			batches++;
+			if ((batches % STATUS_INTERVAL_BATCHES) == 0) {
+				System.out.println(ScrapeUtilities.concatenateStrings("; ", Arrays.stream(passedStages).map(String::valueOf).toArray(String[]::new)));
+			}
+			if ((batches % CHECKPOINT_INTERVAL_BATCHES) == 0) {
+				passedCheckpoint.run();
+			}
+		}
+	}
+
 	/**
 	 * Method to automatically iterated over a JSON array returned within another JSON object. 
 	 * <p>
 	 * It is up to the passed {@link BiConsumer<String, JsonObject>} to perform any operations necessary
 	 * per element in the array; one call to {@link BiConsumer#accept(Object, Object)} is performed per element in the greater JSON object. Whatever the program needs to do with the data in the
 	 * JSON element in the array needs to happen in that {@link BiConsumer<String, JsonObject>}.
+	 * <p>
+	 * Elements are streamed to the {@link BiConsumer<String, JsonObject>} one at a time as each response arrives, rather than being parsed into a
+	 * single tree first. Only the fields accepted by the passed field filter are read into each element; see {@link PageCursor}.
 	 * 
 	 * @param passedRequestManager - The {@link RequestManager} instance to use for the operation
 	 * @param passedQuery - The {@link QueryBuilder} to use for querying
 	 * @param passedJSONConsumer - A {@link BiConsumer<String, JsonObject>} that will operate on each returned element in the greater returned JSON object
+	 * @param passedFieldFilter - A {@link BiPredicate<String, JsonObject>} deciding which fields of each element are read, or {@code null} to read every field
 	 * @param passedJSONArrayName - The name key of the JSON Array to operate on within the greater JSON object returned by the query specified by {@code passedQuery}.
+	 * @param passedContinuation - The continuation to resume the query from, or {@code null} to start from the beginning
+	 * @param passedProgressConsumer - A {@link Consumer<String>} told, after each response, the continuation the query has reached; {@code null} once it is complete
+	 * @return The {@link PageStreamParser} the responses were read with, which holds their number, size, and latency.
+	 * @throws IllegalStateException If a request fails, leaving the query incomplete.
 	 */
-	private static void iterateOverQuery(RequestManager passedRequestManager, QueryBuilder passedQuery, BiConsumer<String, JsonObject> passedJSONConsumer, String passedJSONArrayName) {
-		QueryIterator queryIterator = new QueryIterator(passedRequestManager, passedQuery, TIMEOUT_SECONDS);
-		for (JsonObject returnedJson : queryIterator) {
-			JsonArray returnedJsonArray = returnedJson.getAsJsonObject(Queries.FIELD_QUERY).getAsJsonArray(passedJSONArrayName);
-			for (JsonElement iteratedElement : returnedJsonArray) {
-				JsonObject object = iteratedElement.getAsJsonObject();
-				if (!object.has(Queries.FIELD_MISSING)) {
-					String discoveredPageID = object.get(Queries.FIELD_PAGEID).getAsString();
-					passedJSONConsumer.accept(discoveredPageID, object);
-				}
-				else {
-					// TODO: Additional handling? What to do if page is missing?
-					System.out.println(String.format("Page with id [%d] is missing!", iteratedElement.getAsJsonObject().get(Queries.FIELD_PAGEID)));
-				}
+	private static PageStreamParser iterateOverQuery(RequestManager passedRequestManager, QueryBuilder passedQuery, BiConsumer<String, JsonObject> passedJSONConsumer, BiPredicate<String, JsonObject> passedFieldFilter, String passedJSONArrayName, String passedContinuation, Consumer<String> passedProgressConsumer) {
+		final Consumer<JsonObject> pageConsumer = (object) -> {
+			if (!object.has(Queries.FIELD_MISSING)) {
+				String discoveredPageID = object.get(Queries.FIELD_PAGEID).getAsString();
+				passedJSONConsumer.accept(discoveredPageID, object);
+			}
+			else {
+				// TODO: Additional handling? What to do if page is missing?
+				System.out.println(String.format("Page with id [%s] is missing!", object.get(Queries.FIELD_PAGEID)));
+			}
+		};
+		PageStreamParser parser = new PageStreamParser(passedJSONArrayName, passedFieldFilter, pageConsumer);
+		QueryIterator queryIterator = new QueryIterator(passedRequestManager, passedQuery, parser, passedContinuation);
+		while (queryIterator.hasNext()) {
+			String continuation = queryIterator.getContinuation();
+			// Elements are handed to the consumer while each response is read
+			if (queryIterator.next() == null) {
+				throw new IllegalStateException(String.format("Query \"%s\" failed at continuation \"%s\"", passedQuery.build(), continuation));
 			}
+			passedProgressConsumer.accept(queryIterator.getContinuation());
 		}
+		return parser;
+	}
+	
+	private static List<String> toStrings(List<Long> passedPageIDs) {
+		List<String> strings = new ArrayList<String>(passedPageIDs.size());
+		for (Long iteratedPageID : passedPageIDs) {
+			strings.add(String.valueOf(iteratedPageID));
+		}
+		return strings;
 	}
 	
 	/**
@@ -244,16 +643,27 @@ public class WikiScraper {
 	}
 	
 	/**
-	 * Returns a {@link QueryBuilder} instance that combines requests for categories, revisions, and the page's intro text extract.
+	 * Returns a {@link QueryBuilder} instance that requests the ID of a page's latest revision, and nothing else.
 	 * 
-	 * @return A combined query of categories, revisions, and introtext.
+	 * @return A revisions query.
+	 */
+	private static QueryBuilder getRevisionsQuery() {
+		QueryBuilder query = Queries.newWith(Queries.GET_PROPERTIES, Queries.REVISIONS);
+		QueryBuilder revisionOptions = Queries.newWith(Queries.OPTION_REVISIONS, Queries.REVISION_IDS);
+		query.setOptions(Queries.OPTION_FORMAT_JSON, revisionOptions);
+		return query;
+	}
+	
+	/**
+	 * Returns a {@link QueryBuilder} instance that combines requests for categories and the page's intro text extract.
+	 * 
+	 * @return A combined query of categories and introtext.
 	 */
 	private static QueryBuilder getCombinedQuery() {
-		QueryBuilder query = Queries.newWith(Queries.GET_PROPERTIES, Queries.CATEGORIES, Queries.REVISIONS, Queries.EXTRACTS);
-		QueryBuilder revisionOptions = Queries.newWith(Queries.OPTION_REVISIONS, Queries.REVISION_FLAGS, Queries.REVISION_IDS, Queries.REVISION_SIZE);
+		QueryBuilder query = Queries.newWith(Queries.GET_PROPERTIES, Queries.CATEGORIES, Queries.EXTRACTS);
 		QueryBuilder introTextOptions = Queries.newWith(Queries.OPTION_EXTRACT_PLAINTEXT, Queries.newWith(Queries.OPTION_SECTIONFORMAT, Queries.ARGUMENT_SECTIONFORMAT_RAW));
 		introTextOptions.setOptions(Queries.OPTION_EXTRACT_INTRO);
-		query.setOptions(Queries.OPTION_FORMAT_JSON, revisionOptions, introTextOptions);
+		query.setOptions(Queries.OPTION_FORMAT_JSON, introTextOptions);
 		return query;
 	}
 
@@ -268,4 +678,18 @@ public class WikiScraper {
 		extracts.setOptions(Queries.OPTION_FORMAT_JSON, extractOptions);
 		return extracts;
 	}
+
+	/* Internal Classes */
+	
+	private static class Batch {
+		
+		private final List<String> PAGES;
+		private final String CONTINUATION;
+		private QueryBuilder QUERY;
+		
+		private Batch(List<String> passedPages, String passedContinuation) {
+			this.PAGES = passedPages;
+			this.CONTINUATION = passedContinuation;
+		}
+	}
 }
@@ -25,6 +25,15 @@ public class Queries {
 	public static final String FIELD_PAGETITLE = "title";
 	public static final String FIELD_CATEGORIES = "categories";
 	public static final String FIELD_CATEGORYMEMBERS = "categorymembers";
+	public static final String FIELD_ERROR = "error";
+	public static final String FIELD_CODE = "code";
+	public static final String FIELD_MAXLAG = "maxlag";
+	public static final String FIELD_NAMESPACE = "ns";
+	public static final String FIELD_RECENTCHANGES = "recentchanges";
+	
+	// Known Namespaces
+	public static final int NAMESPACE_MAIN = 0;
+	public static final int NAMESPACE_CATEGORY = 14;
 	
 	// Known Actions
 	public static final String ACTION_QUERY = "action=query";
@@ -51,6 +60,22 @@ public class Queries {
 	public static final Argument ARGUMENT_LIST = new Argument("list");
 	public static final Argument ARGUMENT_LIST_CATEGORYMEMBERS = new Argument(FIELD_CATEGORYMEMBERS);
 	public static final Argument ARGUMENT_CATEGORYMEMBERS_TITLE = new Argument("cmtitle");
+	public static final Argument ARGUMENT_CATEGORYMEMBERS_TYPE = new Argument("cmtype");
+	public static final Argument ARGUMENT_CATEGORYMEMBERS_LIMIT = new Argument("cmlimit");
+	public static final Argument ARGUMENT_TYPE_PAGE = new Argument("page");
+	public static final Argument ARGUMENT_TYPE_SUBCATEGORY = new Argument("subcat");
+	public static final Argument ARGUMENT_LIMIT_MAX = new Argument("max");
+	public static final Argument ARGUMENT_LIST_RECENTCHANGES = new Argument(FIELD_RECENTCHANGES);
+	public static final Argument ARGUMENT_RECENTCHANGES_START = new Argument("rcstart");
+	public static final Argument ARGUMENT_RECENTCHANGES_DIRECTION = new Argument("rcdir");
+	public static final Argument ARGUMENT_RECENTCHANGES_PROPERTIES = new Argument("rcprop");
+	public static final Argument ARGUMENT_RECENTCHANGES_TYPE = new Argument("rctype");
+	public static final Argument ARGUMENT_RECENTCHANGES_NAMESPACE = new Argument("rcnamespace");
+	public static final Argument ARGUMENT_RECENTCHANGES_LIMIT = new Argument("rclimit");
+	public static final Argument ARGUMENT_DIRECTION_NEWER = new Argument("newer");
+	public static final Argument ARGUMENT_PROPERTY_IDS = new Argument("ids");
+	public static final Argument ARGUMENT_TYPE_EDIT = new Argument("edit");
+	public static final Argument ARGUMENT_TYPE_NEW = new Argument("new");
 	
 	public static final Argument REVISIONS = new Argument(FIELD_REVISIONS, FIELD_REVISIONS);
 	
@@ -68,6 +93,7 @@ public class Queries {
 	public static final QueryBuilder OPTION_CONTINUE = new QueryBuilder(FIELD_CONTINUE, FIELD_CONTINUE);
 	
 	public static final QueryBuilder LIST_CATEGORYMEMBERS = new QueryBuilder(ARGUMENT_LIST).setArguments(ARGUMENT_LIST_CATEGORYMEMBERS);
+	public static final QueryBuilder LIST_RECENTCHANGES = new QueryBuilder(ARGUMENT_LIST).setArguments(ARGUMENT_LIST_RECENTCHANGES);
 	
 	/**
 	 * Convenience Factory method that {@link #clone()}s the passed {@link QueryBuilder} and calls {@link QueryBuilder#setOptions(QueryBuilder...)} on it.
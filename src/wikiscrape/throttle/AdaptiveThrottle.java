@@ -0,0 +1,134 @@
+package wikiscrape.throttle;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Throttle} implementation combining a token bucket (limiting the request rate) with AIMD concurrency control (limiting the
+ * number of requests in flight).
+ * <p>
+ * While the server responds promptly, both the request rate and the concurrency limit grow additively. When the server signals load,
+ * whether through a {@code maxlag} error, an overload status, a missing response or a latency above the configured target, both are
+ * cut multiplicatively. A {@code Retry-After} header additionally suspends all requests until the requested time has passed.
+ */
+public class AdaptiveThrottle implements Throttle {
+
+	private static final double BACKOFF_FACTOR = 0.5D;
+	private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	private final double MIN_RATE;
+	private final double MAX_RATE;
+	private final int MAX_CONCURRENCY;
+	private final long TARGET_LATENCY_NANOS;
+
+	private double RATE;
+	private double TOKENS;
+	private double CONCURRENCY;
+	private int IN_FLIGHT = 0;
+	private long LAST_REFILL;
+	private long LAST_BACKOFF;
+	private long PAUSED_UNTIL;
+
+	/**
+	 * Creates a new {@link AdaptiveThrottle} using the passed parameters.
+	 * <p>
+	 * The throttle starts at the minimum rate with a concurrency limit of one, and grows from there.
+	 *
+	 * @param passedMinRate - The lowest request rate to back off to, in requests per second
+	 * @param passedMaxRate - The highest request rate to grow to, in requests per second
+	 * @param passedMaxConcurrency - The highest number of requests that may be in flight at once
+	 * @param passedTargetLatencyMillis - The response latency above which the server is considered to be under load
+	 * @throws IllegalArgumentException - If any rate or limit is not positive, or if {@code passedMinRate} exceeds {@code passedMaxRate}.
+	 */
+	public AdaptiveThrottle(double passedMinRate, double passedMaxRate, int passedMaxConcurrency, long passedTargetLatencyMillis) {
+		if ((passedMinRate <= 0) || (passedMaxRate < passedMinRate) || (passedMaxConcurrency <= 0) || (passedTargetLatencyMillis <= 0)) {
+			throw new IllegalArgumentException("Throttle rates and limits must be positive, and the minimum rate may not exceed the maximum");
+		}
+		this.MIN_RATE = passedMinRate;
+		this.MAX_RATE = passedMaxRate;
+		this.MAX_CONCURRENCY = passedMaxConcurrency;
+		this.TARGET_LATENCY_NANOS = TimeUnit.MILLISECONDS.toNanos(passedTargetLatencyMillis);
+
+		this.RATE = passedMinRate;
+		this.TOKENS = 1.0D;
+		this.CONCURRENCY = 1.0D;
+		this.LAST_REFILL = System.nanoTime();
+		this.LAST_BACKOFF = this.LAST_REFILL;
+		this.PAUSED_UNTIL = this.LAST_REFILL;
+	}
+
+	@Override
+	public synchronized void acquire() throws InterruptedException {
+		while (true) {
+			long now = System.nanoTime();
+			this.refill(now);
+			if (now - this.PAUSED_UNTIL < 0) {
+				TimeUnit.NANOSECONDS.timedWait(this, this.PAUSED_UNTIL - now);
+			}
+			else if (this.IN_FLIGHT >= (int) this.CONCURRENCY) {
+				this.wait();
+			}
+			else if (this.TOKENS < 1.0D) {
+				TimeUnit.NANOSECONDS.timedWait(this, Math.max(1L, (long) ((1.0D - this.TOKENS) / this.RATE * NANOS_PER_SECOND)));
+			}
+			else {
+				this.TOKENS -= 1.0D;
+				this.IN_FLIGHT++;
+				return;
+			}
+		}
+	}
+
+	@Override
+	public synchronized void release(ThrottleFeedback passedFeedback) {
+		long now = System.nanoTime();
+		this.refill(now);
+		this.IN_FLIGHT--;
+		if (passedFeedback.getRetryAfterSeconds() > 0) {
+			long resumeTime = now + TimeUnit.SECONDS.toNanos(passedFeedback.getRetryAfterSeconds());
+			if (resumeTime - this.PAUSED_UNTIL > 0) {
+				this.PAUSED_UNTIL = resumeTime;
+			}
+		}
+		if (passedFeedback.isOverloaded() || (passedFeedback.getLatencyNanos() > this.TARGET_LATENCY_NANOS)) {
+			// Only back off once per latency window, so that a burst of slow responses to concurrent requests counts as a single signal
+			if (now - this.LAST_BACKOFF >= this.TARGET_LATENCY_NANOS) {
+				this.RATE = Math.max(this.MIN_RATE, this.RATE * BACKOFF_FACTOR);
+				this.CONCURRENCY = Math.max(1.0D, this.CONCURRENCY * BACKOFF_FACTOR);
+				this.LAST_BACKOFF = now;
+			}
+		}
+		else {
+			// Grows by one whole unit per "window" of successful responses
+			this.RATE = Math.min(this.MAX_RATE, this.RATE + (this.MIN_RATE / this.CONCURRENCY));
+			this.CONCURRENCY = Math.min(this.MAX_CONCURRENCY, this.CONCURRENCY + (1.0D / this.CONCURRENCY));
+		}
+		this.notifyAll();
+	}
+
+	/**
+	 * Returns the request rate this {@link AdaptiveThrottle} currently allows.
+	 *
+	 * @return The current rate, in requests per second.
+	 */
+	public synchronized double getRate() {
+		return this.RATE;
+	}
+
+	/**
+	 * Returns the number of concurrent requests this {@link AdaptiveThrottle} currently allows.
+	 *
+	 * @return The current concurrency limit.
+	 */
+	public synchronized int getConcurrency() {
+		return (int) this.CONCURRENCY;
+	}
+
+	/* Internal Methods */
+
+	private void refill(long passedNow) {
+		double elapsedSeconds = (double) (passedNow - this.LAST_REFILL) / NANOS_PER_SECOND;
+		// Bucket holds at most one second's worth of requests, so an idle period cannot be followed by a large burst
+		this.TOKENS = Math.min(Math.max(1.0D, this.RATE), this.TOKENS + (elapsedSeconds * this.RATE));
+		this.LAST_REFILL = passedNow;
+	}
+}
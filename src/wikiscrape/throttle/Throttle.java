@@ -0,0 +1,24 @@
+package wikiscrape.throttle;
+
+/**
+ * Interface for objects that govern how quickly requests may be sent to a wiki host.
+ * <p>
+ * Every call to {@link #acquire()} must be matched by exactly one call to {@link #release(ThrottleFeedback)} once the
+ * corresponding request has completed, whether or not it succeeded.
+ */
+public interface Throttle {
+
+	/**
+	 * Blocks until a request may be sent under this {@link Throttle}.
+	 *
+	 * @throws InterruptedException If the calling thread is interrupted while waiting
+	 */
+	public void acquire() throws InterruptedException;
+
+	/**
+	 * Signals to this {@link Throttle} that a request obtained through {@link #acquire()} has completed.
+	 *
+	 * @param passedFeedback - A {@link ThrottleFeedback} describing how the server responded to the request
+	 */
+	public void release(ThrottleFeedback passedFeedback);
+}
@@ -0,0 +1,92 @@
+package wikiscrape.throttle;
+
+/**
+ * Immutable description of how a server responded to a single request, for use by a {@link Throttle}.
+ */
+public class ThrottleFeedback {
+
+	/**
+	 * Status code used when no HTTP response was received at all, i.e. due to a timeout or a dropped connection.
+	 */
+	public static final int STATUS_NO_RESPONSE = -1;
+
+	private static final int STATUS_TOO_MANY_REQUESTS = 429;
+	private static final int STATUS_SERVICE_UNAVAILABLE = 503;
+
+	private final long LATENCY_NANOS;
+	private final int STATUS_CODE;
+	private final long RETRY_AFTER_SECONDS;
+	private final boolean LAGGED;
+
+	/**
+	 * Creates a new {@link ThrottleFeedback} instance using the passed parameters.
+	 *
+	 * @param passedLatencyNanos - The time taken for the request to complete, in nanoseconds
+	 * @param passedStatusCode - The HTTP status code of the response, or {@link #STATUS_NO_RESPONSE}
+	 * @param passedRetryAfterSeconds - The value of the response's {@code Retry-After} header in seconds, or zero if absent
+	 * @param passedLagged - Whether the wiki rejected the request with a {@code maxlag} error
+	 */
+	public ThrottleFeedback(long passedLatencyNanos, int passedStatusCode, long passedRetryAfterSeconds, boolean passedLagged) {
+		this.LATENCY_NANOS = passedLatencyNanos;
+		this.STATUS_CODE = passedStatusCode;
+		this.RETRY_AFTER_SECONDS = passedRetryAfterSeconds;
+		this.LAGGED = passedLagged;
+	}
+
+	/**
+	 * Returns the time taken for the request to complete.
+	 *
+	 * @return The request latency, in nanoseconds.
+	 */
+	public long getLatencyNanos() {
+		return this.LATENCY_NANOS;
+	}
+
+	/**
+	 * Returns the HTTP status code of the response.
+	 *
+	 * @return The status code, or {@link #STATUS_NO_RESPONSE} if no response was received.
+	 */
+	public int getStatusCode() {
+		return this.STATUS_CODE;
+	}
+
+	/**
+	 * Returns the delay requested by the server through its {@code Retry-After} header.
+	 *
+	 * @return The requested delay in seconds, or zero if none was requested.
+	 */
+	public long getRetryAfterSeconds() {
+		return this.RETRY_AFTER_SECONDS;
+	}
+
+	/**
+	 * Returns whether the wiki rejected the request because its database replication lag exceeded {@code maxlag}.
+	 *
+	 * @return Whether a {@code maxlag} error was returned.
+	 */
+	public boolean isLagged() {
+		return this.LAGGED;
+	}
+
+	/**
+	 * Returns whether the server explicitly asked for the request to be retried later, either through a {@code maxlag} error or an
+	 * HTTP status indicating overload.
+	 *
+	 * @return Whether the request should be retried.
+	 */
+	public boolean shouldRetry() {
+		return this.LAGGED || (this.STATUS_CODE == STATUS_TOO_MANY_REQUESTS) || (this.STATUS_CODE == STATUS_SERVICE_UNAVAILABLE);
+	}
+
+	/**
+	 * Returns whether this {@link ThrottleFeedback} indicates that the server is under load and requests should be slowed.
+	 * <p>
+	 * A response that arrived, but could not be read or parsed, fails its request without indicating load.
+	 *
+	 * @return Whether the server appears to be overloaded.
+	 */
+	public boolean isOverloaded() {
+		return this.shouldRetry() || (this.STATUS_CODE == STATUS_NO_RESPONSE);
+	}
+}
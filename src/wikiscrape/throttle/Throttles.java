@@ -0,0 +1,54 @@
+package wikiscrape.throttle;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Registry of {@link Throttle} instances, keyed by host, so that every request made to the same wiki shares a single {@link Throttle}.
+ */
+public class Throttles {
+
+	// Defaults are deliberately polite: start at one request per second and never exceed ten
+	private static final double DEFAULT_MIN_RATE = 1.0D;
+	private static final double DEFAULT_MAX_RATE = 10.0D;
+	private static final int DEFAULT_MAX_CONCURRENCY = 4;
+	private static final long DEFAULT_TARGET_LATENCY_MILLIS = 2000L;
+
+	private static final Function<String, Throttle> DEFAULT_FACTORY = (host) -> {
+		return new AdaptiveThrottle(DEFAULT_MIN_RATE, DEFAULT_MAX_RATE, DEFAULT_MAX_CONCURRENCY, DEFAULT_TARGET_LATENCY_MILLIS);
+	};
+	private static final Map<String, Throttle> THROTTLES = new ConcurrentHashMap<String, Throttle>();
+
+	private Throttles() {
+	};
+
+	/**
+	 * Returns the {@link Throttle} shared by all requests to the passed host, creating a default {@link AdaptiveThrottle} if none exists yet.
+	 *
+	 * @param passedHost - The host to obtain a {@link Throttle} for (i.e. "en.wikipedia.org")
+	 * @return The {@link Throttle} for that host.
+	 */
+	public static Throttle forHost(String passedHost) {
+		return THROTTLES.computeIfAbsent(normalize(passedHost), DEFAULT_FACTORY);
+	}
+
+	/**
+	 * Installs the passed {@link Throttle} for the passed host, replacing any existing one.
+	 * <p>
+	 * This should be done before any requests are made to that host, as requests already holding a permit from the previous
+	 * {@link Throttle} will release it there.
+	 *
+	 * @param passedHost - The host to install the {@link Throttle} for
+	 * @param passedThrottle - The {@link Throttle} to install
+	 */
+	public static void setForHost(String passedHost, Throttle passedThrottle) {
+		THROTTLES.put(normalize(passedHost), passedThrottle);
+	}
+
+	/* Logic Methods */
+
+	private static String normalize(String passedHost) {
+		return passedHost.trim().toLowerCase();
+	}
+}
@@ -0,0 +1,192 @@
+package wikiscrape.utilities;
+
+import java.util.List;
+
+/**
+ * {@link BatchIterator} whose batch size is adjusted between batches, from the observed cost of the batches already issued.
+ * <p>
+ * After each batch's query completes, its total response size, total latency, and whether the server truncated it (i.e. had to be continued,
+ * as when {@code exlimit} or {@code cllimit} is exceeded) are passed to {@link #record(int, long, long, boolean)}. A truncated batch halves
+ * the batch size. Otherwise, the average size and latency per element, smoothed over recent batches, give the largest batch that would stay
+ * within the target response size and latency; the batch size drops to that at once, or grows towards it by a quarter at a time. The batch
+ * size never exceeds the maximum passed at construction, which should be the most elements the query accepts.
+ * <p>
+ * Batches may be recorded from other threads while this iterator is being iterated.
+ *
+ * @param <T>
+ */
+public class AdaptiveBatchIterator<T> extends BatchIterator<T> {
+
+	/**
+	 * The default target size of a single batch's responses, in bytes.
+	 */
+	public static final long DEFAULT_TARGET_BYTES = 2L * 1024L * 1024L;
+
+	/**
+	 * The default target latency of a single batch's responses, in nanoseconds.
+	 */
+	public static final long DEFAULT_TARGET_LATENCY = 2000000000L;
+
+	private static final double SMOOTHING = 0.25D;
+	private static final int GROWTH_DIVISOR = 4;
+	private static final String STATUS_STRING = "Batch size %d of at most %d: %d batches recorded, %d truncated, %d increases, %d decreases; %.0f bytes and %.1f ms per element";
+
+	private final int MAX_BATCH_SIZE;
+	private final long TARGET_BYTES;
+	private final long TARGET_LATENCY;
+	private int BATCH_SIZE;
+	private double BYTES_PER_ELEMENT = -1D;
+	private double LATENCY_PER_ELEMENT = -1D;
+	private long RECORDED = 0;
+	private long TRUNCATED = 0;
+	private long INCREASES = 0;
+	private long DECREASES = 0;
+
+	/**
+	 * Constructs a new {@link AdaptiveBatchIterator} instance using the default targets.
+	 * <p>
+	 * The first batch is of the maximum size.
+	 *
+	 * @param passedGenerationList - The list to back this {@link AdaptiveBatchIterator} with
+	 * @param passedMaxBatchSize - The maximum batch size to use
+	 * @throws IllegalArgumentException - If {@code passedMaxBatchSize} is less than or equal to zero.
+	 */
+	public AdaptiveBatchIterator(List<T> passedGenerationList, int passedMaxBatchSize) {
+		this(passedGenerationList, passedMaxBatchSize, DEFAULT_TARGET_BYTES, DEFAULT_TARGET_LATENCY);
+	}
+
+	/**
+	 * Constructs a new {@link AdaptiveBatchIterator} instance using the passed targets.
+	 * <p>
+	 * The first batch is of the maximum size.
+	 *
+	 * @param passedGenerationList - The list to back this {@link AdaptiveBatchIterator} with
+	 * @param passedMaxBatchSize - The maximum batch size to use
+	 * @param passedTargetBytes - The target size of a single batch's responses, in bytes
+	 * @param passedTargetLatency - The target latency of a single batch's responses, in nanoseconds
+	 * @throws IllegalArgumentException - If {@code passedMaxBatchSize} or either target is less than or equal to zero.
+	 */
+	public AdaptiveBatchIterator(List<T> passedGenerationList, int passedMaxBatchSize, long passedTargetBytes, long passedTargetLatency) {
+		super(passedGenerationList, passedMaxBatchSize);
+		if ((passedTargetBytes <= 0) || (passedTargetLatency <= 0)) {
+			throw new IllegalArgumentException("Targets must be greater than zero");
+		}
+		this.MAX_BATCH_SIZE = passedMaxBatchSize;
+		this.TARGET_BYTES = passedTargetBytes;
+		this.TARGET_LATENCY = passedTargetLatency;
+		this.BATCH_SIZE = passedMaxBatchSize;
+	}
+
+	/**
+	 * Records the cost of a completed batch, and adjusts the size of the batches that follow.
+	 *
+	 * @param passedBatchSize - The number of elements in the batch
+	 * @param passedBytes - The total size of the batch's responses, in bytes
+	 * @param passedLatency - The total latency of the batch's responses, in nanoseconds
+	 * @param passedTruncated - Whether the server truncated the batch's results, requiring it to be continued
+	 */
+	public synchronized void record(int passedBatchSize, long passedBytes, long passedLatency, boolean passedTruncated) {
+		if (passedBatchSize <= 0) {
+			return;
+		}
+		this.RECORDED++;
+		this.BYTES_PER_ELEMENT = smooth(this.BYTES_PER_ELEMENT, (double) passedBytes / passedBatchSize);
+		this.LATENCY_PER_ELEMENT = smooth(this.LATENCY_PER_ELEMENT, (double) passedLatency / passedBatchSize); // Per-request overhead is charged to the elements, erring towards smaller batches
+
+		int nextSize;
+		if (passedTruncated) {
+			this.TRUNCATED++;
+			nextSize = this.BATCH_SIZE / 2;
+		}
+		else {
+			int fittingSize = Math.min(fit(this.TARGET_BYTES, this.BYTES_PER_ELEMENT), fit(this.TARGET_LATENCY, this.LATENCY_PER_ELEMENT));
+			if (fittingSize < this.BATCH_SIZE) {
+				nextSize = fittingSize;
+			}
+			else {
+				nextSize = Math.min(fittingSize, this.BATCH_SIZE + Math.max(1, this.BATCH_SIZE / GROWTH_DIVISOR));
+			}
+		}
+		nextSize = Math.max(1, Math.min(this.MAX_BATCH_SIZE, nextSize));
+		if (nextSize > this.BATCH_SIZE) {
+			this.INCREASES++;
+		}
+		else if (nextSize < this.BATCH_SIZE) {
+			this.DECREASES++;
+		}
+		this.BATCH_SIZE = nextSize;
+	}
+
+	/**
+	 * Returns the maximum batch size this {@link AdaptiveBatchIterator} may use.
+	 *
+	 * @return The maximum batch size.
+	 */
+	public int getMaxBatchSize() {
+		return this.MAX_BATCH_SIZE;
+	}
+
+	/**
+	 * Returns the number of batches recorded.
+	 *
+	 * @return The number of batches recorded.
+	 */
+	public synchronized long getRecorded() {
+		return this.RECORDED;
+	}
+
+	/**
+	 * Returns the number of recorded batches that the server truncated.
+	 *
+	 * @return The number of truncated batches.
+	 */
+	public synchronized long getTruncated() {
+		return this.TRUNCATED;
+	}
+
+	/**
+	 * Returns the number of times the batch size has been increased.
+	 *
+	 * @return The number of increases.
+	 */
+	public synchronized long getIncreases() {
+		return this.INCREASES;
+	}
+
+	/**
+	 * Returns the number of times the batch size has been decreased.
+	 *
+	 * @return The number of decreases.
+	 */
+	public synchronized long getDecreases() {
+		return this.DECREASES;
+	}
+
+	/* Supertype Override Methods */
+
+	@Override
+	public synchronized int getBatchSize() {
+		return this.BATCH_SIZE;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format(STATUS_STRING, this.BATCH_SIZE, this.MAX_BATCH_SIZE, this.RECORDED, this.TRUNCATED, this.INCREASES, this.DECREASES, Math.max(0D, this.BYTES_PER_ELEMENT), Math.max(0D, this.LATENCY_PER_ELEMENT) / 1000000D);
+	}
+
+	/* Logic Methods */
+
+	private static double smooth(double passedAverage, double passedSample) {
+		if (passedAverage < 0) {
+			return passedSample;
+		}
+		return passedAverage + (SMOOTHING * (passedSample - passedAverage));
+	}
+
+	private static int fit(long passedTarget, double passedPerElement) {
+		if (passedPerElement <= 0) {
+			return Integer.MAX_VALUE;
+		}
+		return (int) Math.min(Integer.MAX_VALUE, (long) (passedTarget / passedPerElement));
+	}
+}
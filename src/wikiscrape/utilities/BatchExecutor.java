@@ -0,0 +1,187 @@
+package wikiscrape.utilities;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs each submitted batch as its own task, with at most a fixed number of tasks running at once, and aggregates their outcome.
+ * <p>
+ * Tasks run on virtual threads where the runtime supports them (Java 21 and later), so thousands of I/O-bound batches may be waiting on the
+ * wiki at a negligible cost; on older runtimes they fall back to a pool of platform threads. {@link #submit(Runnable)} blocks while the
+ * concurrency limit is reached, so batches are not started faster than they complete.
+ * <p>
+ * One {@link BatchExecutor} is intended to cover one phase of a scrape: {@link #awaitCompletion()} waits for every submitted task, after which
+ * {@link #getCompleted()}, {@link #getFailed()} and {@link #getErrors()} describe the phase as a whole.
+ */
+public class BatchExecutor implements AutoCloseable {
+
+	private static final String VIRTUAL_EXECUTOR_METHOD = "newVirtualThreadPerTaskExecutor";
+	private static final String STATUS_STRING = "%s: %d running, %d completed, %d failed";
+	private static final String EXCEPTION_CLOSED = "May not submit work to a closed BatchExecutor";
+	private static final String EXCEPTION_INTERRUPTED = "Interrupted while waiting to submit work";
+	private static final int MAX_RETAINED_ERRORS = 100;
+
+	private final String NAME;
+	private final ExecutorService EXECUTOR;
+	private final int MAX_CONCURRENCY;
+	private final Semaphore PERMITS;
+	private final AtomicLong COMPLETED = new AtomicLong();
+	private final AtomicLong FAILED = new AtomicLong();
+	private final List<Throwable> ERRORS = Collections.synchronizedList(new ArrayList<Throwable>());
+	private volatile boolean CLOSED = false;
+
+	/**
+	 * Creates a new {@link BatchExecutor} running at most the passed number of tasks at once.
+	 *
+	 * @param passedName - The name of the phase this {@link BatchExecutor} runs, used in its status
+	 * @param passedMaxConcurrency - The maximum number of tasks that may run at once
+	 * @throws IllegalArgumentException If {@code passedMaxConcurrency} is less than or equal to zero.
+	 */
+	public BatchExecutor(String passedName, int passedMaxConcurrency) {
+		if (passedMaxConcurrency <= 0) {
+			throw new IllegalArgumentException("Concurrency limit must be greater than zero");
+		}
+		this.NAME = passedName;
+		this.EXECUTOR = newTaskExecutor();
+		this.MAX_CONCURRENCY = passedMaxConcurrency;
+		this.PERMITS = new Semaphore(passedMaxConcurrency);
+	}
+
+	/**
+	 * Starts the passed task, blocking until the number of running tasks is below the concurrency limit.
+	 * <p>
+	 * Any exception the task throws is recorded against this phase rather than propagated.
+	 *
+	 * @param passedTask - The task to run
+	 * @throws IllegalStateException If this {@link BatchExecutor} has been closed, or the calling thread is interrupted while waiting.
+	 */
+	public void submit(Runnable passedTask) {
+		if (this.CLOSED) {
+			throw new IllegalStateException(EXCEPTION_CLOSED);
+		}
+		try {
+			this.PERMITS.acquire();
+		}
+		catch (InterruptedException passedException) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(EXCEPTION_INTERRUPTED, passedException);
+		}
+		try {
+			this.EXECUTOR.execute(() -> this.run(passedTask));
+		}
+		catch (RejectedExecutionException passedException) {
+			this.PERMITS.release();
+			throw passedException;
+		}
+	}
+
+	/**
+	 * Returns the number of tasks currently running.
+	 *
+	 * @return The number of running tasks.
+	 */
+	public int getRunning() {
+		return this.MAX_CONCURRENCY - this.PERMITS.availablePermits();
+	}
+
+	/**
+	 * Returns the number of tasks that have completed without error.
+	 *
+	 * @return The number of completed tasks.
+	 */
+	public long getCompleted() {
+		return this.COMPLETED.get();
+	}
+
+	/**
+	 * Returns the number of tasks that threw an exception.
+	 *
+	 * @return The number of failed tasks.
+	 */
+	public long getFailed() {
+		return this.FAILED.get();
+	}
+
+	/**
+	 * Returns the exceptions thrown by failed tasks, in the order they failed. Only the first few failures are retained.
+	 *
+	 * @return A copy of the recorded exceptions.
+	 */
+	public List<Throwable> getErrors() {
+		synchronized (this.ERRORS) {
+			return new ArrayList<Throwable>(this.ERRORS);
+		}
+	}
+
+	/**
+	 * Stops this {@link BatchExecutor} accepting tasks, and waits for every submitted task to finish. Later calls return at once.
+	 * <p>
+	 * Tasks must not be submitted concurrently with this call.
+	 */
+	public void awaitCompletion() {
+		if (this.CLOSED) {
+			return;
+		}
+		this.CLOSED = true;
+		// Every running task holds a permit until it finishes
+		this.PERMITS.acquireUninterruptibly(this.MAX_CONCURRENCY);
+		this.PERMITS.release(this.MAX_CONCURRENCY);
+		this.EXECUTOR.shutdown();
+	}
+
+	/**
+	 * Equivalent to {@link #awaitCompletion()}.
+	 */
+	@Override
+	public void close() {
+		this.awaitCompletion();
+	}
+
+	@Override
+	public String toString() {
+		return String.format(STATUS_STRING, this.NAME, this.getRunning(), this.getCompleted(), this.getFailed());
+	}
+
+	/* Internal Methods */
+
+	private void run(Runnable passedTask) {
+		try {
+			passedTask.run();
+			this.COMPLETED.incrementAndGet();
+		}
+		catch (RuntimeException | Error passedException) {
+			this.FAILED.incrementAndGet();
+			if (this.ERRORS.size() < MAX_RETAINED_ERRORS) {
+				this.ERRORS.add(passedException);
+			}
+			passedException.printStackTrace();
+		}
+		finally {
+			this.PERMITS.release();
+		}
+	}
+
+	/* Logic Methods */
+
+	private static ExecutorService newTaskExecutor() {
+		// Looked up reflectively so that this still runs, on platform threads, before Java 21
+		try {
+			Method factory = Executors.class.getMethod(VIRTUAL_EXECUTOR_METHOD);
+			return (ExecutorService) factory.invoke(null);
+		}
+		catch (ReflectiveOperationException passedException) {
+			return Executors.newCachedThreadPool((runnable) -> {
+				Thread thread = new Thread(runnable);
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+}
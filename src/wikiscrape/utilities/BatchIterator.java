@@ -50,6 +50,15 @@ public class BatchIterator<T> implements Iterator<List<T>>, Iterable<List<T>>{
 		this(Arrays.asList(passedGenerationList), passedBatchSize);
 	}
 	
+	/**
+	 * Returns the size of the next {@link List} to be emitted, before truncation to the elements remaining.
+	 * 
+	 * @return The batch size.
+	 */
+	public int getBatchSize() {
+		return this.BATCH_SIZE;
+	}
+	
 	/* Iterator compliance methods */
 
 	@Override
@@ -59,7 +68,7 @@ public class BatchIterator<T> implements Iterator<List<T>>, Iterable<List<T>>{
 
 	@Override
 	public List<T> next() {
-		List<T> sublist = this.LIST.subList(this.INDEX, Math.min(this.INDEX + this.BATCH_SIZE, this.LIST.size()));
+		List<T> sublist = this.LIST.subList(this.INDEX, Math.min(this.INDEX + this.getBatchSize(), this.LIST.size()));
 		this.INDEX += sublist.size();
 		return sublist;
 	}
@@ -0,0 +1,188 @@
+package wikiscrape.utilities;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import com.google.gson.JsonObject;
+
+import wikiscrape.queries.Argument;
+import wikiscrape.queries.Queries;
+import wikiscrape.queries.QueryBuilder;
+
+/**
+ * Crawls the members of a set of wiki categories, reporting every page found exactly once.
+ * <p>
+ * Categories are traversed breadth first: the seed categories form the first level, and, up to the configured depth, the subcategories
+ * found on one level form the next. All categories on a level are listed in parallel. A page or subcategory reached through several
+ * categories is only reported, or listed, the first time it is reached; pages are tracked by ID in a bitmap, so the visited set costs one
+ * bit per page ID rather than an object per page.
+ */
+public class CategoryCrawler {
+
+	private static final String PHASE_NAME = "categories-%d";
+	private static final String ARTICLE_PATH = "/wiki/";
+	private static final String STATUS_STRING = "Listed %d categories to depth %d: %d pages found, %d duplicates skipped, %d listings failed";
+
+	private final RequestManager MANAGER_REFERENCE;
+	private final int MAX_DEPTH;
+	private final int MAX_CONCURRENCY;
+	private final BitSet VISITED_PAGES = new BitSet();
+	private final Set<String> VISITED_CATEGORIES = ConcurrentHashMap.newKeySet();
+	private final AtomicLong PAGES_FOUND = new AtomicLong();
+	private final AtomicLong DUPLICATES = new AtomicLong();
+
+	/**
+	 * Creates a new {@link CategoryCrawler} using the passed parameters.
+	 *
+	 * @param passedManager - The {@link RequestManager} to issue requests through
+	 * @param passedMaxDepth - The number of levels of subcategories to descend into; zero lists the seed categories alone
+	 * @param passedMaxConcurrency - The maximum number of categories to list at once
+	 * @throws IllegalArgumentException If {@code passedMaxDepth} is negative, or {@code passedMaxConcurrency} is less than or equal to zero.
+	 */
+	public CategoryCrawler(RequestManager passedManager, int passedMaxDepth, int passedMaxConcurrency) {
+		if ((passedMaxDepth < 0) || (passedMaxConcurrency <= 0)) {
+			throw new IllegalArgumentException("Depth must not be negative, and concurrency must be greater than zero");
+		}
+		this.MANAGER_REFERENCE = passedManager;
+		this.MAX_DEPTH = passedMaxDepth;
+		this.MAX_CONCURRENCY = passedMaxConcurrency;
+	}
+
+	/**
+	 * Crawls the passed categories, passing the ID and title of every page found to the passed {@link BiConsumer}.
+	 * <p>
+	 * The {@link BiConsumer} is called from several threads at once, and must be thread safe. It is called once per page, however many
+	 * categories the page belongs to, including across calls to this method on the same {@link CategoryCrawler}.
+	 *
+	 * @param passedCategories - The titles or article URLs of the categories to start from (i.e. "Category:1990 video games")
+	 * @param passedPageConsumer - The {@link BiConsumer} to receive the ID and title of each page found
+	 * @return Whether every category was listed in full; if not, pages of a failed category, and of the subcategories below it, may be missing.
+	 */
+	public boolean crawl(String[] passedCategories, BiConsumer<String, String> passedPageConsumer) {
+		List<String> level = new ArrayList<String>();
+		for (String iteratedCategory : passedCategories) {
+			String title = toTitle(iteratedCategory);
+			if (this.VISITED_CATEGORIES.add(normalize(title))) {
+				level.add(title);
+			}
+		}
+		int listed = 0;
+		long failed = 0;
+		for (int depth = 0; !level.isEmpty(); depth++) {
+			Set<String> nextLevel = ConcurrentHashMap.newKeySet();
+			boolean descend = depth < this.MAX_DEPTH;
+			try (BatchExecutor executor = new BatchExecutor(String.format(PHASE_NAME, depth), this.MAX_CONCURRENCY)) {
+				for (String iteratedCategory : level) {
+					// Built here, as building reads and caches the shared option instances
+					QueryBuilder query = getMembersQuery(iteratedCategory, descend);
+					query.build();
+					executor.submit(() -> this.listMembers(query, descend ? nextLevel : null, passedPageConsumer));
+				}
+				executor.awaitCompletion();
+				System.out.println(executor);
+				failed += executor.getFailed();
+			}
+			listed += level.size();
+			level = new ArrayList<String>(nextLevel);
+		}
+		System.out.println(String.format(STATUS_STRING, listed, this.MAX_DEPTH, this.getPagesFound(), this.getDuplicatesSkipped(), failed));
+		return failed == 0;
+	}
+
+	/**
+	 * Returns the number of distinct pages found so far.
+	 *
+	 * @return The number of pages found.
+	 */
+	public long getPagesFound() {
+		return this.PAGES_FOUND.get();
+	}
+
+	/**
+	 * Returns the number of times a page or subcategory was found again through another category, and skipped.
+	 *
+	 * @return The number of duplicates skipped.
+	 */
+	public long getDuplicatesSkipped() {
+		return this.DUPLICATES.get();
+	}
+
+	/* Internal Methods */
+
+	private void listMembers(QueryBuilder passedQuery, Set<String> passedNextLevel, BiConsumer<String, String> passedPageConsumer) {
+		final Consumer<JsonObject> memberConsumer = (object) -> {
+			String title = object.get(Queries.FIELD_PAGETITLE).getAsString();
+			if (object.get(Queries.FIELD_NAMESPACE).getAsInt() == Queries.NAMESPACE_CATEGORY) {
+				if (passedNextLevel != null) {
+					if (this.VISITED_CATEGORIES.add(normalize(title))) {
+						passedNextLevel.add(title);
+					}
+					else {
+						this.DUPLICATES.incrementAndGet();
+					}
+				}
+			}
+			else if (this.markVisited(object.get(Queries.FIELD_PAGEID).getAsInt())) {
+				this.PAGES_FOUND.incrementAndGet();
+				passedPageConsumer.accept(object.get(Queries.FIELD_PAGEID).getAsString(), title);
+			}
+			else {
+				this.DUPLICATES.incrementAndGet();
+			}
+		};
+		PageStreamParser parser = new PageStreamParser(Queries.FIELD_CATEGORYMEMBERS, null, memberConsumer);
+		QueryIterator queryIterator = new QueryIterator(this.MANAGER_REFERENCE, passedQuery, parser);
+		while (queryIterator.hasNext()) {
+			// Members are handed to the consumer while each response is read
+			if (queryIterator.next() == null) {
+				throw new IllegalStateException(String.format("Listing category members with \"%s\" failed", passedQuery.build()));
+			}
+		}
+	}
+
+	private boolean markVisited(int passedPageID) {
+		synchronized (this.VISITED_PAGES) {
+			if (this.VISITED_PAGES.get(passedPageID)) {
+				return false;
+			}
+			this.VISITED_PAGES.set(passedPageID);
+			return true;
+		}
+	}
+
+	/* Logic Methods */
+
+	private static QueryBuilder getMembersQuery(String passedCategory, boolean passedIncludeSubcategories) {
+		QueryBuilder title = new QueryBuilder(Queries.ARGUMENT_CATEGORYMEMBERS_TITLE).setArguments(new Argument(passedCategory));
+		QueryBuilder type = new QueryBuilder(Queries.ARGUMENT_CATEGORYMEMBERS_TYPE);
+		if (passedIncludeSubcategories) {
+			type.setArguments(Queries.ARGUMENT_TYPE_PAGE, Queries.ARGUMENT_TYPE_SUBCATEGORY);
+		}
+		else {
+			type.setArguments(Queries.ARGUMENT_TYPE_PAGE);
+		}
+		QueryBuilder limit = new QueryBuilder(Queries.ARGUMENT_CATEGORYMEMBERS_LIMIT).setArguments(Queries.ARGUMENT_LIMIT_MAX);
+		return Queries.newWith(Queries.LIST_CATEGORYMEMBERS, Queries.OPTION_FORMAT_JSON, title, type, limit);
+	}
+
+	private static String toTitle(String passedCategory) {
+		int index = passedCategory.indexOf(ARTICLE_PATH);
+		if (index < 0) {
+			return passedCategory.trim();
+		}
+		return URLDecoder.decode(passedCategory.substring(index + ARTICLE_PATH.length()), StandardCharsets.UTF_8).trim();
+	}
+
+	private static String normalize(String passedTitle) {
+		// The wiki treats underscores and spaces in titles alike
+		return passedTitle.trim().replace('_', ' ');
+	}
+}
@@ -0,0 +1,327 @@
+package wikiscrape.utilities;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Append-only journal of scrape progress, from which an interrupted run can be resumed.
+ * <p>
+ * The journal records the time the run started, the pages selected for update, the batches of each phase that have completed, the continuation reached by batches
+ * still in progress, and the revision IDs discovered but not yet written to the database. Progress is first staged in memory and only
+ * appended to the journal by {@link #checkpoint(Runnable)}, after the data it covers has been flushed to the database; a record in the
+ * journal therefore never claims more than the database holds. Each checkpoint is forced to disk, and a record torn by a crash part way
+ * through a write is ignored when the journal is read back.
+ * <p>
+ * Records are lines of tab-separated fields, the first naming the record type.
+ */
+public class CheckpointJournal implements AutoCloseable {
+
+	private static final String RECORD_STARTED = "STARTED";
+	private static final String RECORD_PAGE = "PAGE";
+	private static final String RECORD_BATCH = "BATCH";
+	private static final String RECORD_CONTINUE = "CONTINUE";
+	private static final String RECORD_REVISION = "REVISION";
+	private static final String RECORD_PHASE = "PHASE";
+	private static final String RECORD_COMPLETE = "COMPLETE";
+	private static final String SEPARATOR = "\t";
+	private static final String LINE_END = "\n";
+	private static final String KEY_SEPARATOR = ",";
+
+	private static final String RESUME_STRING = "Resuming from journal %s: %d pages, %d phases complete, %d revisions pending";
+
+	private final FileChannel CHANNEL;
+	private final StringBuilder STAGED = new StringBuilder();
+
+	// State read back from an earlier run
+	private Instant STARTED = null;
+	private final List<String> PAGES = new ArrayList<String>();
+	private final Set<String> COMPLETE_PHASES = new HashSet<String>();
+	private final Map<String, Set<String>> COMPLETE_PAGES = new HashMap<String, Set<String>>();
+	private final Map<String, Map<String, String>> CONTINUATIONS = new HashMap<String, Map<String, String>>();
+	private final Map<String, String> REVISIONS = new LinkedHashMap<String, String>();
+
+	/**
+	 * Opens the journal at the passed path.
+	 * <p>
+	 * If resuming, the progress recorded by an earlier, unfinished run is read back, and further progress is appended to it. Otherwise, or if
+	 * that run finished, the journal is started afresh.
+	 *
+	 * @param passedPath - The path of the journal file
+	 * @param passedResume - Whether to resume from the progress already recorded
+	 * @throws IOException If the journal could not be read or opened for writing
+	 */
+	public CheckpointJournal(Path passedPath, boolean passedResume) throws IOException {
+		long validLength = (passedResume && Files.exists(passedPath)) ? this.load(passedPath) : -1L;
+		if (validLength >= 0) {
+			// Drop any torn record, so that appended records start on a line of their own
+			this.CHANNEL = FileChannel.open(passedPath, StandardOpenOption.WRITE);
+			this.CHANNEL.truncate(validLength);
+			this.CHANNEL.position(validLength);
+			System.out.println(String.format(RESUME_STRING, passedPath, this.PAGES.size(), this.COMPLETE_PHASES.size(), this.REVISIONS.size()));
+		}
+		else {
+			this.clearState();
+			this.CHANNEL = FileChannel.open(passedPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+			this.CHANNEL.force(true);
+		}
+	}
+
+	/* Recording Methods */
+
+	/**
+	 * Stages a record of the time the run started.
+	 *
+	 * @param passedStarted - The time the run started
+	 */
+	public synchronized void stageStarted(Instant passedStarted) {
+		this.stage(RECORD_STARTED, passedStarted.toString());
+	}
+
+	/**
+	 * Stages a record of the passed page IDs having been selected for update.
+	 *
+	 * @param passedPageIDs - The IDs of the pages selected for update
+	 */
+	public synchronized void stagePages(PageIDSet passedPageIDs) {
+		passedPageIDs.forEach((pageID) -> this.stage(RECORD_PAGE, String.valueOf(pageID)));
+	}
+
+	/**
+	 * Stages a record of the passed batch having reached the passed continuation.
+	 *
+	 * @param passedPhase - The name of the phase the batch belongs to
+	 * @param passedBatch - The IDs of the pages in the batch
+	 * @param passedContinuation - The continuation of the batch's query, as returned by {@link QueryIterator#getContinuation()}
+	 */
+	public synchronized void stageContinuation(String passedPhase, List<String> passedBatch, String passedContinuation) {
+		this.stage(RECORD_CONTINUE, passedPhase, toKey(passedBatch), passedContinuation);
+	}
+
+	/**
+	 * Stages a record of the passed batch having completed.
+	 *
+	 * @param passedPhase - The name of the phase the batch belongs to
+	 * @param passedBatch - The IDs of the pages in the batch
+	 */
+	public synchronized void stageBatch(String passedPhase, List<String> passedBatch) {
+		this.stage(RECORD_BATCH, passedPhase, toKey(passedBatch));
+	}
+
+	/**
+	 * Stages a record of a new revision ID having been found for the passed page, whose write to the database is deferred to the end of the run.
+	 *
+	 * @param passedPageID - The ID of the page
+	 * @param passedRevisionID - The page's new revision ID
+	 */
+	public synchronized void stageRevision(String passedPageID, String passedRevisionID) {
+		this.stage(RECORD_REVISION, passedPageID, passedRevisionID);
+	}
+
+	/**
+	 * Stages a record of the passed phase having completed.
+	 *
+	 * @param passedPhase - The name of the completed phase
+	 */
+	public synchronized void stagePhase(String passedPhase) {
+		this.stage(RECORD_PHASE, passedPhase);
+	}
+
+	/**
+	 * Runs the passed flush, then appends every record staged before it started to the journal and forces the journal to disk.
+	 * <p>
+	 * Records staged while the flush runs are kept for the next checkpoint.
+	 *
+	 * @param passedFlush - The operation making all data covered by the staged records durable
+	 * @throws UncheckedIOException If the journal could not be written
+	 */
+	public void checkpoint(Runnable passedFlush) {
+		String records;
+		synchronized (this) {
+			records = this.STAGED.toString();
+			this.STAGED.setLength(0);
+		}
+		passedFlush.run();
+		this.append(records);
+	}
+
+	/**
+	 * Appends a record marking the run as finished, so that a later resume starts afresh.
+	 *
+	 * @throws UncheckedIOException If the journal could not be written
+	 */
+	public void complete() {
+		this.append(RECORD_COMPLETE + LINE_END);
+	}
+
+	/**
+	 * Closes the journal. Records staged since the last checkpoint are discarded.
+	 *
+	 * @throws IOException If the journal could not be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		this.CHANNEL.close();
+	}
+
+	/* Resume State Methods */
+
+	/**
+	 * Returns the time at which the run being resumed started.
+	 *
+	 * @return The recorded start time, or {@code null} if not resuming.
+	 */
+	public Instant getStarted() {
+		return this.STARTED;
+	}
+
+	/**
+	 * Returns the IDs of the pages recorded as selected for update by the run being resumed.
+	 *
+	 * @return A list of page IDs, empty if not resuming.
+	 */
+	public List<String> getPages() {
+		return this.PAGES;
+	}
+
+	/**
+	 * Returns whether the run being resumed completed the passed phase.
+	 *
+	 * @param passedPhase - The name of the phase
+	 * @return Whether the phase was recorded as complete.
+	 */
+	public boolean isPhaseComplete(String passedPhase) {
+		return this.COMPLETE_PHASES.contains(passedPhase);
+	}
+
+	/**
+	 * Returns the IDs of the pages in batches of the passed phase that the run being resumed completed.
+	 *
+	 * @param passedPhase - The name of the phase
+	 * @return A set of page IDs, empty if none.
+	 */
+	public Set<String> getCompletedPages(String passedPhase) {
+		return this.COMPLETE_PAGES.getOrDefault(passedPhase, new HashSet<String>());
+	}
+
+	/**
+	 * Returns the batches of the passed phase that the run being resumed left part way through, with the continuation each had reached.
+	 *
+	 * @param passedPhase - The name of the phase
+	 * @return A map from each batch's page IDs to its continuation, empty if none.
+	 */
+	public Map<String, String> getContinuations(String passedPhase) {
+		return this.CONTINUATIONS.getOrDefault(passedPhase, new HashMap<String, String>());
+	}
+
+	/**
+	 * Returns the revision IDs found by the run being resumed that had not yet been written to the database.
+	 *
+	 * @return A map of revision IDs keyed by page ID, empty if none.
+	 */
+	public Map<String, String> getPendingRevisions() {
+		return this.REVISIONS;
+	}
+
+	/**
+	 * Returns the page IDs making up a batch, from the key used for it by {@link #getContinuations(String)}.
+	 *
+	 * @param passedKey - The batch key
+	 * @return The IDs of the pages in the batch.
+	 */
+	public static List<String> fromKey(String passedKey) {
+		return Arrays.asList(passedKey.split(KEY_SEPARATOR));
+	}
+
+	/* Internal Methods */
+
+	private void stage(String... passedFields) {
+		this.STAGED.append(String.join(SEPARATOR, passedFields)).append(LINE_END);
+	}
+
+	private synchronized void append(String passedRecords) {
+		if (passedRecords.isEmpty()) {
+			return;
+		}
+		try {
+			ByteBuffer buffer = ByteBuffer.wrap(passedRecords.getBytes(StandardCharsets.UTF_8));
+			while (buffer.hasRemaining()) {
+				this.CHANNEL.write(buffer);
+			}
+			this.CHANNEL.force(false);
+		}
+		catch (IOException passedException) {
+			throw new UncheckedIOException(passedException);
+		}
+	}
+
+	private long load(Path passedPath) throws IOException {
+		byte[] contents = Files.readAllBytes(passedPath);
+		// A final line without its line end was torn by a crash, and is ignored
+		int end = contents.length;
+		while ((end > 0) && (contents[end - 1] != '\n')) {
+			end--;
+		}
+		if (end == 0) {
+			return -1L;
+		}
+		for (String iteratedLine : new String(contents, 0, end - 1, StandardCharsets.UTF_8).split(LINE_END)) {
+			String[] fields = iteratedLine.split(SEPARATOR);
+			switch (fields[0]) {
+				case RECORD_STARTED:
+					this.STARTED = Instant.parse(fields[1]);
+					break;
+				case RECORD_PAGE:
+					this.PAGES.add(fields[1]);
+					break;
+				case RECORD_BATCH:
+					this.COMPLETE_PAGES.computeIfAbsent(fields[1], (phase) -> new HashSet<String>()).addAll(fromKey(fields[2]));
+					this.CONTINUATIONS.computeIfAbsent(fields[1], (phase) -> new HashMap<String, String>()).remove(fields[2]);
+					break;
+				case RECORD_CONTINUE:
+					this.CONTINUATIONS.computeIfAbsent(fields[1], (phase) -> new HashMap<String, String>()).put(fields[2], fields[3]);
+					break;
+				case RECORD_REVISION:
+					this.REVISIONS.put(fields[1], fields[2]);
+					break;
+				case RECORD_PHASE:
+					this.COMPLETE_PHASES.add(fields[1]);
+					break;
+				case RECORD_COMPLETE:
+					return -1L; // The last run finished; there is nothing to resume
+				default:
+					break;
+			}
+		}
+		return end;
+	}
+
+	private void clearState() {
+		this.STARTED = null;
+		this.PAGES.clear();
+		this.COMPLETE_PHASES.clear();
+		this.COMPLETE_PAGES.clear();
+		this.CONTINUATIONS.clear();
+		this.REVISIONS.clear();
+	}
+
+	/* Logic Methods */
+
+	private static String toKey(List<String> passedBatch) {
+		return String.join(KEY_SEPARATOR, passedBatch);
+	}
+}
@@ -0,0 +1,71 @@
+package wikiscrape.utilities;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * {@link FilterInputStream} that counts the number of bytes read through it.
+ */
+public class CountingInputStream extends FilterInputStream {
+
+	private long COUNT = 0;
+	private long MARK = 0;
+
+	/**
+	 * Creates a new {@link CountingInputStream} reading from the passed {@link InputStream}.
+	 *
+	 * @param passedStream - The {@link InputStream} to count bytes from
+	 */
+	public CountingInputStream(InputStream passedStream) {
+		super(passedStream);
+	}
+
+	/**
+	 * Returns the number of bytes read or skipped through this {@link CountingInputStream} so far.
+	 *
+	 * @return The number of bytes read.
+	 */
+	public long getCount() {
+		return this.COUNT;
+	}
+
+	/* Supertype Override Methods */
+
+	@Override
+	public int read() throws IOException {
+		int result = super.read();
+		if (result != -1) {
+			this.COUNT++;
+		}
+		return result;
+	}
+
+	@Override
+	public int read(byte[] passedBuffer, int passedOffset, int passedLength) throws IOException {
+		int result = super.read(passedBuffer, passedOffset, passedLength);
+		if (result != -1) {
+			this.COUNT += result;
+		}
+		return result;
+	}
+
+	@Override
+	public long skip(long passedLength) throws IOException {
+		long result = super.skip(passedLength);
+		this.COUNT += result;
+		return result;
+	}
+
+	@Override
+	public synchronized void mark(int passedReadLimit) {
+		super.mark(passedReadLimit);
+		this.MARK = this.COUNT;
+	}
+
+	@Override
+	public synchronized void reset() throws IOException {
+		super.reset();
+		this.COUNT = this.MARK;
+	}
+}
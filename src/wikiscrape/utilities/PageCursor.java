@@ -0,0 +1,108 @@
+package wikiscrape.utilities;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiPredicate;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * {@link Iterator} object that reads pages one at a time from a {@link JsonReader} positioned at a JSON collection of pages.
+ * <p>
+ * Pages are read into small {@link JsonObject} instances holding only the fields accepted by the field filter; all other fields are
+ * skipped in the stream without being materialized. Because the filter is consulted with the fields read so far, it may reject
+ * a large field (such as {@code extract}) based on a field that precedes it (such as {@code revisions}).
+ * <p>
+ * Both the array form of the collection ({@code formatversion=2}) and the object form keyed by page ID are supported. Any
+ * {@link IOException} encountered while reading is rethrown as an {@link UncheckedIOException}.
+ */
+public class PageCursor implements Iterator<JsonObject>, Iterable<JsonObject> {
+
+	private final JsonReader READER;
+	private final BiPredicate<String, JsonObject> FIELD_FILTER;
+	private final boolean KEYED;
+	private boolean FINISHED = false;
+
+	/**
+	 * Creates a new {@link PageCursor} reading from the passed {@link JsonReader}.
+	 *
+	 * @param passedReader - The {@link JsonReader}, positioned immediately before the collection of pages
+	 * @param passedFieldFilter - A {@link BiPredicate} accepting a field name and the page read so far, returning whether the field should be read, or {@code null} to read every field
+	 * @throws IOException If the collection could not be opened
+	 */
+	public PageCursor(JsonReader passedReader, BiPredicate<String, JsonObject> passedFieldFilter) throws IOException {
+		this.READER = passedReader;
+		this.FIELD_FILTER = passedFieldFilter;
+		this.KEYED = (passedReader.peek() == JsonToken.BEGIN_OBJECT);
+		if (this.KEYED) {
+			passedReader.beginObject();
+		}
+		else {
+			passedReader.beginArray();
+		}
+	}
+
+	/* Iterable Compliance Methods */
+	@Override
+	public Iterator<JsonObject> iterator() {
+		return this;
+	}
+
+	/* Iterator Compliance Methods */
+	@Override
+	public boolean hasNext() {
+		if (this.FINISHED) {
+			return false;
+		}
+		try {
+			if (this.READER.hasNext()) {
+				return true;
+			}
+			if (this.KEYED) {
+				this.READER.endObject();
+			}
+			else {
+				this.READER.endArray();
+			}
+			this.FINISHED = true;
+			return false;
+		}
+		catch (IOException passedException) {
+			throw new UncheckedIOException(passedException);
+		}
+	}
+
+	@Override
+	public JsonObject next() {
+		if (!this.hasNext()) {
+			throw new NoSuchElementException();
+		}
+		try {
+			if (this.KEYED) {
+				this.READER.nextName(); // Key duplicates the page ID field
+			}
+			JsonObject page = new JsonObject();
+			JsonParser parser = new JsonParser();
+			this.READER.beginObject();
+			while (this.READER.hasNext()) {
+				String fieldName = this.READER.nextName();
+				if ((this.FIELD_FILTER == null) || this.FIELD_FILTER.test(fieldName, page)) {
+					page.add(fieldName, parser.parse(this.READER));
+				}
+				else {
+					this.READER.skipValue();
+				}
+			}
+			this.READER.endObject();
+			return page;
+		}
+		catch (IOException passedException) {
+			throw new UncheckedIOException(passedException);
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package wikiscrape.utilities;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Growable list of page IDs, held in a primitive {@code long} array.
+ * <p>
+ * Page IDs are added and read as {@code long} values through {@link #add(long)} and {@link #getLong(int)}, costing eight bytes each. The
+ * {@link java.util.List} view exists so that a {@link PageIDList} can be passed to a {@link BatchIterator}; elements are only boxed as they are read through it.
+ * <p>
+ * Adding and reading are synchronized, so a {@link PageIDList} may be added to by the threads of a pipeline. Iteration is not, and should only
+ * be done once those threads are finished with it.
+ */
+public class PageIDList extends AbstractList<Long> implements RandomAccess {
+
+	private static final int DEFAULT_CAPACITY = 1024;
+
+	private long[] ELEMENTS;
+	private int SIZE = 0;
+
+	/**
+	 * Creates a new, empty {@link PageIDList}.
+	 */
+	public PageIDList() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a new, empty {@link PageIDList} able to hold the passed number of page IDs before growing.
+	 *
+	 * @param passedExpectedSize - The number of page IDs expected
+	 */
+	public PageIDList(int passedExpectedSize) {
+		this.ELEMENTS = new long[Math.max(1, passedExpectedSize)];
+	}
+
+	/**
+	 * Adds the passed page ID to the end of this list.
+	 *
+	 * @param passedPageID - The page ID to add
+	 */
+	public synchronized void add(long passedPageID) {
+		if (this.SIZE == this.ELEMENTS.length) {
+			this.ELEMENTS = Arrays.copyOf(this.ELEMENTS, this.SIZE + (this.SIZE >> 1) + 1);
+		}
+		this.ELEMENTS[this.SIZE++] = passedPageID;
+	}
+
+	/**
+	 * Returns the page ID at the passed index.
+	 *
+	 * @param passedIndex - The index of the page ID
+	 * @return The page ID.
+	 * @throws IndexOutOfBoundsException If {@code passedIndex} is outside this list.
+	 */
+	public synchronized long getLong(int passedIndex) {
+		if ((passedIndex < 0) || (passedIndex >= this.SIZE)) {
+			throw new IndexOutOfBoundsException(String.format("Index %d is outside a list of %d page IDs", passedIndex, this.SIZE));
+		}
+		return this.ELEMENTS[passedIndex];
+	}
+
+	/* Supertype Override Methods */
+
+	@Override
+	public synchronized int size() {
+		return this.SIZE;
+	}
+
+	@Override
+	public Long get(int passedIndex) {
+		return this.getLong(passedIndex);
+	}
+
+	@Override
+	public boolean add(Long passedPageID) {
+		this.add(passedPageID.longValue());
+		return true;
+	}
+}
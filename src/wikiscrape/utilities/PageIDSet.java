@@ -0,0 +1,408 @@
+package wikiscrape.utilities;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Compressed bitmap set of page IDs, iterated in ascending order.
+ * <p>
+ * Page IDs are split into a high part, selecting a container, and a low 16 bits, stored in it. A container holds up to 4096 IDs as a sorted
+ * array of 16-bit values, and switches to a 65536-bit bitmap beyond that; memory therefore follows the density of the IDs actually present,
+ * costing at most two bytes per ID, and less where IDs are dense. Adding a page twice has no effect, so a set built up over several sources
+ * holds each page exactly once.
+ * <p>
+ * All methods are synchronized, so a {@link PageIDSet} may be added to by the threads of a pipeline.
+ */
+public class PageIDSet {
+
+	private static final int ARRAY_MAX = 4096;
+	private static final int BITMAP_WORDS = 1024;
+	private static final String EXCEPTION_KEY = "Page ID must not be negative, got %d";
+
+	private int[] KEYS = new int[4];
+	private Container[] CONTAINERS = new Container[4];
+	private int CONTAINER_COUNT = 0;
+	private long SIZE = 0;
+
+	/**
+	 * Creates a new, empty {@link PageIDSet}.
+	 */
+	public PageIDSet() {
+	}
+
+	/**
+	 * Creates a new {@link PageIDSet} holding each of the passed page IDs, given as strings.
+	 *
+	 * @param passedPageIDs - The page IDs to add
+	 * @return The new {@link PageIDSet}.
+	 * @throws NumberFormatException If a page ID is not a number.
+	 */
+	public static PageIDSet fromStrings(Iterable<String> passedPageIDs) {
+		PageIDSet set = new PageIDSet();
+		for (String iteratedPageID : passedPageIDs) {
+			set.add(Long.parseLong(iteratedPageID));
+		}
+		return set;
+	}
+
+	/**
+	 * Adds the passed page ID to this set.
+	 *
+	 * @param passedPageID - The page ID to add
+	 * @return Whether the page ID was added, i.e. was not already in this set.
+	 * @throws IllegalArgumentException If {@code passedPageID} is negative.
+	 */
+	public synchronized boolean add(long passedPageID) {
+		if (passedPageID < 0) {
+			throw new IllegalArgumentException(String.format(EXCEPTION_KEY, passedPageID));
+		}
+		int index = this.findContainer(high(passedPageID));
+		if (index < 0) {
+			index = -(index + 1);
+			this.insertContainer(index, high(passedPageID), new ArrayContainer());
+		}
+		Container container = this.CONTAINERS[index];
+		int before = container.cardinality();
+		this.CONTAINERS[index] = container.add(low(passedPageID));
+		if (this.CONTAINERS[index].cardinality() > before) {
+			this.SIZE++;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns whether the passed page ID is in this set.
+	 *
+	 * @param passedPageID - The page ID to look for
+	 * @return Whether the page ID is in this set.
+	 */
+	public synchronized boolean contains(long passedPageID) {
+		if (passedPageID < 0) {
+			return false;
+		}
+		int index = this.findContainer(high(passedPageID));
+		return (index >= 0) && this.CONTAINERS[index].contains(low(passedPageID));
+	}
+
+	/**
+	 * Adds every page ID in the passed set to this set.
+	 *
+	 * @param passedOther - The set whose page IDs to add
+	 */
+	public void addAll(PageIDSet passedOther) {
+		PageIDSet other = passedOther.copy(); // Not locked alongside this set, so two sets may be combined both ways at once
+		synchronized (this) {
+			other.forEach(this::add);
+		}
+	}
+
+	/**
+	 * Removes every page ID in the passed set from this set.
+	 *
+	 * @param passedOther - The set whose page IDs to remove
+	 */
+	public void removeAll(PageIDSet passedOther) {
+		PageIDSet other = passedOther.copy();
+		synchronized (this) {
+			for (int iterator = 0; iterator < other.CONTAINER_COUNT; iterator++) {
+				int index = this.findContainer(other.KEYS[iterator]);
+				if (index < 0) {
+					continue;
+				}
+				Container container = this.CONTAINERS[index];
+				int before = container.cardinality();
+				container = container.removeAll(other.CONTAINERS[iterator]);
+				this.SIZE -= before - container.cardinality();
+				if (container.cardinality() == 0) {
+					this.removeContainer(index);
+				}
+				else {
+					this.CONTAINERS[index] = container;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of page IDs in this set.
+	 *
+	 * @return The number of page IDs.
+	 */
+	public synchronized long size() {
+		return this.SIZE;
+	}
+
+	/**
+	 * Returns whether this set is empty.
+	 *
+	 * @return Whether this set holds no page IDs.
+	 */
+	public synchronized boolean isEmpty() {
+		return this.SIZE == 0;
+	}
+
+	/**
+	 * Returns the approximate number of bytes used to hold the page IDs in this set.
+	 *
+	 * @return The approximate size of this set's containers.
+	 */
+	public synchronized long getSizeInBytes() {
+		long bytes = this.KEYS.length * 4L;
+		for (int iterator = 0; iterator < this.CONTAINER_COUNT; iterator++) {
+			bytes += this.CONTAINERS[iterator].bytes();
+		}
+		return bytes;
+	}
+
+	/**
+	 * Returns a copy of this set, as it stands.
+	 *
+	 * @return A new {@link PageIDSet} holding the same page IDs.
+	 */
+	public synchronized PageIDSet copy() {
+		PageIDSet copy = new PageIDSet();
+		copy.KEYS = Arrays.copyOf(this.KEYS, Math.max(4, this.CONTAINER_COUNT));
+		copy.CONTAINERS = new Container[copy.KEYS.length];
+		for (int iterator = 0; iterator < this.CONTAINER_COUNT; iterator++) {
+			copy.CONTAINERS[iterator] = this.CONTAINERS[iterator].copy();
+		}
+		copy.CONTAINER_COUNT = this.CONTAINER_COUNT;
+		copy.SIZE = this.SIZE;
+		return copy;
+	}
+
+	/**
+	 * Passes every page ID in this set to the passed {@link LongConsumer}, in ascending order.
+	 * <p>
+	 * The set is locked throughout, so the consumer must not wait on other threads using it.
+	 *
+	 * @param passedConsumer - The {@link LongConsumer} to receive each page ID
+	 */
+	public synchronized void forEach(LongConsumer passedConsumer) {
+		for (int iterator = 0; iterator < this.CONTAINER_COUNT; iterator++) {
+			this.CONTAINERS[iterator].forEach(((long) this.KEYS[iterator]) << 16, passedConsumer);
+		}
+	}
+
+	/**
+	 * Returns the page IDs in this set, in ascending order, i.e. for batching with a {@link BatchIterator}.
+	 *
+	 * @return A new {@link PageIDList} holding every page ID in this set.
+	 */
+	public synchronized PageIDList toList() {
+		PageIDList list = new PageIDList((int) Math.min(Integer.MAX_VALUE - 8, this.SIZE));
+		this.forEach(list::add);
+		return list;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format("%d page IDs in %d containers, %d bytes", this.SIZE, this.CONTAINER_COUNT, this.getSizeInBytes());
+	}
+
+	/* Internal Methods */
+
+	private int findContainer(int passedKey) {
+		return Arrays.binarySearch(this.KEYS, 0, this.CONTAINER_COUNT, passedKey);
+	}
+
+	private void insertContainer(int passedIndex, int passedKey, Container passedContainer) {
+		if (this.CONTAINER_COUNT == this.KEYS.length) {
+			this.KEYS = Arrays.copyOf(this.KEYS, this.KEYS.length * 2);
+			this.CONTAINERS = Arrays.copyOf(this.CONTAINERS, this.CONTAINERS.length * 2);
+		}
+		System.arraycopy(this.KEYS, passedIndex, this.KEYS, passedIndex + 1, this.CONTAINER_COUNT - passedIndex);
+		System.arraycopy(this.CONTAINERS, passedIndex, this.CONTAINERS, passedIndex + 1, this.CONTAINER_COUNT - passedIndex);
+		this.KEYS[passedIndex] = passedKey;
+		this.CONTAINERS[passedIndex] = passedContainer;
+		this.CONTAINER_COUNT++;
+	}
+
+	private void removeContainer(int passedIndex) {
+		System.arraycopy(this.KEYS, passedIndex + 1, this.KEYS, passedIndex, this.CONTAINER_COUNT - passedIndex - 1);
+		System.arraycopy(this.CONTAINERS, passedIndex + 1, this.CONTAINERS, passedIndex, this.CONTAINER_COUNT - passedIndex - 1);
+		this.CONTAINER_COUNT--;
+		this.CONTAINERS[this.CONTAINER_COUNT] = null;
+	}
+
+	/* Logic Methods */
+
+	private static int high(long passedPageID) {
+		return (int) (passedPageID >>> 16);
+	}
+
+	private static char low(long passedPageID) {
+		return (char) passedPageID;
+	}
+
+	/* Internal Classes */
+
+	private static abstract class Container {
+
+		abstract Container add(char passedValue);
+
+		abstract Container removeAll(Container passedOther);
+
+		abstract boolean contains(char passedValue);
+
+		abstract int cardinality();
+
+		abstract void forEach(long passedBase, LongConsumer passedConsumer);
+
+		abstract Container copy();
+
+		abstract long bytes();
+	}
+
+	private static class ArrayContainer extends Container {
+
+		private char[] VALUES = new char[4];
+		private int SIZE = 0;
+
+		@Override
+		Container add(char passedValue) {
+			int index = Arrays.binarySearch(this.VALUES, 0, this.SIZE, passedValue);
+			if (index >= 0) {
+				return this;
+			}
+			if (this.SIZE == ARRAY_MAX) {
+				return new BitmapContainer(this).add(passedValue);
+			}
+			index = -(index + 1);
+			if (this.SIZE == this.VALUES.length) {
+				this.VALUES = Arrays.copyOf(this.VALUES, Math.min(ARRAY_MAX, this.VALUES.length * 2));
+			}
+			System.arraycopy(this.VALUES, index, this.VALUES, index + 1, this.SIZE - index);
+			this.VALUES[index] = passedValue;
+			this.SIZE++;
+			return this;
+		}
+
+		@Override
+		Container removeAll(Container passedOther) {
+			int kept = 0;
+			for (int iterator = 0; iterator < this.SIZE; iterator++) {
+				if (!passedOther.contains(this.VALUES[iterator])) {
+					this.VALUES[kept++] = this.VALUES[iterator];
+				}
+			}
+			this.SIZE = kept;
+			return this;
+		}
+
+		@Override
+		boolean contains(char passedValue) {
+			return Arrays.binarySearch(this.VALUES, 0, this.SIZE, passedValue) >= 0;
+		}
+
+		@Override
+		int cardinality() {
+			return this.SIZE;
+		}
+
+		@Override
+		void forEach(long passedBase, LongConsumer passedConsumer) {
+			for (int iterator = 0; iterator < this.SIZE; iterator++) {
+				passedConsumer.accept(passedBase | this.VALUES[iterator]);
+			}
+		}
+
+		@Override
+		Container copy() {
+			ArrayContainer copy = new ArrayContainer();
+			copy.VALUES = Arrays.copyOf(this.VALUES, Math.max(4, this.SIZE));
+			copy.SIZE = this.SIZE;
+			return copy;
+		}
+
+		@Override
+		long bytes() {
+			return this.VALUES.length * 2L;
+		}
+	}
+
+	private static class BitmapContainer extends Container {
+
+		private final long[] WORDS = new long[BITMAP_WORDS];
+		private int SIZE = 0;
+
+		private BitmapContainer(ArrayContainer passedContainer) {
+			for (int iterator = 0; iterator < passedContainer.SIZE; iterator++) {
+				char value = passedContainer.VALUES[iterator];
+				this.WORDS[value >>> 6] |= 1L << value;
+			}
+			this.SIZE = passedContainer.SIZE;
+		}
+
+		private BitmapContainer() {
+		}
+
+		@Override
+		Container add(char passedValue) {
+			long bit = 1L << passedValue;
+			if ((this.WORDS[passedValue >>> 6] & bit) == 0) {
+				this.WORDS[passedValue >>> 6] |= bit;
+				this.SIZE++;
+			}
+			return this;
+		}
+
+		@Override
+		Container removeAll(Container passedOther) {
+			for (int word = 0; word < BITMAP_WORDS; word++) {
+				long bits = this.WORDS[word];
+				while (bits != 0) {
+					long lowest = bits & -bits;
+					char value = (char) ((word << 6) + Long.numberOfTrailingZeros(bits));
+					if (passedOther.contains(value)) {
+						this.WORDS[word] &= ~lowest;
+						this.SIZE--;
+					}
+					bits ^= lowest;
+				}
+			}
+			if (this.SIZE > ARRAY_MAX) {
+				return this;
+			}
+			// Sparse enough again to hold as an array
+			ArrayContainer array = new ArrayContainer();
+			this.forEach(0L, (value) -> array.add((char) value));
+			return array;
+		}
+
+		@Override
+		boolean contains(char passedValue) {
+			return (this.WORDS[passedValue >>> 6] & (1L << passedValue)) != 0;
+		}
+
+		@Override
+		int cardinality() {
+			return this.SIZE;
+		}
+
+		@Override
+		void forEach(long passedBase, LongConsumer passedConsumer) {
+			for (int word = 0; word < BITMAP_WORDS; word++) {
+				long bits = this.WORDS[word];
+				while (bits != 0) {
+					passedConsumer.accept(passedBase | ((word << 6) + Long.numberOfTrailingZeros(bits)));
+					bits &= bits - 1;
+				}
+			}
+		}
+
+		@Override
+		Container copy() {
+			BitmapContainer copy = new BitmapContainer();
+			System.arraycopy(this.WORDS, 0, copy.WORDS, 0, BITMAP_WORDS);
+			copy.SIZE = this.SIZE;
+			return copy;
+		}
+
+		@Override
+		long bytes() {
+			return BITMAP_WORDS * 8L;
+		}
+	}
+}
@@ -0,0 +1,448 @@
+package wikiscrape.utilities;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import sqlinterface.EnumEntry;
+
+/**
+ * Persistent index of the state of every page in the database: its revision ID, when it was last fetched, and a hash of each stored text column.
+ * <p>
+ * The index is a memory-mapped file holding an open-addressing hash table, so opening it costs nothing however many pages it holds, and
+ * pages are looked up without reading the table into the heap. It is the scraper's own record of what the database holds, kept so that
+ * a run need not select every row before it starts: {@link #isConsistent(long)} compares it to the database cheaply, and the database
+ * only has to be scanned when it fails.
+ * <p>
+ * Revisions found during a run are first staged in memory with {@link #stage(long, long)}, and only written to the file by
+ * {@link #commit(long, long)} once the database holds them, so that the index never claims more than the database does. Lookups see staged
+ * revisions ahead of stored ones.
+ * <p>
+ * Likewise, {@link #stageContent(long, EnumEntry, String)} stages the hash of a newly fetched value of one of the {@link #HASHED_COLUMNS},
+ * unless it matches the hash of the value the database already holds, in which case the write can be skipped. Many revisions only touch
+ * templates or markup that the stored text does not include. Hashes are unknown for pages stored while rebuilding the index, so their
+ * next write always proceeds.
+ * <p>
+ * The file records whether it was closed cleanly; one left open by a crash may hold a torn entry, and is reported inconsistent.
+ * All methods are synchronized, so a {@link PageStateIndex} may be shared by the threads of a pipeline.
+ */
+public class PageStateIndex implements AutoCloseable {
+
+	/**
+	 * The value returned by {@link #getRevision(long)} and {@link #getFetched(long)} for a page not in the index.
+	 */
+	public static final long NO_VALUE = PageStateMap.NO_VALUE;
+
+	/**
+	 * The columns whose values are hashed by {@link #stageContent(long, EnumEntry, String)}.
+	 */
+	public static final EnumEntry[] HASHED_COLUMNS = new EnumEntry[] { EnumEntry.TEXT_INTRO, EnumEntry.TEXT_FULL, EnumEntry.CATEGORIES };
+
+	private static final int MAGIC = 0x57535049; // "WSPI"
+	private static final int VERSION = 2;
+	private static final int HEADER_SIZE = 32;
+	private static final int OFFSET_MAGIC = 0;
+	private static final int OFFSET_VERSION = 4;
+	private static final int OFFSET_CAPACITY = 8;
+	private static final int OFFSET_SIZE = 12;
+	private static final int OFFSET_CLEAN = 16;
+	private static final int SLOT_SIZE = 24 + (HASHED_COLUMNS.length * 8);
+	private static final int SLOT_REVISION = 8;
+	private static final int SLOT_FETCHED = 16;
+	private static final int SLOT_HASHES = 24;
+	private static final long NO_HASH = 0L;
+	private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+	private static final long FNV_PRIME = 0x100000001B3L;
+	private static final int DEFAULT_CAPACITY = 1 << 16;
+	private static final int MAX_CAPACITY = 1 << 25; // Keeps the file within a single mapping
+	private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+	private static final String TEMPORARY_SUFFIX = ".tmp";
+	private static final String EXCEPTION_KEY = "Page ID must be greater than zero, got %d";
+	private static final String EXCEPTION_FULL = "Page state index may not hold more than %d pages";
+	private static final String STATUS_STRING = "Page state index %s: %d pages, %s";
+	private static final String EXCEPTION_COLUMN = "Column %s is not hashed";
+
+	private final Path PATH;
+	private final PageStateMap STAGED = new PageStateMap();
+	private final PageStateMap[] STAGED_HASHES = new PageStateMap[HASHED_COLUMNS.length];
+	private long SKIPPED_WRITES = 0;
+	private long SKIPPED_CHARACTERS = 0;
+	private FileChannel CHANNEL;
+	private MappedByteBuffer BUFFER;
+	private int CAPACITY;
+	private int SIZE;
+	private int SHIFT;
+	private boolean WAS_CLEAN;
+
+	/**
+	 * Opens the index at the passed path, creating an empty one if there is none, or if the file is not a valid index.
+	 *
+	 * @param passedPath - The path of the index file
+	 * @throws IOException If the index could not be opened or created
+	 */
+	public PageStateIndex(Path passedPath) throws IOException {
+		this.PATH = passedPath;
+		for (int iterator = 0; iterator < this.STAGED_HASHES.length; iterator++) {
+			this.STAGED_HASHES[iterator] = new PageStateMap();
+		}
+		if (!this.open(passedPath)) {
+			this.create(passedPath, DEFAULT_CAPACITY);
+			this.WAS_CLEAN = false;
+		}
+		System.out.println(String.format(STATUS_STRING, passedPath, this.SIZE, this.WAS_CLEAN ? "closed cleanly" : "not closed cleanly"));
+		// Marked unclean until closed, so that a crash part way through a write is detected on the next open
+		this.BUFFER.putInt(OFFSET_CLEAN, 0);
+		this.BUFFER.force();
+	}
+
+	/**
+	 * Returns whether the stored entries can be trusted to match a database table holding the passed number of rows.
+	 * <p>
+	 * This holds if the index was last closed cleanly and holds one entry per row.
+	 *
+	 * @param passedRowCount - The number of rows in the database table
+	 * @return Whether the index is consistent with the table.
+	 */
+	public synchronized boolean isConsistent(long passedRowCount) {
+		return this.WAS_CLEAN && (this.SIZE == passedRowCount);
+	}
+
+	/**
+	 * Removes every stored and staged entry, i.e. before rebuilding the index from the database.
+	 *
+	 * @throws IOException If the index file could not be recreated
+	 */
+	public synchronized void clear() throws IOException {
+		this.CHANNEL.close();
+		this.create(this.PATH, DEFAULT_CAPACITY);
+		this.BUFFER.putInt(OFFSET_CLEAN, 0);
+		this.STAGED.clear();
+		for (PageStateMap iteratedHashes : this.STAGED_HASHES) {
+			iteratedHashes.clear();
+		}
+	}
+
+	/**
+	 * Returns the revision ID of the passed page, as staged during this run or else as stored.
+	 *
+	 * @param passedPageID - The ID of the page
+	 * @return The revision ID, or {@link #NO_VALUE} if the page is not in the index.
+	 */
+	public synchronized long getRevision(long passedPageID) {
+		long staged = this.STAGED.get(passedPageID);
+		if (staged != NO_VALUE) {
+			return staged;
+		}
+		int slot = this.find(passedPageID);
+		return (slot >= 0) ? this.BUFFER.getLong(slotOffset(slot) + SLOT_REVISION) : NO_VALUE;
+	}
+
+	/**
+	 * Returns the time at which the passed page's stored revision was committed.
+	 *
+	 * @param passedPageID - The ID of the page
+	 * @return The time in milliseconds since the epoch, zero if its data has never been fetched, or {@link #NO_VALUE} if the page is not stored.
+	 */
+	public synchronized long getFetched(long passedPageID) {
+		int slot = this.find(passedPageID);
+		return (slot >= 0) ? this.BUFFER.getLong(slotOffset(slot) + SLOT_FETCHED) : NO_VALUE;
+	}
+
+	/**
+	 * Returns whether the passed page is staged or stored in the index.
+	 *
+	 * @param passedPageID - The ID of the page
+	 * @return Whether the page is in the index.
+	 */
+	public synchronized boolean contains(long passedPageID) {
+		return this.STAGED.containsKey(passedPageID) || (this.find(passedPageID) >= 0);
+	}
+
+	/**
+	 * Stages the passed revision ID for the passed page, to be stored once committed.
+	 *
+	 * @param passedPageID - The ID of the page
+	 * @param passedRevisionID - The page's revision ID
+	 * @throws IllegalArgumentException If {@code passedPageID} is less than or equal to zero.
+	 */
+	public synchronized void stage(long passedPageID, long passedRevisionID) {
+		this.STAGED.put(passedPageID, passedRevisionID);
+	}
+
+	/**
+	 * Stages the passed revision ID for the passed page, unless the page is already in the index.
+	 *
+	 * @param passedPageID - The ID of the page
+	 * @param passedRevisionID - The page's revision ID
+	 * @return Whether the revision ID was staged, i.e. the page was not in the index before.
+	 * @throws IllegalArgumentException If {@code passedPageID} is less than or equal to zero.
+	 */
+	public synchronized boolean stageIfAbsent(long passedPageID, long passedRevisionID) {
+		if (this.find(passedPageID) >= 0) {
+			return false;
+		}
+		return this.STAGED.putIfAbsent(passedPageID, passedRevisionID);
+	}
+
+	/**
+	 * Stages the hash of the passed value of the passed column for the passed page, unless it matches the hash of the value already held.
+	 * <p>
+	 * If it matches, the value need not be written, and the write is counted as skipped; see {@link #getSkippedWrites()}.
+	 *
+	 * @param passedPageID - The ID of the page
+	 * @param passedColumn - The column the value belongs to, one of {@link #HASHED_COLUMNS}
+	 * @param passedValue - The newly fetched value
+	 * @return Whether the value differs from the one held, and should be written.
+	 * @throws IllegalArgumentException If {@code passedPageID} is less than or equal to zero, or {@code passedColumn} is not hashed.
+	 */
+	public synchronized boolean stageContent(long passedPageID, EnumEntry passedColumn, String passedValue) {
+		int column = columnIndex(passedColumn);
+		long hash = hashContent(passedValue);
+		if (this.getHash(passedPageID, column) == hash) {
+			this.SKIPPED_WRITES++;
+			this.SKIPPED_CHARACTERS += passedValue.length();
+			return false;
+		}
+		this.STAGED_HASHES[column].put(passedPageID, hash);
+		return true;
+	}
+
+	/**
+	 * Returns the number of writes found unnecessary by {@link #stageContent(long, EnumEntry, String)}.
+	 *
+	 * @return The number of skipped writes.
+	 */
+	public synchronized long getSkippedWrites() {
+		return this.SKIPPED_WRITES;
+	}
+
+	/**
+	 * Returns the total length of the values whose writes were skipped.
+	 *
+	 * @return The number of characters not written.
+	 */
+	public synchronized long getSkippedCharacters() {
+		return this.SKIPPED_CHARACTERS;
+	}
+
+	/**
+	 * Stores the revision ID and content hashes staged for the passed page, now that the database holds them. Does nothing if none are staged.
+	 * <p>
+	 * The write reaches the file when the index is closed or {@link #force()}d.
+	 *
+	 * @param passedPageID - The ID of the page
+	 * @param passedFetched - The time at which the page's data was fetched, in milliseconds since the epoch
+	 * @throws IOException If the index had to grow, and could not
+	 * @throws IllegalStateException If the index is full.
+	 */
+	public synchronized void commit(long passedPageID, long passedFetched) throws IOException {
+		long staged = this.STAGED.get(passedPageID);
+		if (staged != NO_VALUE) {
+			this.store(passedPageID, staged, passedFetched);
+		}
+		int slot = this.find(passedPageID);
+		if (slot >= 0) {
+			for (int iterator = 0; iterator < this.STAGED_HASHES.length; iterator++) {
+				long hash = this.STAGED_HASHES[iterator].get(passedPageID);
+				if (hash != NO_VALUE) {
+					this.BUFFER.putLong(hashOffset(slot, iterator), hash);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stores the passed state for the passed page directly, i.e. while rebuilding the index from the database. Stored hashes are kept, or
+	 * left unknown for a page not stored before.
+	 *
+	 * @param passedPageID - The ID of the page
+	 * @param passedRevisionID - The page's revision ID
+	 * @param passedFetched - The time at which the page's data was fetched, in milliseconds since the epoch, or zero if unknown
+	 * @throws IOException If the index had to grow, and could not
+	 * @throws IllegalArgumentException If {@code passedPageID} is less than or equal to zero.
+	 * @throws IllegalStateException If the index is full.
+	 */
+	public synchronized void store(long passedPageID, long passedRevisionID, long passedFetched) throws IOException {
+		if (passedPageID <= 0) {
+			throw new IllegalArgumentException(String.format(EXCEPTION_KEY, passedPageID));
+		}
+		if ((this.find(passedPageID) < 0) && ((this.SIZE + 1) * 2 > this.CAPACITY)) {
+			this.grow();
+		}
+		int slot = this.probe(passedPageID);
+		int offset = slotOffset(slot);
+		if (this.BUFFER.getLong(offset) == 0) {
+			this.BUFFER.putLong(offset, passedPageID);
+			this.SIZE++;
+			this.BUFFER.putInt(OFFSET_SIZE, this.SIZE);
+		}
+		this.BUFFER.putLong(offset + SLOT_REVISION, passedRevisionID);
+		this.BUFFER.putLong(offset + SLOT_FETCHED, passedFetched);
+	}
+
+	/**
+	 * Returns the number of pages stored in the index, not counting those only staged.
+	 *
+	 * @return The number of stored pages.
+	 */
+	public synchronized int size() {
+		return this.SIZE;
+	}
+
+	/**
+	 * Writes every stored entry through to the index file.
+	 */
+	public synchronized void force() {
+		this.BUFFER.force();
+	}
+
+	/**
+	 * Writes every stored entry through to the index file, marks the file as closed cleanly, and closes it. Staged entries are discarded.
+	 *
+	 * @throws IOException If the index file could not be closed
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		this.BUFFER.force();
+		this.BUFFER.putInt(OFFSET_CLEAN, 1);
+		this.BUFFER.force();
+		this.CHANNEL.close();
+	}
+
+	/* Internal Methods */
+
+	private boolean open(Path passedPath) throws IOException {
+		if (!Files.exists(passedPath) || (Files.size(passedPath) < HEADER_SIZE)) {
+			return false;
+		}
+		FileChannel channel = FileChannel.open(passedPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+		int capacity = buffer.getInt(OFFSET_CAPACITY);
+		boolean valid = (buffer.getInt(OFFSET_MAGIC) == MAGIC) && (buffer.getInt(OFFSET_VERSION) == VERSION)
+				&& (Integer.bitCount(capacity) == 1) && (capacity <= MAX_CAPACITY) && (channel.size() == fileSize(capacity));
+		if (!valid) {
+			channel.close();
+			return false;
+		}
+		this.CHANNEL = channel;
+		this.BUFFER = buffer;
+		this.setCapacity(capacity);
+		this.SIZE = buffer.getInt(OFFSET_SIZE);
+		this.WAS_CLEAN = buffer.getInt(OFFSET_CLEAN) == 1;
+		return true;
+	}
+
+	private void create(Path passedPath, int passedCapacity) throws IOException {
+		this.CHANNEL = FileChannel.open(passedPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		this.BUFFER = this.CHANNEL.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(passedCapacity));
+		this.BUFFER.putInt(OFFSET_MAGIC, MAGIC);
+		this.BUFFER.putInt(OFFSET_VERSION, VERSION);
+		this.BUFFER.putInt(OFFSET_CAPACITY, passedCapacity);
+		this.BUFFER.putInt(OFFSET_SIZE, 0);
+		this.setCapacity(passedCapacity);
+		this.SIZE = 0;
+	}
+
+	private void grow() throws IOException {
+		if (this.CAPACITY >= MAX_CAPACITY) {
+			throw new IllegalStateException(String.format(EXCEPTION_FULL, MAX_CAPACITY / 2));
+		}
+		// Rehashed into a new file, which replaces the old one only once complete
+		FileChannel oldChannel = this.CHANNEL;
+		MappedByteBuffer oldBuffer = this.BUFFER;
+		int oldCapacity = this.CAPACITY;
+		Path temporaryPath = this.PATH.resolveSibling(this.PATH.getFileName() + TEMPORARY_SUFFIX);
+		this.create(temporaryPath, oldCapacity * 2);
+		for (int iterator = 0; iterator < oldCapacity; iterator++) {
+			int oldOffset = slotOffset(iterator);
+			long pageID = oldBuffer.getLong(oldOffset);
+			if (pageID != 0) {
+				int offset = slotOffset(this.probe(pageID));
+				this.BUFFER.putLong(offset, pageID);
+				this.BUFFER.putLong(offset + SLOT_REVISION, oldBuffer.getLong(oldOffset + SLOT_REVISION));
+				this.BUFFER.putLong(offset + SLOT_FETCHED, oldBuffer.getLong(oldOffset + SLOT_FETCHED));
+				for (int hash = 0; hash < HASHED_COLUMNS.length; hash++) {
+					this.BUFFER.putLong(offset + SLOT_HASHES + (hash * 8), oldBuffer.getLong(oldOffset + SLOT_HASHES + (hash * 8)));
+				}
+				this.SIZE++;
+			}
+		}
+		this.BUFFER.putInt(OFFSET_SIZE, this.SIZE);
+		this.BUFFER.force();
+		oldChannel.close();
+		Files.move(temporaryPath, this.PATH, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private long getHash(long passedPageID, int passedColumn) {
+		long staged = this.STAGED_HASHES[passedColumn].get(passedPageID);
+		if (staged != NO_VALUE) {
+			return staged;
+		}
+		int slot = this.find(passedPageID);
+		return (slot >= 0) ? this.BUFFER.getLong(hashOffset(slot, passedColumn)) : NO_HASH;
+	}
+
+	private int find(long passedPageID) {
+		if (passedPageID <= 0) {
+			return -1;
+		}
+		int slot = this.probe(passedPageID);
+		return (this.BUFFER.getLong(slotOffset(slot)) == passedPageID) ? slot : -1;
+	}
+
+	private int probe(long passedPageID) {
+		// Returns the slot holding the page, or the empty slot where it belongs
+		int mask = this.CAPACITY - 1;
+		int slot = (int) ((passedPageID * HASH_MULTIPLIER) >>> this.SHIFT);
+		long slotPageID;
+		while (((slotPageID = this.BUFFER.getLong(slotOffset(slot))) != 0) && (slotPageID != passedPageID)) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private void setCapacity(int passedCapacity) {
+		this.CAPACITY = passedCapacity;
+		this.SHIFT = Long.numberOfLeadingZeros(passedCapacity - 1);
+	}
+
+	/* Logic Methods */
+
+	private static int slotOffset(int passedSlot) {
+		return HEADER_SIZE + (passedSlot * SLOT_SIZE);
+	}
+
+	private static int hashOffset(int passedSlot, int passedColumn) {
+		return slotOffset(passedSlot) + SLOT_HASHES + (passedColumn * 8);
+	}
+
+	private static int columnIndex(EnumEntry passedColumn) {
+		for (int iterator = 0; iterator < HASHED_COLUMNS.length; iterator++) {
+			if (HASHED_COLUMNS[iterator] == passedColumn) {
+				return iterator;
+			}
+		}
+		throw new IllegalArgumentException(String.format(EXCEPTION_COLUMN, passedColumn.getEntryName()));
+	}
+
+	private static long hashContent(String passedValue) {
+		// 64-bit FNV-1a over the characters, then mixed as per the MurmurHash3 finalizer
+		long hash = FNV_OFFSET;
+		for (int iterator = 0; iterator < passedValue.length(); iterator++) {
+			hash = (hash ^ passedValue.charAt(iterator)) * FNV_PRIME;
+		}
+		hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+		hash = (hash ^ (hash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+		hash ^= (hash >>> 33);
+		// Neither may be stored, as they mark an unknown hash
+		return ((hash == NO_HASH) || (hash == NO_VALUE)) ? 1L : hash;
+	}
+
+	private static long fileSize(int passedCapacity) {
+		return HEADER_SIZE + ((long) passedCapacity * SLOT_SIZE);
+	}
+}
@@ -0,0 +1,198 @@
+package wikiscrape.utilities;
+
+import java.util.Arrays;
+
+/**
+ * Map from page ID to a {@code long} of state (i.e. the page's revision ID), held in primitive arrays.
+ * <p>
+ * Entries are stored by open addressing with linear probing in a pair of {@code long} arrays, kept at most half full; an entry costs at
+ * most 32 bytes, and nothing is allocated per entry. Page IDs are always positive, so a zero key marks an empty slot. Entries cannot be
+ * removed singly, as nothing in a scrape ever forgets a page.
+ * <p>
+ * All methods are synchronized, so a {@link PageStateMap} may be shared by the threads of a pipeline.
+ */
+public class PageStateMap {
+
+	/**
+	 * The value returned by {@link #get(long)} for a page with no entry.
+	 */
+	public static final long NO_VALUE = Long.MIN_VALUE;
+
+	private static final int DEFAULT_CAPACITY = 1024;
+	private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+	private static final String EXCEPTION_KEY = "Page ID must be greater than zero, got %d";
+
+	private long[] KEYS;
+	private long[] VALUES;
+	private int SIZE = 0;
+	private int SHIFT;
+
+	/**
+	 * Creates a new, empty {@link PageStateMap}.
+	 */
+	public PageStateMap() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a new, empty {@link PageStateMap} able to hold the passed number of entries before growing.
+	 *
+	 * @param passedExpectedSize - The number of entries expected
+	 */
+	public PageStateMap(int passedExpectedSize) {
+		this.allocate(Math.max(2, Integer.highestOneBit(Math.max(1, passedExpectedSize)) << 2));
+	}
+
+	/**
+	 * Returns the value stored for the passed page.
+	 *
+	 * @param passedPageID - The ID of the page
+	 * @return The stored value, or {@link #NO_VALUE} if there is none.
+	 */
+	public synchronized long get(long passedPageID) {
+		if (passedPageID <= 0) {
+			return NO_VALUE;
+		}
+		int slot = this.find(passedPageID);
+		return (this.KEYS[slot] == passedPageID) ? this.VALUES[slot] : NO_VALUE;
+	}
+
+	/**
+	 * Returns whether a value is stored for the passed page.
+	 *
+	 * @param passedPageID - The ID of the page
+	 * @return Whether the page has an entry.
+	 */
+	public synchronized boolean containsKey(long passedPageID) {
+		return (passedPageID > 0) && (this.KEYS[this.find(passedPageID)] == passedPageID);
+	}
+
+	/**
+	 * Stores the passed value for the passed page, replacing any stored before.
+	 *
+	 * @param passedPageID - The ID of the page
+	 * @param passedValue - The value to store
+	 * @return The value stored before, or {@link #NO_VALUE} if there was none.
+	 * @throws IllegalArgumentException If {@code passedPageID} is less than or equal to zero.
+	 */
+	public synchronized long put(long passedPageID, long passedValue) {
+		int slot = this.claim(passedPageID);
+		long previous = (this.KEYS[slot] == passedPageID) ? this.VALUES[slot] : NO_VALUE;
+		this.store(slot, passedPageID, passedValue);
+		return previous;
+	}
+
+	/**
+	 * Stores the passed value for the passed page, unless a value is already stored for it.
+	 *
+	 * @param passedPageID - The ID of the page
+	 * @param passedValue - The value to store
+	 * @return Whether the value was stored, i.e. the page had no entry before.
+	 * @throws IllegalArgumentException If {@code passedPageID} is less than or equal to zero.
+	 */
+	public synchronized boolean putIfAbsent(long passedPageID, long passedValue) {
+		int slot = this.claim(passedPageID);
+		if (this.KEYS[slot] == passedPageID) {
+			return false;
+		}
+		this.store(slot, passedPageID, passedValue);
+		return true;
+	}
+
+	/**
+	 * Removes every entry.
+	 */
+	public synchronized void clear() {
+		Arrays.fill(this.KEYS, 0L);
+		this.SIZE = 0;
+	}
+
+	/**
+	 * Returns the number of pages with an entry.
+	 *
+	 * @return The number of entries.
+	 */
+	public synchronized int size() {
+		return this.SIZE;
+	}
+
+	/**
+	 * Passes every entry to the passed {@link EntryConsumer}, in no particular order.
+	 * <p>
+	 * The map is locked throughout, so the consumer must not wait on other threads using it.
+	 *
+	 * @param passedConsumer - The {@link EntryConsumer} to receive each entry
+	 */
+	public synchronized void forEach(EntryConsumer passedConsumer) {
+		for (int iterator = 0; iterator < this.KEYS.length; iterator++) {
+			if (this.KEYS[iterator] != 0) {
+				passedConsumer.accept(this.KEYS[iterator], this.VALUES[iterator]);
+			}
+		}
+	}
+
+	/* Internal Methods */
+
+	private int find(long passedPageID) {
+		int mask = this.KEYS.length - 1;
+		int slot = (int) ((passedPageID * HASH_MULTIPLIER) >>> this.SHIFT);
+		while ((this.KEYS[slot] != 0) && (this.KEYS[slot] != passedPageID)) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private int claim(long passedPageID) {
+		if (passedPageID <= 0) {
+			throw new IllegalArgumentException(String.format(EXCEPTION_KEY, passedPageID));
+		}
+		if ((this.SIZE + 1) * 2 > this.KEYS.length) {
+			this.grow();
+		}
+		return this.find(passedPageID);
+	}
+
+	private void store(int passedSlot, long passedPageID, long passedValue) {
+		if (this.KEYS[passedSlot] == 0) {
+			this.KEYS[passedSlot] = passedPageID;
+			this.SIZE++;
+		}
+		this.VALUES[passedSlot] = passedValue;
+	}
+
+	private void grow() {
+		long[] oldKeys = this.KEYS;
+		long[] oldValues = this.VALUES;
+		this.allocate(oldKeys.length * 2);
+		for (int iterator = 0; iterator < oldKeys.length; iterator++) {
+			if (oldKeys[iterator] != 0) {
+				int slot = this.find(oldKeys[iterator]);
+				this.KEYS[slot] = oldKeys[iterator];
+				this.VALUES[slot] = oldValues[iterator];
+			}
+		}
+	}
+
+	private void allocate(int passedCapacity) {
+		this.KEYS = new long[passedCapacity];
+		this.VALUES = new long[passedCapacity];
+		this.SHIFT = Long.numberOfLeadingZeros(passedCapacity - 1);
+	}
+
+	/* Internal Classes */
+
+	/**
+	 * Functional interface receiving the entries of a {@link PageStateMap}.
+	 */
+	@FunctionalInterface
+	public static interface EntryConsumer {
+
+		/**
+		 * Receives a single entry.
+		 *
+		 * @param passedPageID - The ID of the page
+		 * @param passedValue - The value stored for the page
+		 */
+		public void accept(long passedPageID, long passedValue);
+	}
+}
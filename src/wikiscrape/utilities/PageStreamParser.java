@@ -0,0 +1,122 @@
+package wikiscrape.utilities;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.BiPredicate;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import wikiscrape.queries.Queries;
+
+/**
+ * {@link ResponseParser} that streams the pages of a response to a {@link Consumer} as they are read, rather than building them into the returned tree.
+ * <p>
+ * The returned {@link JsonObject} holds everything else in the response (continuation and batch fields, warnings, errors), and can
+ * therefore be used by a {@link QueryIterator} to continue the query. Pages are read through a {@link PageCursor}.
+ * <p>
+ * The number of responses read, their total size, and their total latency are kept, so that the cost of a query may be measured.
+ */
+public class PageStreamParser implements ResponseParser {
+
+	private final String ARRAY_NAME;
+	private final BiPredicate<String, JsonObject> FIELD_FILTER;
+	private final Consumer<JsonObject> PAGE_CONSUMER;
+	private final AtomicLong RESPONSES = new AtomicLong();
+	private final AtomicLong BYTES_DECODED = new AtomicLong();
+	private final AtomicLong LATENCY = new AtomicLong();
+
+	/**
+	 * Creates a new {@link PageStreamParser} using the passed parameters.
+	 *
+	 * @param passedArrayName - The name of the collection of pages within the {@code query} field of the response (i.e. "pages")
+	 * @param passedFieldFilter - The field filter to pass to the {@link PageCursor}, or {@code null} to read every field
+	 * @param passedPageConsumer - The {@link Consumer} to receive each page as it is read
+	 */
+	public PageStreamParser(String passedArrayName, BiPredicate<String, JsonObject> passedFieldFilter, Consumer<JsonObject> passedPageConsumer) {
+		this.ARRAY_NAME = passedArrayName;
+		this.FIELD_FILTER = passedFieldFilter;
+		this.PAGE_CONSUMER = passedPageConsumer;
+	}
+
+	@Override
+	public JsonObject parse(JsonReader passedReader) throws IOException {
+		JsonObject envelope = new JsonObject();
+		JsonParser parser = new JsonParser();
+		passedReader.beginObject();
+		while (passedReader.hasNext()) {
+			String fieldName = passedReader.nextName();
+			if (Queries.FIELD_QUERY.equals(fieldName) && (passedReader.peek() == JsonToken.BEGIN_OBJECT)) {
+				envelope.add(fieldName, this.parseQuery(passedReader, parser));
+			}
+			else {
+				envelope.add(fieldName, parser.parse(passedReader));
+			}
+		}
+		passedReader.endObject();
+		return envelope;
+	}
+
+	@Override
+	public void received(long passedLatency, long passedBytesDecoded) {
+		this.RESPONSES.incrementAndGet();
+		this.BYTES_DECODED.addAndGet(passedBytesDecoded);
+		this.LATENCY.addAndGet(passedLatency);
+	}
+
+	/**
+	 * Returns the number of responses read by this {@link PageStreamParser}.
+	 *
+	 * @return The number of responses.
+	 */
+	public long getResponses() {
+		return this.RESPONSES.get();
+	}
+
+	/**
+	 * Returns the total size of the responses read by this {@link PageStreamParser}, after decompression.
+	 *
+	 * @return The number of bytes decoded.
+	 */
+	public long getBytesDecoded() {
+		return this.BYTES_DECODED.get();
+	}
+
+	/**
+	 * Returns the total latency of the responses read by this {@link PageStreamParser}.
+	 *
+	 * @return The summed latency, in nanoseconds.
+	 */
+	public long getLatency() {
+		return this.LATENCY.get();
+	}
+
+	/* Internal Methods */
+
+	private JsonObject parseQuery(JsonReader passedReader, JsonParser passedParser) throws IOException {
+		JsonObject query = new JsonObject();
+		passedReader.beginObject();
+		while (passedReader.hasNext()) {
+			String fieldName = passedReader.nextName();
+			if (this.ARRAY_NAME.equals(fieldName)) {
+				try {
+					for (JsonObject iteratedPage : new PageCursor(passedReader, this.FIELD_FILTER)) {
+						this.PAGE_CONSUMER.accept(iteratedPage);
+					}
+				}
+				catch (UncheckedIOException passedException) {
+					throw passedException.getCause();
+				}
+			}
+			else {
+				query.add(fieldName, passedParser.parse(passedReader));
+			}
+		}
+		passedReader.endObject();
+		return query;
+	}
+}
@@ -0,0 +1,174 @@
+package wikiscrape.utilities;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * A single stage of a processing pipeline: a bounded queue of work items drained by a fixed number of worker threads.
+ * <p>
+ * Items are handed to the stage with {@link #submit(Object)}, which blocks while the queue is full, so that a fast upstream stage cannot
+ * run arbitrarily far ahead of a slow downstream one. Stages are chained by having one stage's worker submit to the next. Exceptions
+ * thrown while processing an item are printed and counted, and do not stop the stage.
+ * <p>
+ * {@link #awaitCompletion()}, and {@link #close()}, wait for every item already submitted to be processed, so a chain of stages should be
+ * completed from upstream to downstream.
+ *
+ * @param <T> - The type of work item processed by this stage
+ */
+public class PipelineStage<T> implements AutoCloseable {
+
+	private static final String THREAD_NAME = "%s-%d";
+	private static final String STATUS_STRING = "%s: %d queued, %d processed, %d failed";
+	private static final String EXCEPTION_CLOSED = "May not submit work to a closed PipelineStage";
+	private static final String EXCEPTION_INTERRUPTED = "Interrupted while queueing work";
+	private static final Object STOP = new Object();
+
+	private final String NAME;
+	private final Consumer<T> WORKER;
+	private final BlockingQueue<Object> QUEUE;
+	private final Semaphore ACCEPTED;
+	private final List<Thread> THREADS = new ArrayList<Thread>();
+	private final AtomicLong PROCESSED = new AtomicLong();
+	private final AtomicLong FAILED = new AtomicLong();
+	private volatile boolean CLOSED = false;
+
+	/**
+	 * Creates and starts a new {@link PipelineStage} using the passed parameters.
+	 *
+	 * @param passedName - The name of this stage, used to name its threads and in its status
+	 * @param passedParallelism - The number of worker threads processing items
+	 * @param passedQueueCapacity - The number of items that may wait to be processed
+	 * @param passedWorker - The {@link Consumer} that processes each item
+	 * @throws IllegalArgumentException If {@code passedParallelism} or {@code passedQueueCapacity} is less than or equal to zero.
+	 */
+	public PipelineStage(String passedName, int passedParallelism, int passedQueueCapacity, Consumer<T> passedWorker) {
+		if ((passedParallelism <= 0) || (passedQueueCapacity <= 0)) {
+			throw new IllegalArgumentException("Parallelism and queue capacity must be greater than zero");
+		}
+		this.NAME = passedName;
+		this.WORKER = passedWorker;
+		this.QUEUE = new ArrayBlockingQueue<Object>(passedQueueCapacity + passedParallelism); // Reserves a slot per worker for STOP
+		this.ACCEPTED = new Semaphore(passedQueueCapacity);
+		for (int iterator = 0; iterator < passedParallelism; iterator++) {
+			Thread thread = new Thread(this::drain, String.format(THREAD_NAME, passedName, iterator));
+			thread.setDaemon(true);
+			this.THREADS.add(thread);
+			thread.start();
+		}
+	}
+
+	/**
+	 * Queues the passed item for processing, blocking while this stage's queue is full.
+	 *
+	 * @param passedItem - The item to process
+	 * @throws IllegalStateException If this stage has been closed, or the calling thread is interrupted while waiting for queue space.
+	 */
+	public void submit(T passedItem) {
+		if (this.CLOSED) {
+			throw new IllegalStateException(EXCEPTION_CLOSED);
+		}
+		try {
+			this.ACCEPTED.acquire();
+			this.QUEUE.put(passedItem);
+		}
+		catch (InterruptedException passedException) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(EXCEPTION_INTERRUPTED, passedException);
+		}
+	}
+
+	/**
+	 * Returns the number of items waiting to be processed.
+	 *
+	 * @return The current queue depth.
+	 */
+	public int getQueueDepth() {
+		return this.QUEUE.size();
+	}
+
+	/**
+	 * Returns the number of items this stage has processed without error.
+	 *
+	 * @return The number of items processed.
+	 */
+	public long getProcessed() {
+		return this.PROCESSED.get();
+	}
+
+	/**
+	 * Returns the number of items whose processing threw an exception.
+	 *
+	 * @return The number of failed items.
+	 */
+	public long getFailed() {
+		return this.FAILED.get();
+	}
+
+	/**
+	 * Stops this stage accepting items, and waits for every item already queued to be processed, after which {@link #getFailed()} covers
+	 * every item. Later calls return at once.
+	 * <p>
+	 * Items must not be submitted concurrently with this call.
+	 */
+	public void awaitCompletion() {
+		if (this.CLOSED) {
+			return;
+		}
+		this.CLOSED = true;
+		for (int iterator = 0; iterator < this.THREADS.size(); iterator++) {
+			this.QUEUE.add(STOP);
+		}
+		for (Thread iteratedThread : this.THREADS) {
+			try {
+				iteratedThread.join();
+			}
+			catch (InterruptedException passedException) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Equivalent to {@link #awaitCompletion()}.
+	 */
+	@Override
+	public void close() {
+		this.awaitCompletion();
+	}
+
+	@Override
+	public String toString() {
+		return String.format(STATUS_STRING, this.NAME, this.getQueueDepth(), this.getProcessed(), this.getFailed());
+	}
+
+	/* Internal Methods */
+
+	@SuppressWarnings("unchecked")
+	private void drain() {
+		try {
+			while (true) {
+				Object item = this.QUEUE.take();
+				if (item == STOP) {
+					break;
+				}
+				this.ACCEPTED.release();
+				try {
+					this.WORKER.accept((T) item);
+					this.PROCESSED.incrementAndGet();
+				}
+				catch (RuntimeException passedException) {
+					this.FAILED.incrementAndGet();
+					passedException.printStackTrace();
+				}
+			}
+		}
+		catch (InterruptedException passedException) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -21,13 +21,70 @@ public class QueryIterator implements Iterator<JsonObject>, Iterable<JsonObject>
 	private RequestManager MANAGER_REFERENCE;
 	private QueryBuilder QUERY;
 	private JsonObject RETRIEVED_JSON;
+	private ResponseParser PARSER;
+	private String START_CONTINUATION;
 	private boolean REQUEST_PERFORMED;
-	private int TIMEOUT;
 
-	public QueryIterator(RequestManager passedManager, QueryBuilder passedQuery, int passedTimeout) {
+	/**
+	 * Creates a new {@link QueryIterator} that will issue the passed query, and any continuations of it, through the passed {@link RequestManager}.
+	 * <p>
+	 * Request pacing is left to the {@link RequestManager}'s {@link wikiscrape.throttle.Throttle}.
+	 *
+	 * @param passedManager - The {@link RequestManager} to issue requests through
+	 * @param passedQuery - The {@link QueryBuilder} to query with
+	 */
+	public QueryIterator(RequestManager passedManager, QueryBuilder passedQuery) {
+		this(passedManager, passedQuery, ResponseParser.TREE);
+	}
+
+	/**
+	 * Creates a new {@link QueryIterator} as per {@link #QueryIterator(RequestManager, QueryBuilder)}, whose responses will be read using the passed {@link ResponseParser}.
+	 * <p>
+	 * The {@link ResponseParser} must preserve the continuation fields of each response in the {@link JsonObject} it returns, as a {@link PageStreamParser} does.
+	 *
+	 * @param passedManager - The {@link RequestManager} to issue requests through
+	 * @param passedQuery - The {@link QueryBuilder} to query with
+	 * @param passedParser - The {@link ResponseParser} to read responses with
+	 */
+	public QueryIterator(RequestManager passedManager, QueryBuilder passedQuery, ResponseParser passedParser) {
+		this(passedManager, passedQuery, passedParser, null);
+	}
+
+	/**
+	 * Creates a new {@link QueryIterator} as per {@link #QueryIterator(RequestManager, QueryBuilder, ResponseParser)}, which will resume the query from
+	 * the passed continuation rather than issuing it from the start.
+	 *
+	 * @param passedManager - The {@link RequestManager} to issue requests through
+	 * @param passedQuery - The {@link QueryBuilder} to query with
+	 * @param passedParser - The {@link ResponseParser} to read responses with
+	 * @param passedContinuation - A continuation previously returned by {@link #getContinuation()}, or {@code null} to start from the beginning
+	 */
+	public QueryIterator(RequestManager passedManager, QueryBuilder passedQuery, ResponseParser passedParser, String passedContinuation) {
 		this.MANAGER_REFERENCE = passedManager;
 		this.QUERY = passedQuery;
-		this.TIMEOUT = passedTimeout;
+		this.PARSER = passedParser;
+		this.START_CONTINUATION = passedContinuation;
+	}
+
+	/**
+	 * Returns the continuation that the next call to {@link #next()} will request, in the form of a query postfix.
+	 * <p>
+	 * This may be recorded and later passed to {@link #QueryIterator(RequestManager, QueryBuilder, ResponseParser, String)} to resume the query.
+	 *
+	 * @return The pending continuation, or {@code null} if the query has not been started or is complete.
+	 */
+	public String getContinuation() {
+		if (!this.REQUEST_PERFORMED) {
+			return this.START_CONTINUATION;
+		}
+		if (!this.hasContinues()) {
+			return null;
+		}
+		JsonObject continuations = getContinueElements(this.RETRIEVED_JSON);
+		Set<Entry<String, JsonElement>> entrySet = continuations.entrySet();
+		ArrayList<String> continuationStrings = new ArrayList<String>();
+		entrySet.forEach((entry) -> { continuationStrings.add(ScrapeUtilities.getQueryTerm(entry.getKey(), entry.getValue().getAsString())); });
+		return ScrapeUtilities.concatenateCommands(continuationStrings.toArray(new String[]{}));
 	}
 
 	/* Iterable Compliance Methods */
@@ -50,23 +107,13 @@ public class QueryIterator implements Iterator<JsonObject>, Iterable<JsonObject>
 
 	@Override
 	public JsonObject next() {
+		String postfix = this.getContinuation();
 		this.REQUEST_PERFORMED = true;
-		if (this.hasContinues()) {
-			JsonObject continuations = getContinueElements(this.RETRIEVED_JSON);
-			Set<Entry<String, JsonElement>> entrySet = continuations.entrySet();
-			ArrayList<String> continuationStrings = new ArrayList<String>();
-			entrySet.forEach((entry) -> { continuationStrings.add(String.format("%s=%s", entry.getKey(), entry.getValue())); });
-			String postfix = ScrapeUtilities.concatenateArguments(continuationStrings.toArray(new String[]{}));
-			this.RETRIEVED_JSON = this.MANAGER_REFERENCE.requestWithPostfix(this.QUERY, postfix);
+		if (postfix != null) {
+			this.RETRIEVED_JSON = this.MANAGER_REFERENCE.requestWithPostfix(this.QUERY, postfix, this.PARSER);
 		}
 		else {
-			this.RETRIEVED_JSON = this.MANAGER_REFERENCE.request(this.QUERY);
-		}
-		try {
-			Thread.sleep(this.TIMEOUT * 1000);
-		}
-		catch (InterruptedException passedException) {
-			passedException.printStackTrace();
+			this.RETRIEVED_JSON = this.MANAGER_REFERENCE.request(this.QUERY, this.PARSER);
 		}
 		return this.RETRIEVED_JSON;
 	}
@@ -74,10 +121,9 @@ public class QueryIterator implements Iterator<JsonObject>, Iterable<JsonObject>
 	/* Internal Methods */
 
 	private boolean hasContinues() {
+		// An incomplete batch is always accompanied by continuation fields; without them (i.e. on an error) there is nothing to continue from
 		if (!jsonIsNull(this.RETRIEVED_JSON)) {
-			boolean continueFields = this.RETRIEVED_JSON.has(Queries.FIELD_CONTINUE);
-			boolean batchIncomplete = !this.RETRIEVED_JSON.has(Queries.FIELD_BATCH_COMPLETE);
-			return (batchIncomplete || continueFields);
+			return this.RETRIEVED_JSON.has(Queries.FIELD_CONTINUE);
 		}
 		return false;
 	}
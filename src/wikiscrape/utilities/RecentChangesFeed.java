@@ -0,0 +1,145 @@
+package wikiscrape.utilities;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import com.google.gson.JsonObject;
+
+import wikiscrape.queries.Argument;
+import wikiscrape.queries.Queries;
+import wikiscrape.queries.QueryBuilder;
+
+/**
+ * Lists the pages edited on a wiki since a given time, using the {@code list=recentchanges} feed.
+ * <p>
+ * This allows a scrape to refetch only the pages that have changed since the last run, rather than polling the revision of every tracked page.
+ * The time up to which changes have been taken into account (the high-water mark) is kept in a small file between runs; see
+ * {@link #readHighWater(Path)} and {@link #writeHighWater(Path, Instant)}.
+ * <p>
+ * Wikis only keep their recent changes for a limited time (thirty days on Wikipedia), so a high-water mark older than that can't be relied on.
+ */
+public class RecentChangesFeed {
+
+	/**
+	 * The age beyond which a high-water mark is too old for the feed to be complete.
+	 */
+	public static final Duration MAX_AGE = Duration.ofDays(30);
+
+	/**
+	 * The margin by which a high-water mark is set earlier than the time it was taken, to allow for clock skew against the wiki.
+	 */
+	public static final Duration SKEW_MARGIN = Duration.ofMinutes(10);
+
+	private static final String STATUS_STRING = "%d changes since %s; %d tracked pages changed";
+	private static final String TEMPORARY_SUFFIX = ".tmp";
+
+	private final RequestManager MANAGER_REFERENCE;
+
+	/**
+	 * Creates a new {@link RecentChangesFeed} that will issue its requests through the passed {@link RequestManager}.
+	 *
+	 * @param passedManager - The {@link RequestManager} to issue requests through
+	 */
+	public RecentChangesFeed(RequestManager passedManager) {
+		this.MANAGER_REFERENCE = passedManager;
+	}
+
+	/**
+	 * Returns the IDs of the articles edited or created since the passed time that are accepted by the passed filter.
+	 * <p>
+	 * Each page is returned once, however many times it was edited, in the order of its first change.
+	 *
+	 * @param passedSince - The time from which to list changes
+	 * @param passedTrackedFilter - A {@link Predicate} accepting the IDs of the pages of interest
+	 * @return An ordered set of the IDs of the changed pages.
+	 * @throws IllegalStateException If a request fails, as the list of changes would then be incomplete.
+	 */
+	public Set<String> getChangedPages(Instant passedSince, Predicate<String> passedTrackedFilter) {
+		Set<String> changedPages = new LinkedHashSet<String>();
+		long[] changes = new long[1];
+		final Consumer<JsonObject> changeConsumer = (object) -> {
+			changes[0]++;
+			String pageID = object.get(Queries.FIELD_PAGEID).getAsString();
+			if (passedTrackedFilter.test(pageID)) {
+				changedPages.add(pageID);
+			}
+		};
+		PageStreamParser parser = new PageStreamParser(Queries.FIELD_RECENTCHANGES, null, changeConsumer);
+		QueryIterator queryIterator = new QueryIterator(this.MANAGER_REFERENCE, getChangesQuery(passedSince), parser);
+		while (queryIterator.hasNext()) {
+			// Changes are handed to the consumer while each response is read
+			if (queryIterator.next() == null) {
+				throw new IllegalStateException(String.format("Listing recent changes since %s failed", passedSince));
+			}
+		}
+		System.out.println(String.format(STATUS_STRING, changes[0], passedSince, changedPages.size()));
+		return changedPages;
+	}
+
+	/**
+	 * Returns whether changes since the passed time can still be listed in full.
+	 *
+	 * @param passedSince - The time from which changes would be listed
+	 * @return Whether the passed time lies within the period covered by the feed.
+	 */
+	public static boolean isWithinFeed(Instant passedSince) {
+		return passedSince.isAfter(Instant.now().minus(MAX_AGE));
+	}
+
+	/**
+	 * Reads the high-water mark stored at the passed path.
+	 *
+	 * @param passedPath - The path of the file holding the high-water mark
+	 * @return The stored high-water mark, or {@code null} if there is none or it can't be read.
+	 */
+	public static Instant readHighWater(Path passedPath) {
+		if (!Files.exists(passedPath)) {
+			return null;
+		}
+		try {
+			return Instant.parse(new String(Files.readAllBytes(passedPath), StandardCharsets.UTF_8).trim());
+		}
+		catch (IOException | DateTimeParseException passedException) {
+			passedException.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 * Stores the passed high-water mark at the passed path, replacing any stored before.
+	 * <p>
+	 * The mark is written to a temporary file and moved into place, so that a crash never leaves a partial mark behind.
+	 *
+	 * @param passedPath - The path of the file to hold the high-water mark
+	 * @param passedHighWater - The high-water mark to store
+	 * @throws IOException If the mark could not be written
+	 */
+	public static void writeHighWater(Path passedPath, Instant passedHighWater) throws IOException {
+		Path temporaryPath = passedPath.resolveSibling(passedPath.getFileName() + TEMPORARY_SUFFIX);
+		Files.write(temporaryPath, passedHighWater.truncatedTo(ChronoUnit.SECONDS).toString().getBytes(StandardCharsets.UTF_8));
+		Files.move(temporaryPath, passedPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/* Logic Methods */
+
+	private static QueryBuilder getChangesQuery(Instant passedSince) {
+		QueryBuilder start = new QueryBuilder(Queries.ARGUMENT_RECENTCHANGES_START).setArguments(new Argument(passedSince.truncatedTo(ChronoUnit.SECONDS).toString()));
+		QueryBuilder direction = new QueryBuilder(Queries.ARGUMENT_RECENTCHANGES_DIRECTION).setArguments(Queries.ARGUMENT_DIRECTION_NEWER);
+		QueryBuilder properties = new QueryBuilder(Queries.ARGUMENT_RECENTCHANGES_PROPERTIES).setArguments(Queries.ARGUMENT_PROPERTY_IDS);
+		QueryBuilder type = new QueryBuilder(Queries.ARGUMENT_RECENTCHANGES_TYPE).setArguments(Queries.ARGUMENT_TYPE_EDIT, Queries.ARGUMENT_TYPE_NEW);
+		QueryBuilder namespace = new QueryBuilder(Queries.ARGUMENT_RECENTCHANGES_NAMESPACE).setArguments(new Argument(String.valueOf(Queries.NAMESPACE_MAIN)));
+		QueryBuilder limit = new QueryBuilder(Queries.ARGUMENT_RECENTCHANGES_LIMIT).setArguments(Queries.ARGUMENT_LIMIT_MAX);
+		return Queries.newWith(Queries.LIST_RECENTCHANGES, Queries.OPTION_FORMAT_JSON, start, direction, properties, type, namespace, limit);
+	}
+}
@@ -1,23 +1,91 @@
 package wikiscrape.utilities;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
+import java.io.PushbackInputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
 
 import wikiscrape.queries.Queries;
 import wikiscrape.queries.QueryBuilder;
+import wikiscrape.throttle.Throttle;
+import wikiscrape.throttle.ThrottleFeedback;
+import wikiscrape.throttle.Throttles;
 
+/**
+ * Class responsible for issuing wiki API requests and converting their responses to {@link JsonObject} instances.
+ * <p>
+ * All {@link RequestManager} instances share a single keep-alive {@link HttpClient}, so connections (and their TLS sessions) are reused between
+ * requests rather than being set up anew for each batch. HTTP/2 is used where the server offers it. Requests may be issued asynchronously through
+ * {@link #requestAsync(QueryBuilder)}; the number of requests in flight at once is bounded per {@link RequestManager} instance.
+ * <p>
+ * Pacing is delegated to a {@link Throttle}, shared per host. Every request carries a {@code maxlag} parameter, and requests refused
+ * because of replication lag or server overload are retried once the {@link Throttle} allows.
+ * <p>
+ * Responses are requested with gzip or deflate compression and decompressed as they stream into the {@link ResponseParser}. Byte counts
+ * before and after decompression are logged per request and accumulated per {@link RequestManager} instance.
+ */
 public class RequestManager {
 
+	private static final int DEFAULT_MAX_IN_FLIGHT = 4;
+	private static final Duration TIMEOUT_CONNECT = Duration.ofSeconds(30);
+	private static final Duration TIMEOUT_REQUEST = Duration.ofSeconds(120);
+	private static final int MAX_ATTEMPTS = 5;
+	private static final int MAXLAG_SECONDS = 5;
+	private static final int DECODE_BUFFER_SIZE = 8192;
+	private static final String HEADER_RETRY_AFTER = "Retry-After";
+	private static final String HEADER_ACCEPT_ENCODING = "Accept-Encoding";
+	private static final String HEADER_CONTENT_ENCODING = "Content-Encoding";
+	private static final String ENCODING_GZIP = "gzip";
+	private static final String ENCODING_DEFLATE = "deflate";
+	private static final String ENCODING_IDENTITY = "identity";
+	private static final String ACCEPTED_ENCODINGS = ENCODING_GZIP + ", " + ENCODING_DEFLATE;
+	private static final String TRANSFER_STRING = "Received %d bytes (%s), %d bytes decoded";
+	private static final String EXCEPTION_STATUS = "Request \"%s\" failed with HTTP status %d";
+	private static final String EXCEPTION_RETRIES = "Request \"%s\" was still refused by the server after %d attempts";
+
+	private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool((runnable) -> {
+		Thread thread = new Thread(runnable, "RequestManager");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private static final HttpClient CLIENT = HttpClient.newBuilder()
+			.executor(EXECUTOR)
+			.version(HttpClient.Version.HTTP_2)
+			.followRedirects(HttpClient.Redirect.NORMAL)
+			.connectTimeout(TIMEOUT_CONNECT)
+			.build();
+
 	private String BASE_URL;
 	private String CONNECTION_TYPE;
 	private String API_STRING;
 	private String ACTION_TYPE;
+	private Semaphore IN_FLIGHT;
+	private Throttle THROTTLE;
+	private AtomicLong BYTES_RECEIVED = new AtomicLong();
+	private AtomicLong BYTES_DECODED = new AtomicLong();
 
 	/**
 	 * Creates a new {@link RequestManager} with the wiki-standard connection types and api strings.
@@ -38,10 +106,59 @@ public class RequestManager {
 	 * @param passedActionType - The type of action being taken with this request.
 	 */
 	public RequestManager(String passedConnectionType, String passedStringURL, String passedAPIString, String passedActionType) {
+		this(passedConnectionType, passedStringURL, passedAPIString, passedActionType, DEFAULT_MAX_IN_FLIGHT);
+	}
+
+	/**
+	 * Creates a new {@link RequestManager} as per {@link #RequestManager(String, String, String, String)}, which will allow at most
+	 * the passed number of requests to be in flight at once.
+	 *
+	 * @param passedConnectionType - The type of network connection
+	 * @param passedStringURL - The base URL to access
+	 * @param passedAPIString - The access point to the desired json object
+	 * @param passedActionType - The type of action being taken with this request.
+	 * @param passedMaxInFlight - The maximum number of concurrent requests
+	 * @throws IllegalArgumentException - If {@code passedMaxInFlight} is less than or equal to zero.
+	 */
+	public RequestManager(String passedConnectionType, String passedStringURL, String passedAPIString, String passedActionType, int passedMaxInFlight) {
+		if (passedMaxInFlight <= 0) {
+			throw new IllegalArgumentException("Maximum requests in flight must be greater than zero");
+		}
 		this.BASE_URL = passedStringURL;
 		this.CONNECTION_TYPE = passedConnectionType;
 		this.API_STRING = passedAPIString;
 		this.ACTION_TYPE = passedActionType;
+		this.IN_FLIGHT = new Semaphore(passedMaxInFlight, true);
+		this.THROTTLE = Throttles.forHost(passedStringURL);
+	}
+
+	/**
+	 * Sets the {@link Throttle} governing requests made by this {@link RequestManager}.
+	 * <p>
+	 * By default, the {@link Throttle} shared by all requests to the same host is used; see {@link Throttles#forHost(String)}.
+	 *
+	 * @param passedThrottle - The {@link Throttle} to use
+	 */
+	public void setThrottle(Throttle passedThrottle) {
+		this.THROTTLE = passedThrottle;
+	}
+
+	/**
+	 * Returns the total number of response body bytes received over the network by this {@link RequestManager}, before decompression.
+	 *
+	 * @return The number of bytes received.
+	 */
+	public long getBytesReceived() {
+		return this.BYTES_RECEIVED.get();
+	}
+
+	/**
+	 * Returns the total number of response body bytes read by this {@link RequestManager} after decompression.
+	 *
+	 * @return The number of bytes decoded.
+	 */
+	public long getBytesDecoded() {
+		return this.BYTES_DECODED.get();
 	}
 
 	/**
@@ -51,37 +168,282 @@ public class RequestManager {
 	 * @return A {@link JsonObject} retrieved using the passed {@link QueryBuilder} or {@code null} if an exception occurred.
 	 */
 	public JsonObject request(QueryBuilder passedQuery) {
-		String generatedString = String.format("%s://%s%s%s&%s", this.CONNECTION_TYPE, this.BASE_URL, this.API_STRING, this.ACTION_TYPE, passedQuery.build());
-		return requestUsing(passedQuery, generatedString);
+		return this.request(passedQuery, ResponseParser.TREE);
+	}
+
+	/**
+	 * Retrieves a {@link JsonObject} using the passed {@link QueryBuilder} instance, reading the response with the passed {@link ResponseParser}.
+	 *
+	 * @param passedQuery - The {@link QueryBuilder} instance to use
+	 * @param passedParser - The {@link ResponseParser} to read the response with
+	 * @return A {@link JsonObject} retrieved using the passed {@link QueryBuilder} or {@code null} if an exception occurred.
+	 */
+	public JsonObject request(QueryBuilder passedQuery, ResponseParser passedParser) {
+		return awaitResult(this.requestAsync(passedQuery, passedParser));
 	}
 
 	/**
 	 * Retrieves a {@link JsonObject} using the passed {@link QueryBuilder} instance.
 	 *
 	 * @param passedQuery - The {@link QueryBuilder} instance to use
-	 * @param passedPostfix - An arbitrary String to be postfixed to the 
+	 * @param passedPostfix - An arbitrary String to be postfixed to the
 	 * @return A {@link JsonObject} retrieved using the passed {@link QueryBuilder} or {@code null} if an exception occurred.
 	 */
 	public JsonObject requestWithPostfix(QueryBuilder passedQuery, String passedPostfix) {
-		String generatedString = String.format("%s://%s%s%s&%s&%s", this.CONNECTION_TYPE, this.BASE_URL, this.API_STRING, this.ACTION_TYPE, passedQuery.build(), passedPostfix);
-		return requestUsing(passedQuery, generatedString);
+		return this.requestWithPostfix(passedQuery, passedPostfix, ResponseParser.TREE);
+	}
+
+	/**
+	 * Retrieves a {@link JsonObject} using the passed {@link QueryBuilder} instance and postfix, reading the response with the passed {@link ResponseParser}.
+	 *
+	 * @param passedQuery - The {@link QueryBuilder} instance to use
+	 * @param passedPostfix - An arbitrary String to be postfixed to the generated query
+	 * @param passedParser - The {@link ResponseParser} to read the response with
+	 * @return A {@link JsonObject} retrieved using the passed {@link QueryBuilder} or {@code null} if an exception occurred.
+	 */
+	public JsonObject requestWithPostfix(QueryBuilder passedQuery, String passedPostfix, ResponseParser passedParser) {
+		return awaitResult(this.requestWithPostfixAsync(passedQuery, passedPostfix, passedParser));
+	}
+
+	/**
+	 * Asynchronously retrieves a {@link JsonObject} using the passed {@link QueryBuilder} instance.
+	 * <p>
+	 * The query is built on the calling thread, so the passed {@link QueryBuilder} may be altered as soon as this method returns. If the maximum
+	 * number of requests is already in flight, this method blocks until one of them completes.
+	 *
+	 * @param passedQuery - The {@link QueryBuilder} instance to use
+	 * @return A {@link CompletableFuture} that will complete with the retrieved {@link JsonObject}, or exceptionally if the request failed.
+	 */
+	public CompletableFuture<JsonObject> requestAsync(QueryBuilder passedQuery) {
+		return this.requestAsync(passedQuery, ResponseParser.TREE);
+	}
+
+	/**
+	 * Asynchronously retrieves a {@link JsonObject} as per {@link #requestAsync(QueryBuilder)}, reading the response with the passed {@link ResponseParser}.
+	 * <p>
+	 * The {@link ResponseParser} is invoked on a network thread while the response body is still arriving.
+	 *
+	 * @param passedQuery - The {@link QueryBuilder} instance to use
+	 * @param passedParser - The {@link ResponseParser} to read the response with
+	 * @return A {@link CompletableFuture} that will complete with the retrieved {@link JsonObject}, or exceptionally if the request failed.
+	 */
+	public CompletableFuture<JsonObject> requestAsync(QueryBuilder passedQuery, ResponseParser passedParser) {
+		return this.requestUsing(this.buildURL(passedQuery), passedParser, 1);
+	}
+
+	/**
+	 * Asynchronously retrieves a {@link JsonObject} using the passed {@link QueryBuilder} instance and postfix, as per {@link #requestAsync(QueryBuilder)}.
+	 *
+	 * @param passedQuery - The {@link QueryBuilder} instance to use
+	 * @param passedPostfix - An arbitrary String to be postfixed to the generated query
+	 * @return A {@link CompletableFuture} that will complete with the retrieved {@link JsonObject}, or exceptionally if the request failed.
+	 */
+	public CompletableFuture<JsonObject> requestWithPostfixAsync(QueryBuilder passedQuery, String passedPostfix) {
+		return this.requestWithPostfixAsync(passedQuery, passedPostfix, ResponseParser.TREE);
+	}
+
+	/**
+	 * Asynchronously retrieves a {@link JsonObject} using the passed {@link QueryBuilder} instance and postfix, as per {@link #requestAsync(QueryBuilder, ResponseParser)}.
+	 *
+	 * @param passedQuery - The {@link QueryBuilder} instance to use
+	 * @param passedPostfix - An arbitrary String to be postfixed to the generated query
+	 * @param passedParser - The {@link ResponseParser} to read the response with
+	 * @return A {@link CompletableFuture} that will complete with the retrieved {@link JsonObject}, or exceptionally if the request failed.
+	 */
+	public CompletableFuture<JsonObject> requestWithPostfixAsync(QueryBuilder passedQuery, String passedPostfix, ResponseParser passedParser) {
+		return this.requestUsing(this.buildURL(passedQuery, passedPostfix), passedParser, 1);
+	}
+
+	/* Internal Methods */
+
+	private CompletableFuture<JsonObject> requestUsing(String passedURLString, ResponseParser passedParser, int passedAttempt) {
+		HttpRequest request;
+		try {
+			request = HttpRequest.newBuilder(toURI(passedURLString)).timeout(TIMEOUT_REQUEST).header(HEADER_ACCEPT_ENCODING, ACCEPTED_ENCODINGS).GET().build();
+			this.IN_FLIGHT.acquire();
+		}
+		catch (IOException | URISyntaxException passedException) {
+			return CompletableFuture.failedFuture(passedException);
+		}
+		catch (InterruptedException passedException) {
+			Thread.currentThread().interrupt();
+			return CompletableFuture.failedFuture(passedException);
+		}
+		Throttle throttle = this.THROTTLE;
+		try {
+			throttle.acquire();
+		}
+		catch (InterruptedException passedException) {
+			this.IN_FLIGHT.release();
+			Thread.currentThread().interrupt();
+			return CompletableFuture.failedFuture(passedException);
+		}
+		System.out.println(passedURLString);
+		long startTime = System.nanoTime();
+		CompletableFuture<ParsedResponse> response;
+		try {
+			response = CLIENT.sendAsync(request, BodyHandlers.ofInputStream()).thenApply((passedResponse) -> this.parseResponse(passedResponse, passedParser, startTime));
+		}
+		catch (RuntimeException passedException) {
+			response = CompletableFuture.failedFuture(passedException);
+		}
+		return response.whenComplete((result, exception) -> {
+			ThrottleFeedback feedback = (result != null) ? result.FEEDBACK : new ThrottleFeedback(System.nanoTime() - startTime, ThrottleFeedback.STATUS_NO_RESPONSE, 0, false);
+			throttle.release(feedback);
+			this.IN_FLIGHT.release();
+		}).thenCompose((result) -> this.resolve(result, passedURLString, passedParser, passedAttempt));
+	}
+
+	private CompletableFuture<JsonObject> resolve(ParsedResponse passedResponse, String passedURLString, ResponseParser passedParser, int passedAttempt) {
+		if (passedResponse.ERROR != null) {
+			return CompletableFuture.failedFuture(passedResponse.ERROR);
+		}
+		if (passedResponse.FEEDBACK.shouldRetry()) {
+			if (passedAttempt < MAX_ATTEMPTS) {
+				// Re-issue off the completing thread; the retry blocks in the throttle until any requested pause has elapsed
+				return CompletableFuture.supplyAsync(() -> this.requestUsing(passedURLString, passedParser, passedAttempt + 1), EXECUTOR).thenCompose(Function.identity());
+			}
+			return CompletableFuture.failedFuture(new IOException(String.format(EXCEPTION_RETRIES, passedURLString, passedAttempt)));
+		}
+		if (passedResponse.JSON == null) {
+			return CompletableFuture.failedFuture(new IOException(String.format(EXCEPTION_STATUS, passedURLString, passedResponse.FEEDBACK.getStatusCode())));
+		}
+		return CompletableFuture.completedFuture(passedResponse.JSON);
+	}
+
+	private String buildURL(QueryBuilder passedQuery, String... passedPostfixes) {
+		String maxlagTerm = ScrapeUtilities.getQueryTerm(Queries.FIELD_MAXLAG, String.valueOf(MAXLAG_SECONDS));
+		String generatedString = String.format("%s://%s%s%s&%s&%s", this.CONNECTION_TYPE, this.BASE_URL, this.API_STRING, this.ACTION_TYPE, maxlagTerm, passedQuery.build());
+		if (passedPostfixes.length > 0) {
+			generatedString = ScrapeUtilities.concatenateCommands(generatedString, ScrapeUtilities.concatenateCommands(passedPostfixes));
+		}
+		return generatedString;
 	}
 
 	/* Logic Methods */
-	private static JsonObject requestUsing(QueryBuilder passedQueryBuilder, String passedURLString) {
+
+	private ParsedResponse parseResponse(HttpResponse<InputStream> passedResponse, ResponseParser passedParser, long passedStartTime) {
+		// Latency is measured to the arrival of the headers, so that time spent by the parser's consumers is not mistaken for server load
+		long latency = System.nanoTime() - passedStartTime;
+		int statusCode = passedResponse.statusCode();
+		long retryAfter = passedResponse.headers().firstValue(HEADER_RETRY_AFTER).map(RequestManager::parseRetryAfter).orElse(0L);
+		String encoding = passedResponse.headers().firstValue(HEADER_CONTENT_ENCODING).orElse(ENCODING_IDENTITY);
+		JsonObject rootObject = null;
+		RuntimeException error = null;
+		boolean lagged = false;
+		CountingInputStream receivedStream = new CountingInputStream(passedResponse.body());
+		CountingInputStream decodedStream = null;
+		try (receivedStream) {
+			if (statusCode == 200) {
+				decodedStream = new CountingInputStream(decode(receivedStream, encoding));
+				try (JsonReader reader = new JsonReader(new InputStreamReader(decodedStream, StandardCharsets.UTF_8))) {
+					reader.setLenient(true);
+					rootObject = passedParser.parse(reader);
+					lagged = isMaxlagError(rootObject);
+				}
+			}
+		}
+		catch (IOException passedException) {
+			error = new UncheckedIOException(passedException);
+		}
+		catch (RuntimeException passedException) {
+			error = passedException;
+		}
+		finally {
+			long decodedBytes = (decodedStream != null) ? decodedStream.getCount() : 0L;
+			this.BYTES_RECEIVED.addAndGet(receivedStream.getCount());
+			this.BYTES_DECODED.addAndGet(decodedBytes);
+			System.out.println(String.format(TRANSFER_STRING, receivedStream.getCount(), encoding, decodedBytes));
+			if (decodedStream != null) {
+				passedParser.received(latency, decodedBytes);
+			}
+		}
+		if (lagged) {
+			rootObject = null;
+			if (retryAfter <= 0) {
+				retryAfter = MAXLAG_SECONDS;
+			}
+		}
+		// A response that could not be read or parsed fails its request, but says nothing of the server's load
+		return new ParsedResponse(rootObject, new ThrottleFeedback(latency, statusCode, retryAfter, lagged), error);
+	}
+
+	private static InputStream decode(InputStream passedStream, String passedEncoding) throws IOException {
+		switch (passedEncoding.trim().toLowerCase()) {
+			case ENCODING_GZIP:
+				return new GZIPInputStream(passedStream, DECODE_BUFFER_SIZE);
+			case ENCODING_DEFLATE:
+				// "deflate" is specified as zlib-wrapped, but some servers send raw deflate data; tell the two apart by the zlib header
+				PushbackInputStream pushbackStream = new PushbackInputStream(passedStream, 2);
+				byte[] header = new byte[2];
+				int headerLength = pushbackStream.readNBytes(header, 0, 2);
+				pushbackStream.unread(header, 0, headerLength);
+				boolean zlibWrapped = (headerLength == 2) && ((header[0] & 0x0F) == 8) && ((((header[0] & 0xFF) << 8) | (header[1] & 0xFF)) % 31 == 0);
+				Inflater inflater = new Inflater(!zlibWrapped);
+				return new InflaterInputStream(pushbackStream, inflater, DECODE_BUFFER_SIZE) {
+
+					@Override
+					public void close() throws IOException {
+						// A stream only ends the inflater it created itself; this one's native memory would otherwise be held until finalization
+						try {
+							super.close();
+						}
+						finally {
+							inflater.end();
+						}
+					}
+				};
+			default:
+				return passedStream;
+		}
+	}
+
+	private static boolean isMaxlagError(JsonObject passedJsonObject) {
+		if (passedJsonObject.has(Queries.FIELD_ERROR)) {
+			JsonElement code = passedJsonObject.getAsJsonObject(Queries.FIELD_ERROR).get(Queries.FIELD_CODE);
+			return (code != null) && Queries.FIELD_MAXLAG.equals(code.getAsString());
+		}
+		return false;
+	}
+
+	private static long parseRetryAfter(String passedHeaderValue) {
 		try {
-			URL generatedURL = new URL(passedURLString);
-			System.out.println(generatedURL.toExternalForm());
-			HttpURLConnection request = (HttpURLConnection) generatedURL.openConnection();
-			request.connect();
-			JsonParser parser = new JsonParser();
-			JsonElement rootObject = parser.parse(new InputStreamReader((InputStream) request.getContent())); // Convert the input stream to a json element
-			request.disconnect();
-			return rootObject.getAsJsonObject();
+			return Long.parseLong(passedHeaderValue.trim());
+		}
+		catch (NumberFormatException passedException) {
+			// HTTP-date form is not used by the wiki API; fall back to the maxlag delay
+			return MAXLAG_SECONDS;
+		}
+	}
+
+	private static JsonObject awaitResult(CompletableFuture<JsonObject> passedFuture) {
+		try {
+			return passedFuture.join();
 		}
 		catch (Exception passedException) {
 			passedException.printStackTrace();
 		}
 		return null;
 	}
+
+	private static URI toURI(String passedURLString) throws IOException, URISyntaxException {
+		// Multi-argument URI constructor quotes characters (such as "|") that the wiki API uses but URI.create() rejects
+		URL generatedURL = new URL(passedURLString);
+		return new URI(generatedURL.getProtocol(), generatedURL.getAuthority(), generatedURL.getPath(), generatedURL.getQuery(), null);
+	}
+
+	/* Internal Classes */
+
+	private static class ParsedResponse {
+
+		private final JsonObject JSON;
+		private final ThrottleFeedback FEEDBACK;
+		private final RuntimeException ERROR;
+
+		private ParsedResponse(JsonObject passedJson, ThrottleFeedback passedFeedback, RuntimeException passedError) {
+			this.JSON = passedJson;
+			this.FEEDBACK = passedFeedback;
+			this.ERROR = passedError;
+		}
+	}
 }
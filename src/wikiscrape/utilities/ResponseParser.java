@@ -0,0 +1,39 @@
+package wikiscrape.utilities;
+
+import java.io.IOException;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+
+/**
+ * Functional interface for converting the body of a wiki API response into the {@link JsonObject} returned by a {@link RequestManager}.
+ */
+@FunctionalInterface
+public interface ResponseParser {
+
+	/**
+	 * {@link ResponseParser} that reads the entire response into a {@link JsonObject} tree.
+	 */
+	public static final ResponseParser TREE = (reader) -> {
+		return new JsonParser().parse(reader).getAsJsonObject();
+	};
+
+	/**
+	 * Reads a single response from the passed {@link JsonReader}.
+	 *
+	 * @param passedReader - The {@link JsonReader} positioned at the start of the response body
+	 * @return The {@link JsonObject} to be returned for the response.
+	 * @throws IOException If the response body could not be read, or is malformed
+	 */
+	public JsonObject parse(JsonReader passedReader) throws IOException;
+
+	/**
+	 * Called once a response has been read, with its size and latency. Does nothing by default.
+	 *
+	 * @param passedLatency - The time, in nanoseconds, from sending the request to receiving the response headers
+	 * @param passedBytesDecoded - The number of response body bytes read, after decompression
+	 */
+	public default void received(long passedLatency, long passedBytesDecoded) {
+	}
+}
@@ -7,12 +7,29 @@ package wikiscrape.utilities;
  */
 public class ScrapeConfig {
 	
+	private static final int DEFAULT_CRAWL_THREADS = 4;
+	private static final String DEFAULT_JOURNAL_PATH = "scrape.journal";
+	private static final String DEFAULT_SYNC_STATE_PATH = "scrape.sync";
+	private static final String DEFAULT_STATE_INDEX_PATH = "scrape.index";
+	private static final String DEFAULT_DICTIONARY_PATH = "text.dict";
+	
 	private String USERNAME;
 	private String PASSWORD;
 	private String SQL_URL;
 	private String WIKI_URL;
 	private String TABLENAME;
 	private String[] CATEGORY_PAGES;
+	private int WRITER_THREADS;
+	private int FETCH_THREADS;
+	private int TRANSFORM_THREADS;
+	private int BATCH_CONCURRENCY;
+	private int CATEGORY_DEPTH;
+	private int CRAWL_THREADS;
+	private String JOURNAL_PATH;
+	private String SYNC_STATE_PATH;
+	private String STATE_INDEX_PATH;
+	private boolean COMPRESS_TEXT;
+	private String DICTIONARY_PATH;
 	
 	/**
 	 * Returns the username in the SQL database to use
@@ -69,6 +86,105 @@ public class ScrapeConfig {
 		return this.CATEGORY_PAGES;
 	}
 	
+	/**
+	 * Returns the number of database connections, each with its own writer thread, to use for writing scraped data.
+	 * 
+	 * @return - The number of writer threads to use, at least one
+	 */
+	public int getWriterThreads() {
+		return Math.max(1, this.WRITER_THREADS);
+	}
+	
+	/**
+	 * Returns the number of threads issuing queries concurrently while updating page data.
+	 * 
+	 * @return - The number of fetch threads to use, at least one
+	 */
+	public int getFetchThreads() {
+		return Math.max(1, this.FETCH_THREADS);
+	}
+	
+	/**
+	 * Returns the number of threads turning fetched page data into database writes.
+	 * 
+	 * @return - The number of transform threads to use, at least one
+	 */
+	public int getTransformThreads() {
+		return Math.max(1, this.TRANSFORM_THREADS);
+	}
+	
+	/**
+	 * Returns the maximum number of query batches in flight when each batch runs as its own task, or zero to use a fixed number of fetch threads instead.
+	 * 
+	 * @return - The batch concurrency limit, or zero if batches should not run as individual tasks
+	 */
+	public int getBatchConcurrency() {
+		return Math.max(0, this.BATCH_CONCURRENCY);
+	}
+	
+	/**
+	 * Returns the number of levels of subcategories to descend into below each category page; zero lists only the category pages themselves.
+	 * 
+	 * @return - The subcategory depth to crawl to
+	 */
+	public int getCategoryDepth() {
+		return Math.max(0, this.CATEGORY_DEPTH);
+	}
+	
+	/**
+	 * Returns the number of categories to list at once while building the list of pages.
+	 * 
+	 * @return - The number of categories to list in parallel, four if unset
+	 */
+	public int getCrawlThreads() {
+		return (this.CRAWL_THREADS > 0) ? this.CRAWL_THREADS : DEFAULT_CRAWL_THREADS;
+	}
+	
+	/**
+	 * Returns the path of the journal recording this scrape's progress, from which an interrupted scrape may be resumed.
+	 * 
+	 * @return - The path of the journal file, "scrape.journal" if unset
+	 */
+	public String getJournalPath() {
+		return ((this.JOURNAL_PATH != null) && !this.JOURNAL_PATH.isEmpty()) ? this.JOURNAL_PATH : DEFAULT_JOURNAL_PATH;
+	}
+	
+	/**
+	 * Returns the path of the file holding the time up to which edits have been scraped, used by incremental runs.
+	 * 
+	 * @return - The path of the sync state file, "scrape.sync" if unset
+	 */
+	public String getSyncStatePath() {
+		return ((this.SYNC_STATE_PATH != null) && !this.SYNC_STATE_PATH.isEmpty()) ? this.SYNC_STATE_PATH : DEFAULT_SYNC_STATE_PATH;
+	}
+	
+	/**
+	 * Returns the path of the index holding the revision of every page in the database, which spares each run a scan of the table.
+	 * 
+	 * @return - The path of the page state index, "scrape.index" if unset
+	 */
+	public String getStateIndexPath() {
+		return ((this.STATE_INDEX_PATH != null) && !this.STATE_INDEX_PATH.isEmpty()) ? this.STATE_INDEX_PATH : DEFAULT_STATE_INDEX_PATH;
+	}
+	
+	/**
+	 * Returns whether article text should be stored compressed; the text columns must then be binary, which is checked before scraping.
+	 * 
+	 * @return - Whether to compress article text, false if unset
+	 */
+	public boolean getCompressText() {
+		return this.COMPRESS_TEXT;
+	}
+	
+	/**
+	 * Returns the path of the preset dictionary used to compress article text. The built-in dictionary is used until one is trained.
+	 * 
+	 * @return - The path of the dictionary file, "text.dict" if unset
+	 */
+	public String getDictionaryPath() {
+		return ((this.DICTIONARY_PATH != null) && !this.DICTIONARY_PATH.isEmpty()) ? this.DICTIONARY_PATH : DEFAULT_DICTIONARY_PATH;
+	}
+	
 	public void clear() {
 		this.USERNAME = "";
 		this.PASSWORD = "";
@@ -76,5 +192,16 @@ public class ScrapeConfig {
 		this.TABLENAME = "";
 		this.WIKI_URL = "";
 		this.CATEGORY_PAGES = new String[]{};
+		this.WRITER_THREADS = 0;
+		this.FETCH_THREADS = 0;
+		this.TRANSFORM_THREADS = 0;
+		this.BATCH_CONCURRENCY = 0;
+		this.CATEGORY_DEPTH = 0;
+		this.CRAWL_THREADS = 0;
+		this.JOURNAL_PATH = "";
+		this.SYNC_STATE_PATH = "";
+		this.STATE_INDEX_PATH = "";
+		this.COMPRESS_TEXT = false;
+		this.DICTIONARY_PATH = "";
 	}
 }